@@ -0,0 +1,229 @@
+/**
+ * The {@code CageSumTable} consists in the class which knows, for every puzzle size, which digits
+ * can be used to complete a group (also known as cage) with a given number of cells and a given sum
+ *
+ * The tables are built only once, when the class is loaded, and never change after that, so they can be
+ * read by any number of threads. Each answer is a bitmask where the digit d is in the set if the bit number d is 1
+ * (the same representation used by {@code SumdokuSearchState}), so we turn a group's sum into the
+ * allowed digits with a single array lookup
+ *
+ * There are two tables:
+ * - {@code candidates} for any group: the digits of the group can repeat, but never more than
+ *   {@code size} times (a digit appears only once in each row)
+ * - {@code distinctCandidates} for groups whose cells are all in the same row or in the same column:
+ *   the digits of the group can't repeat
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class CageSumTable {
+
+    // The sizes of the puzzles we support (the same limits of 'SumdokuPuzzle.definesPuzzle')
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 9;
+
+    // For each size, the tables are flat arrays: the answer for (cells, sum) is in the position cells * (maxSum(size) + 1) + sum
+    private static final short[][] CANDIDATES = new short[MAX_SIZE + 1][];
+    private static final short[][] DISTINCT_CANDIDATES = new short[MAX_SIZE + 1][];
+
+    static {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            CANDIDATES[size] = buildCandidates(size);
+            DISTINCT_CANDIDATES[size] = buildDistinctCandidates(size);
+        }
+    }
+
+    /**
+     * This class only has static functions, so we don't want any object of it.
+     */
+    private CageSumTable(){
+    }
+
+    /**
+     * Retrieves the digits that can be used in a group of {@code cells} cells whose values must add up to {@code sum}
+     * (each digit can be used at most {@code size} times).
+     *
+     * @param size the size of the puzzle
+     * @param cells the number of cells of the group
+     * @param sum the sum of the values of the group
+     * @requires {@code 3 <= size <= 9} and {@code cells >= 0}
+     * @return the bitmask with every digit that appears in at least one way of reaching {@code sum} (0 if there isn't any)
+     */
+    public static int candidates(int size, int cells, int sum){
+        return lookup(CANDIDATES[size], size, size * size, cells, sum);
+    }
+
+    /**
+     * Retrieves the digits that can be used in a group of {@code cells} cells whose values must add up to {@code sum}
+     * and can't repeat (i.e., the group is inside a single row or a single column).
+     *
+     * @param size the size of the puzzle
+     * @param cells the number of cells of the group
+     * @param sum the sum of the values of the group
+     * @requires {@code 3 <= size <= 9} and {@code cells >= 0}
+     * @return the bitmask with every digit that appears in at least one way of reaching {@code sum} (0 if there isn't any)
+     */
+    public static int distinctCandidates(int size, int cells, int sum){
+        return lookup(DISTINCT_CANDIDATES[size], size, size, cells, sum);
+    }
+
+    /**
+     * Reads the answer for ({@code cells}, {@code sum}) in one of the tables.
+     *
+     * @param table the table of the given size
+     * @param size the size of the puzzle
+     * @param maxCells the biggest number of cells that the table has
+     * @param cells the number of cells of the group
+     * @param sum the sum of the values of the group
+     * @requires {@code table} was built for {@code size} with {@code maxCells} and {@code cells >= 0}
+     * @return the bitmask stored in the table (0 if the position is outside the table)
+     */
+    private static int lookup(short[] table, int size, int maxCells, int cells, int sum){
+        if (cells > maxCells || sum < 0 || sum > maxSum(size))
+            return 0; // The sum can't be reached
+
+        return table[cells * (maxSum(size) + 1) + sum];
+    }
+
+    /**
+     * Retrieves the biggest sum a group can have in a puzzle (the same limit of 'SumdokuPuzzle.definesPuzzle').
+     *
+     * @param size the size of the puzzle
+     * @return the value (size^3 + size^2) / 2
+     */
+    private static int maxSum(int size){
+        return (size * size * size + size * size) / 2;
+    }
+
+    /**
+     * Builds the table of the groups whose digits can repeat (at most {@code size} times each).
+     *
+     * A digit d can be used with (cells, sum) if some ways of reaching (cells - c, sum - c * d) without the digit d
+     * exist, for some number of copies c between 1 and {@code size}. So, for each digit, we first find every
+     * (cells, sum) that can be reached without it
+     *
+     * @param size the size of the puzzle
+     * @return the flat table for the given size
+     */
+    private static short[] buildCandidates(int size){
+        int maxCells = size * size;
+        int maxSum = maxSum(size);
+        short[] table = new short[(maxCells + 1) * (maxSum + 1)];
+
+        for (int digit = 1; digit <= size; digit++){
+
+            // The (cells, sum) that can be reached only with the other digits
+            boolean[][] withoutDigit = reachable(size, digit, maxCells, maxSum);
+
+            for (int cells = 1; cells <= maxCells; cells++){
+                for (int sum = 0; sum <= maxSum; sum++){
+
+                    // We check every number of copies of the digit
+                    for (int copies = 1; copies <= size && copies <= cells && copies * digit <= sum; copies++){
+                        if (withoutDigit[cells - copies][sum - copies * digit]){
+                            table[cells * (maxSum + 1) + sum] |= (short) (1 << digit);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Finds every (cells, sum) that can be reached with the digits between 1 and {@code size}, except {@code excludedDigit},
+     * using each digit at most {@code size} times.
+     *
+     * @param size the size of the puzzle
+     * @param excludedDigit the digit that can't be used
+     * @param maxCells the biggest number of cells we care about
+     * @param maxSum the biggest sum we care about
+     * @return a matrix where the position [cells][sum] is {@code true} if it can be reached
+     */
+    private static boolean[][] reachable(int size, int excludedDigit, int maxCells, int maxSum){
+        boolean[][] result = new boolean[maxCells + 1][maxSum + 1];
+        result[0][0] = true; // Zero cells always have a sum of zero
+
+        // We add one digit at a time, with any number of copies between 0 and size
+        for (int digit = 1; digit <= size; digit++){
+            if (digit != excludedDigit){
+                boolean[][] next = new boolean[maxCells + 1][maxSum + 1];
+
+                for (int cells = 0; cells <= maxCells; cells++){
+                    for (int sum = 0; sum <= maxSum; sum++){
+                        if (result[cells][sum]){
+                            for (int copies = 0; copies <= size && cells + copies <= maxCells && sum + copies * digit <= maxSum; copies++){
+                                next[cells + copies][sum + copies * digit] = true;
+                            }
+                        }
+                    }
+                }
+
+                result = next;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the table of the groups whose digits can't repeat, going through every set of different digits.
+     *
+     * @param size the size of the puzzle
+     * @return the flat table for the given size
+     */
+    private static short[] buildDistinctCandidates(int size){
+        int maxSum = maxSum(size);
+        short[] table = new short[(size + 1) * (maxSum + 1)];
+
+        // Each set of digits is a bitmask with the bits 1 to size
+        for (int digits = 0; digits < (1 << (size + 1)); digits += 2){
+            int sum = 0;
+            for (int digit = 1; digit <= size; digit++){
+                if ((digits & (1 << digit)) != 0)
+                    sum += digit;
+            }
+
+            // Every digit of the set can be used in a group with that number of cells and that sum
+            table[Integer.bitCount(digits) * (maxSum + 1) + sum] |= (short) digits;
+        }
+
+        return table;
+    }
+
+    /**
+     * Builds a report with the memory used by the tables of each size (only the table contents, without the array headers).
+     *
+     * @return a {@code String} with one line per size and a final line with the total
+     */
+    public static String footprintReport(){
+        StringBuilder result = new StringBuilder();
+        long total = 0;
+
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            long bytes = 2L * (CANDIDATES[size].length + DISTINCT_CANDIDATES[size].length); // Each entry is a short
+            total += bytes;
+
+            result.append("size ").append(size).append(": ");
+            result.append(CANDIDATES[size].length).append(" + ").append(DISTINCT_CANDIDATES[size].length).append(" entries, ");
+            result.append(bytes).append(" bytes\n");
+        }
+
+        result.append("total: ").append(total).append(" bytes\n");
+        return result.toString();
+    }
+
+    /**
+     * Prints the memory report of the tables.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args){
+        System.out.print(footprintReport());
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The {@code ConcurrentPuzzleDispenser} consists in the class which hands out the puzzles of a pool or of a catalog
+ * to any number of threads at the same time, without locks, so each puzzle is handed out exactly once
+ *
+ * The puzzles of each size are visited in a random order (a random start and a stride with no common divisors with the
+ * number of puzzles, as in {@code RandomSumdokuPuzzle}). That order is split into {@code stripes}: the stripe j owns the
+ * positions j, j + stripes, j + 2 * stripes, ... and has its own atomic cursor with the number of positions already
+ * claimed. A thread claims a position with a single {@code getAndIncrement} on the cursor of its stripe and, when that
+ * stripe ends, it moves to the next one. So the threads usually don't touch the same cursor, and the cursors are
+ * {@code PADDING} positions apart in the array, so they are never in the same cache line
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class ConcurrentPuzzleDispenser {
+
+    // The sizes of the puzzles we support (the same limits of 'SumdokuPuzzle.definesPuzzle')
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 9;
+
+    private static final int PADDING = 16; // 16 longs are 128 bytes, more than a cache line
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * The {@code Source} describes where the puzzles are read from.
+     */
+    private interface Source {
+        SumdokuPuzzle puzzle(int size, int index);
+    }
+
+    private final Source source;
+    private final int stripes; // The number of stripes of each size (a power of two)
+    private final int[] counts = new int[MAX_SIZE + 1]; // The number of puzzles of each size
+    private final long[] start = new long[MAX_SIZE + 1]; // The first position of the random order of each size
+    private final long[] stride = new long[MAX_SIZE + 1]; // The distance between two positions of the random order of each size
+    private final AtomicLongArray cursors; // The cursor of the stripe j of the size n is in the position ((n - MIN_SIZE) * stripes + j) * PADDING
+
+    /**
+     * Creates a dispenser of every puzzle of a pool.
+     *
+     * @param pool the pool
+     * @requires {@code pool != null}
+     */
+    public ConcurrentPuzzleDispenser(SumdokuPuzzlePool pool){
+        this(pool::puzzle, pool::count, defaultStripes());
+    }
+
+    /**
+     * Creates a dispenser of every puzzle of a pool with the given number of stripes (useful to test the stripes
+     * in a computer with few processors).
+     *
+     * @param pool the pool
+     * @param stripes the number of stripes of each size
+     * @requires {@code pool != null} and {@code stripes} is a power of two
+     */
+    ConcurrentPuzzleDispenser(SumdokuPuzzlePool pool, int stripes){
+        this(pool::puzzle, pool::count, stripes);
+    }
+
+    /**
+     * Creates a dispenser of every puzzle of a catalog (each puzzle is only read when it is handed out).
+     *
+     * @param catalog the catalog
+     * @requires {@code catalog != null}
+     */
+    public ConcurrentPuzzleDispenser(SumdokuCatalog catalog){
+        this(catalog::puzzle, catalog::count, defaultStripes());
+    }
+
+    /**
+     * Creates a dispenser with the puzzles of a source.
+     *
+     * @param source where the puzzles are read from
+     * @param counter the number of puzzles of each size in the source
+     * @param stripes the number of stripes of each size (a power of two)
+     */
+    private ConcurrentPuzzleDispenser(Source source, IntUnaryOperator counter, int stripes){
+        this.source = source;
+        this.stripes = stripes;
+        this.cursors = new AtomicLongArray((MAX_SIZE - MIN_SIZE + 1) * this.stripes * PADDING);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            this.counts[size] = counter.applyAsInt(size);
+
+            if (this.counts[size] > 0){
+                this.start[size] = random.nextInt(this.counts[size]);
+                this.stride[size] = 1 + random.nextInt(this.counts[size]);
+                while (gcd(this.stride[size], this.counts[size]) != 1){
+                    this.stride[size]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of stripes for this computer: the smallest power of two not smaller than the number of processors.
+     *
+     * @return the number of stripes (at most {@code MAX_STRIPES})
+     */
+    private static int defaultStripes(){
+        return Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    }
+
+    /**
+     * Finds the greatest common divisor of two numbers (with the Euclidean algorithm).
+     *
+     * @param a the first number
+     * @param b the second number
+     * @requires {@code a >= 0 && b >= 0}
+     * @return the greatest common divisor of {@code a} and {@code b}
+     */
+    private static long gcd(long a, long b){
+        while (b != 0){
+            long rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    /**
+     * Retrieves the number of positions owned by a stripe.
+     *
+     * @param size the size of the puzzles
+     * @param stripe the stripe
+     * @return the number of positions j, j + stripes, ... smaller than the number of puzzles
+     */
+    private int stripeLength(int size, int stripe){
+        return (this.counts[size] - stripe + this.stripes - 1) / this.stripes;
+    }
+
+    /**
+     * Hands out a puzzle of the given size that wasn't handed out before (any number of threads can call this function).
+     *
+     * @param size the size of the puzzle
+     * @return the puzzle, or null if every puzzle of that size was already handed out
+     */
+    public SumdokuPuzzle next(int size){
+        if (size < MIN_SIZE || size > MAX_SIZE || this.counts[size] == 0)
+            return null;
+
+        // Each thread starts in its own stripe (most of the time), so the threads don't compete for the same cursor
+        int first = (int) Thread.currentThread().getId() & (this.stripes - 1);
+        for (int k = 0; k < this.stripes; k++){
+            int stripe = (first + k) & (this.stripes - 1);
+            int cursor = ((size - MIN_SIZE) * this.stripes + stripe) * PADDING;
+            int length = stripeLength(size, stripe);
+
+            // We only increment the cursor while the stripe has positions, so the cursors never grow much past their end
+            if (this.cursors.get(cursor) < length){
+                long claimed = this.cursors.getAndIncrement(cursor);
+                if (claimed < length){
+                    long position = stripe + claimed * this.stripes;
+                    int index = (int) ((this.start[size] + position * this.stride[size]) % this.counts[size]);
+                    return this.source.puzzle(size, index);
+                }
+            }
+        }
+
+        return null; // Every stripe has ended
+    }
+
+    /**
+     * Counts the puzzles of the given size not handed out yet (while other threads draw puzzles, it is only an estimate).
+     *
+     * @param size the size of the puzzles
+     * @return the number of puzzles left
+     */
+    public int remaining(int size){
+        if (size < MIN_SIZE || size > MAX_SIZE)
+            return 0;
+
+        int result = 0;
+        for (int stripe = 0; stripe < this.stripes; stripe++){
+            long claimed = this.cursors.get(((size - MIN_SIZE) * this.stripes + stripe) * PADDING);
+            result += (int) Math.max(0, stripeLength(size, stripe) - claimed);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code ConstraintSumdokuSolver} consists in the class which solves Sumdoku puzzles
+ * using constraint propagation instead of brute force
+ *
+ * Every row and column keeps the set of digits already used (as a bitmask) and every group keeps
+ * its current sum, so the candidates of a cell are found with a few bit operations. The search
+ * always continues on the most constrained cell and gives up on a branch as soon as a cell has
+ * no candidates, a digit has no place in a row or column or a group can't reach its target sum anymore
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class ConstraintSumdokuSolver implements SumdokuSolverEngine {
+
+    private final SumdokuBitboard bitboard; // The groups of the puzzle, shared by every search state (check the class 'SumdokuBitboard')
+
+    /**
+     * Builds a solver for the puzzle with the given group membership matrix and group values.
+     *
+     * @param groupMembership a square two-dimensional matrix representing group memberships
+     * @param groupsValues a one-dimensional array with the target sum for each group
+     * @requires {@code groupMembership} is a square matrix with size between 3 and 9 and every value
+     *           in it is between 0 and {@code groupsValues.length - 1}
+     */
+    public ConstraintSumdokuSolver(int[][] groupMembership, int[] groupsValues){
+        this(new SumdokuBitboard(groupMembership, groupsValues));
+    }
+
+    /**
+     * Builds a solver for the puzzle with the given bitboard (check the function {@code SumdokuPuzzle.bitboard}).
+     *
+     * @param bitboard the groups of the puzzle
+     * @requires {@code bitboard != null}
+     */
+    ConstraintSumdokuSolver(SumdokuBitboard bitboard){
+        this.bitboard = bitboard;
+    }
+
+    /**
+     * Searches for at most {@code maxSolutions} solutions of the puzzle.
+     *
+     * @param maxSolutions the maximum number of solutions to search for
+     * @requires {@code maxSolutions > 0}
+     * @return an array with the solutions found (at most {@code maxSolutions}), each one as a size x size matrix
+     */
+    public int[][][] findSolutions(int maxSolutions){
+
+        // We keep every solution found in a list, because we don't know how many we'll find
+        List<int[][]> solutions = new ArrayList<>();
+        search(new SumdokuSearchState(this.bitboard), maxSolutions, solutions);
+
+        return solutions.toArray(new int[solutions.size()][][]);
+    }
+
+    /**
+     * Searches for at most {@code maxSolutions} solutions of the puzzle and counts them.
+     *
+     * @param maxSolutions the maximum number of solutions to search for
+     * @requires {@code maxSolutions > 0}
+     * @return the number of solutions found, never bigger than {@code maxSolutions}
+     */
+    public int howManySolutions(int maxSolutions){
+
+        // We don't need to keep the solutions, only to count them
+        return search(new SumdokuSearchState(this.bitboard), maxSolutions, null);
+    }
+
+    /**
+     * Checks if the puzzle has no solution, exactly one solution or more than one
+     * (check the function {@code SumdokuUniqueness.check}).
+     *
+     * @return the outcome of the check
+     */
+    public SumdokuUniqueness checkUniqueness(){
+        return SumdokuUniqueness.check(new SumdokuSearchState(this.bitboard), state -> search(state, 2, null));
+    }
+
+    /**
+     * Searches, with backtracking, every way of completing the given state until {@code maxSolutions} solutions are found.
+     *
+     * @param state the partially filled grid (it's the same when the function ends)
+     * @param maxSolutions the maximum number of solutions to search for
+     * @param solutions the list where the solutions found are added (or null if we only want to count them)
+     * @requires {@code state != null && maxSolutions > 0}
+     * @return the number of solutions found, never bigger than {@code maxSolutions}
+     */
+    private int search(SumdokuSearchState state, int maxSolutions, List<int[][]> solutions){
+
+        // We continue on the most constrained cell (check the function 'chooseBranchCell')
+        int cell = state.chooseBranchCell();
+
+        // If there isn't any empty cell, we found a solution
+        if (cell < 0){
+            if (solutions != null)
+                solutions.add(state.toMatrix());
+            return 1;
+        }
+
+        int found = 0;
+        int candidates = state.branchDigits; // It is 0 if this state can't be completed
+
+        // We try each candidate (from the smallest to the biggest) until we find enough solutions
+        while (candidates != 0 && found < maxSolutions){
+            int digit = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1; // We remove the digit from the set
+
+            state.place(cell, digit);
+            found += search(state, maxSolutions - found, solutions);
+            state.remove(cell);
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code ParallelSolverBenchmark} measures how much faster the {@code ParallelSumdokuSolver} is
+ * when it uses more threads, comparing it with the single-threaded {@code ConstraintSumdokuSolver}
+ *
+ * The puzzles are built from random latin squares split into random groups of up to 6 cells, so most of them
+ * are hard to solve (and many have more than one solution, which makes the search explore more of the tree)
+ *
+ * 		Compile: javac ParallelSolverBenchmark.java
+ * 		Execute: java  ParallelSolverBenchmark [size] [puzzles] [seed]
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class ParallelSolverBenchmark {
+
+    private static final int MAX_GROUP_SIZE = 6;
+    private static final int ROUNDS = 3; // The first round only warms up the JVM
+
+    /**
+     * Runs the benchmark and prints the time and the speedup of each parallelism (1, 2, 4, ... up to the number of processors).
+     *
+     * @param args optionally, the size of the puzzles (9 by default), the number of puzzles (20 by default) and the random seed
+     */
+    public static void main(String[] args){
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int numOfPuzzles = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        // We build every puzzle before measuring
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][][] memberships = new int[numOfPuzzles][][];
+        int[][] values = new int[numOfPuzzles][];
+        for (int i = 0; i < numOfPuzzles; i++){
+            int[][] square = SumdokuGenerator.randomLatinSquare(size, random);
+            memberships[i] = randomGroups(size, random);
+            values[i] = SumdokuGenerator.groupsValues(square, memberships[i]);
+        }
+
+        System.out.println("Puzzles: " + numOfPuzzles + " of size " + size + ", processors: " + processors);
+
+        // The single-threaded solver is our reference
+        long sequential = 0;
+        for (int round = 0; round < ROUNDS; round++){
+            long start = System.nanoTime();
+            for (int i = 0; i < numOfPuzzles; i++){
+                new ConstraintSumdokuSolver(memberships[i], values[i]).howManySolutions(2);
+            }
+            sequential = System.nanoTime() - start;
+        }
+        System.out.printf("sequential: %.1f ms%n", sequential / 1e6);
+
+        for (int parallelism : parallelismLevels(processors)){
+            long parallel = 0;
+            for (int round = 0; round < ROUNDS; round++){
+                long start = System.nanoTime();
+                for (int i = 0; i < numOfPuzzles; i++){
+                    new ParallelSumdokuSolver(memberships[i], values[i], parallelism).howManySolutions(2);
+                }
+                parallel = System.nanoTime() - start;
+            }
+            System.out.printf("parallelism %d: %.1f ms (speedup %.2fx)%n", parallelism, parallel / 1e6, (double) sequential / parallel);
+        }
+    }
+
+    /**
+     * Retrieves the parallelism levels to measure: the powers of two smaller than the number of processors and the number of processors itself.
+     *
+     * @param processors the number of processors
+     * @requires {@code processors > 0}
+     * @return the parallelism levels, from the smallest to the biggest
+     */
+    private static int[] parallelismLevels(int processors){
+        int count = 32 - Integer.numberOfLeadingZeros(processors - 1) + 1; // The powers of two before the processors, plus one
+        if (processors == 1)
+            count = 1;
+
+        int[] levels = new int[count];
+        for (int i = 0; i < count - 1; i++){
+            levels[i] = 1 << i;
+        }
+        levels[count - 1] = processors;
+        return levels;
+    }
+
+    /**
+     * Splits the grid into random groups, each one growing to the right or down from its first cell.
+     *
+     * @param size the size of the grid
+     * @param random the source of random numbers
+     * @return the group membership matrix (the groups are numbered from 0, in the order of their first cell)
+     */
+    private static int[][] randomGroups(int size, SplittableRandom random){
+        int[][] membership = new int[size][size];
+        for (int[] row : membership){
+            Arrays.fill(row, -1);
+        }
+
+        int group = 0;
+        for (int cell = 0; cell < size * size; cell++){
+            if (membership[cell / size][cell % size] < 0){
+                int groupSize = 1 + random.nextInt(MAX_GROUP_SIZE);
+                int current = cell;
+                membership[current / size][current % size] = group;
+
+                for (int k = 1; k < groupSize; k++){
+                    boolean right = random.nextBoolean();
+                    int next = right ? current + 1 : current + size;
+
+                    // We stop growing if we leave the grid or reach a cell of another group
+                    if ((right && next % size == 0) || next >= size * size || membership[next / size][next % size] >= 0)
+                        break;
+                    membership[next / size][next % size] = group;
+                    current = next;
+                }
+                group++;
+            }
+        }
+        return membership;
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code ParallelSumdokuSolver} consists in the class which solves Sumdoku puzzles using
+ * several threads at the same time, which is useful for big grids (8x8 and 9x9)
+ *
+ * It uses the same constraints of the {@code ConstraintSumdokuSolver} class (check the class
+ * {@code SumdokuSearchState}), but the first levels of the search are split into tasks: each candidate
+ * of the most constrained cell is a new task with its own copy of the grid. The tasks run on a
+ * work-stealing {@code ForkJoinPool}, so idle threads take the tasks that are waiting. Every task
+ * stops as soon as the number of solutions we want is reached
+ *
+ * The number of solutions is always the same as with {@code ConstraintSumdokuSolver}. When there are
+ * more solutions than the ones we want, {@code findSolutions} may return a different subset of them
+ * (the one found first by the threads)
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class ParallelSumdokuSolver implements SumdokuSolverEngine {
+
+    // The pools of threads, one for each parallelism, shared by every solver (creating threads for each search would be slow)
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final SumdokuBitboard bitboard; // The groups of the puzzle, shared by every search state (check the class 'SumdokuBitboard')
+    private final int parallelism; // The number of threads used in the search
+    private final int maxForkDepth; // Until which level of the search we create new tasks
+
+    /**
+     * Builds a parallel solver for the given puzzle that uses every available processor.
+     *
+     * @param groupMembership a square two-dimensional matrix representing group memberships
+     * @param groupsValues a one-dimensional array with the target sum for each group
+     * @requires {@code groupMembership} is a square matrix with size between 3 and 9 and every value
+     *           in it is between 0 and {@code groupsValues.length - 1}
+     */
+    public ParallelSumdokuSolver(int[][] groupMembership, int[] groupsValues){
+        this(groupMembership, groupsValues, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds a parallel solver for the given puzzle that uses {@code parallelism} threads.
+     *
+     * @param groupMembership a square two-dimensional matrix representing group memberships
+     * @param groupsValues a one-dimensional array with the target sum for each group
+     * @param parallelism the number of threads used in the search
+     * @requires {@code groupMembership} is a square matrix with size between 3 and 9, every value
+     *           in it is between 0 and {@code groupsValues.length - 1} and {@code parallelism > 0}
+     */
+    public ParallelSumdokuSolver(int[][] groupMembership, int[] groupsValues, int parallelism){
+        this(new SumdokuBitboard(groupMembership, groupsValues), parallelism);
+    }
+
+    /**
+     * Builds a parallel solver for the puzzle with the given bitboard (check the function {@code SumdokuPuzzle.bitboard}).
+     *
+     * @param bitboard the groups of the puzzle
+     * @param parallelism the number of threads used in the search
+     * @requires {@code bitboard != null && parallelism > 0}
+     */
+    ParallelSumdokuSolver(SumdokuBitboard bitboard, int parallelism){
+        this.bitboard = bitboard;
+        this.parallelism = parallelism;
+
+        // We want a few tasks per thread (so the work can be balanced), but not too many (each task copies the grid)
+        // Each level of the search at least doubles the number of tasks, so we need about log2(parallelism) + 3 levels
+        this.maxForkDepth = 32 - Integer.numberOfLeadingZeros(parallelism) + 3;
+    }
+
+    /**
+     * Retrieves the number of threads used in the search.
+     *
+     * @return the parallelism of this solver
+     */
+    public int parallelism(){
+        return this.parallelism;
+    }
+
+    /**
+     * Searches for at most {@code maxSolutions} solutions of the puzzle.
+     *
+     * @param maxSolutions the maximum number of solutions to search for
+     * @requires {@code maxSolutions > 0}
+     * @return an array with the solutions found (at most {@code maxSolutions}), each one as a size x size matrix
+     */
+    public int[][][] findSolutions(int maxSolutions){
+        ConcurrentLinkedQueue<int[][]> solutions = new ConcurrentLinkedQueue<>();
+        search(new SumdokuSearchState(this.bitboard), maxSolutions, solutions);
+
+        return solutions.toArray(new int[solutions.size()][][]);
+    }
+
+    /**
+     * Searches for at most {@code maxSolutions} solutions of the puzzle and counts them.
+     *
+     * @param maxSolutions the maximum number of solutions to search for
+     * @requires {@code maxSolutions > 0}
+     * @return the number of solutions found, never bigger than {@code maxSolutions}
+     */
+    public int howManySolutions(int maxSolutions){
+        return search(new SumdokuSearchState(this.bitboard), maxSolutions, null);
+    }
+
+    /**
+     * Checks if the puzzle has no solution, exactly one solution or more than one
+     * (check the function {@code SumdokuUniqueness.check}, the search is in parallel).
+     *
+     * @return the outcome of the check
+     */
+    public SumdokuUniqueness checkUniqueness(){
+        return SumdokuUniqueness.check(new SumdokuSearchState(this.bitboard), state -> search(state, 2, null));
+    }
+
+    /**
+     * Searches, in parallel, every way of completing the given state until {@code maxSolutions} solutions are found.
+     *
+     * @param state the partially filled grid where the search starts
+     * @param maxSolutions the maximum number of solutions to search for
+     * @param solutions the queue where the solutions found are added (or null if we only want to count them)
+     * @requires {@code state != null && maxSolutions > 0}
+     * @return the number of solutions found, never bigger than {@code maxSolutions}
+     */
+    private int search(SumdokuSearchState state, int maxSolutions, ConcurrentLinkedQueue<int[][]> solutions){
+        AtomicInteger found = new AtomicInteger();
+        ForkJoinPool pool = POOLS.computeIfAbsent(this.parallelism, ForkJoinPool::new);
+
+        pool.invoke(new SearchTask(state, 0, maxSolutions, found, solutions));
+
+        return Math.min(found.get(), maxSolutions);
+    }
+
+    /**
+     * The {@code SearchTask} consists in one part of the search: the ways of completing a given state.
+     * In the first levels it splits itself into one task per candidate of the most constrained cell,
+     * after that it searches the rest of the tree in the same thread.
+     */
+    private final class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SumdokuSearchState state; // The grid of this task (no other task changes it)
+        private final int depth; // The level of the search where this task starts
+        private final int maxSolutions; // The maximum number of solutions to search for
+        private final AtomicInteger found; // The number of solutions found by every task (shared)
+        private final ConcurrentLinkedQueue<int[][]> solutions; // Where the solutions are kept (shared, may be null)
+
+        /**
+         * Creates a task that searches the ways of completing {@code state}.
+         *
+         * @param state the partially filled grid of this task
+         * @param depth the level of the search where this task starts
+         * @param maxSolutions the maximum number of solutions to search for
+         * @param found the counter of solutions shared by every task
+         * @param solutions the queue of solutions shared by every task (or null if we only want to count them)
+         */
+        SearchTask(SumdokuSearchState state, int depth, int maxSolutions, AtomicInteger found, ConcurrentLinkedQueue<int[][]> solutions){
+            this.state = state;
+            this.depth = depth;
+            this.maxSolutions = maxSolutions;
+            this.found = found;
+            this.solutions = solutions;
+        }
+
+        /**
+         * Runs the task, creating new tasks for the candidates of the most constrained cell
+         * while we are in the first levels of the search.
+         */
+        protected void compute(){
+
+            // If the other tasks already found every solution we want, we stop
+            if (this.found.get() >= this.maxSolutions)
+                return;
+
+            if (this.depth >= maxForkDepth){
+                searchHere(this.state);
+                return;
+            }
+
+            // We continue on the most constrained cell (check the function 'chooseBranchCell')
+            // While it has only one candidate, we place it in our own grid, because there is nothing to split
+            int cell = this.state.chooseBranchCell();
+            while (cell >= 0 && Integer.bitCount(this.state.branchDigits) == 1){
+                this.state.place(cell, Integer.numberOfTrailingZeros(this.state.branchDigits));
+                cell = this.state.chooseBranchCell();
+            }
+
+            if (cell < 0){
+                addSolution(this.state);
+                return;
+            }
+
+            // We create a task for each candidate (there are none if this state can't be completed)
+            int candidates = this.state.branchDigits;
+            List<SearchTask> tasks = new ArrayList<>();
+
+            while (candidates != 0){
+                int digit = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1; // We remove the digit from the set
+
+                SumdokuSearchState next = new SumdokuSearchState(this.state);
+                next.place(cell, digit);
+                tasks.add(new SearchTask(next, this.depth + 1, this.maxSolutions, this.found, this.solutions));
+            }
+
+            invokeAll(tasks);
+        }
+
+        /**
+         * Searches, with backtracking and in the current thread, every way of completing the given state.
+         *
+         * @param current the partially filled grid (it's the same when the function ends)
+         */
+        private void searchHere(SumdokuSearchState current){
+
+            // If the other tasks already found every solution we want, we stop
+            if (this.found.get() >= this.maxSolutions)
+                return;
+
+            int cell = current.chooseBranchCell();
+            if (cell < 0){
+                addSolution(current);
+                return;
+            }
+
+            int candidates = current.branchDigits; // It is 0 if this state can't be completed
+            while (candidates != 0 && this.found.get() < this.maxSolutions){
+                int digit = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1; // We remove the digit from the set
+
+                current.place(cell, digit);
+                searchHere(current);
+                current.remove(cell);
+            }
+        }
+
+        /**
+         * Counts the solution in the given full grid (and keeps it, if we want the solutions and we don't have enough yet).
+         *
+         * @param full the full grid
+         */
+        private void addSolution(SumdokuSearchState full){
+            int position = this.found.incrementAndGet();
+
+            if (this.solutions != null && position <= this.maxSolutions)
+                this.solutions.add(full.toMatrix());
+        }
+    }
+}
@@ -1,3 +1,6 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -11,67 +14,137 @@ import java.util.Random;
  */  
 public class RandomSumdokuPuzzle {
 
-    private SumdokuPuzzle[] puzzlesArray;
     private int counter = 0;
     private int gridSize;
 
+    // The puzzles written in this class are kept in a pool shared by every object (check the class 'SumdokuPuzzlePool'),
+    // so they are only built and rated once. Each object only keeps its session, with the puzzles it has already drawn
+    private SumdokuPuzzlePool.Session session; // The session in the pool (null if the puzzles come from a catalog)
+    private SumdokuDifficulty difficulty; // The band of the puzzles drawn from the pool (null for any band)
+
+    // When the puzzles come from a catalog, we don't keep them: we visit the indexes
+    // start, start + stride, start + 2 * stride, ... (modulo the number of puzzles), where the stride has
+    // no common divisors with the number of puzzles, so every puzzle is visited once, in a random order
+    private SumdokuCatalog catalog; // The catalog (null if the puzzles come from a pool)
+    private int catalogCount; // The number of puzzles of the catalog with our size
+    private long start;
+    private long stride;
+
     /**
-     * Shuffles the puzzles in the puzzlesArray randomly.
-     * This ensures that the order of puzzles is randomized.
+     * The {@code BuiltIn} keeps the pool with the puzzles written in this class. It is only built
+     * (by the JVM, in a thread-safe way) the first time it is used.
+     */
+    private static final class BuiltIn {
+        static final SumdokuPuzzlePool POOL = builtInPool();
+    }
+
+    /**
+     * Builds the pool with every puzzle written in this class.
      *
-     * @requires The puzzles array must not be null and must contain more than one puzzle.
-     * @ensures The puzzles array is randomized in place.
+     * @return the pool
      */
-    private void shufflePuzzles() {
-    // Check if the puzzles array is not null and contains more than one element
-    if (puzzlesArray != null && puzzlesArray.length > 1) {
-        Random random = new Random();
-        
-        // Perform the Fisher-Yates shuffle
-        for (int i = puzzlesArray.length - 1; i > 0; i--) {
-            // Select a random index between 0 and i (inclusive)
-            int j = random.nextInt(i + 1);
-            
-            // Swap the elements at indices i and j
-            SumdokuPuzzle temp = puzzlesArray[i];
-            puzzlesArray[i] = puzzlesArray[j];
-            puzzlesArray[j] = temp;
-        }
+    private static SumdokuPuzzlePool builtInPool() {
+        List<SumdokuPuzzle> puzzles = new ArrayList<>();
+        puzzles.addAll(Arrays.asList(getPuzzlesSize3()));
+        puzzles.addAll(Arrays.asList(getPuzzlesSize4()));
+        puzzles.addAll(Arrays.asList(getPuzzlesSize5()));
+        return new SumdokuPuzzlePool(puzzles);
     }
-}
     
     /**
-     * Constructor that initializes the {@code RandomSumdokuPuzzle} object with a set of puzzles
-     * of the specified grid size. The puzzles are shuffled randomly upon initialization.
+     * Constructor that initializes the {@code RandomSumdokuPuzzle} object with the puzzles
+     * of the specified grid size written in this class. The puzzles are drawn randomly from a shared pool,
+     * so nothing is built or shuffled for each object.
      *
-     * @param size the size of the puzzle grid (e.g., 3, 5, or 6).
-     *             If the size is not supported, no puzzles will be initialized.
-     * @ensures Puzzles are initialized and shuffled if the size is valid.
+     * @param size the size of the puzzle grid (e.g., 3, 4 or 5).
+     *             If the size is not supported, there will be no puzzles.
+     * @ensures The order of the puzzles is random, and no puzzle is repeated.
      */ 
     public RandomSumdokuPuzzle(int size) {
         // Set the grid size
         this.gridSize = size;
-        
-        // Initialize the puzzlesArray based on the specified grid size
-        switch (size) {
-            case 3:
-                this.puzzlesArray = getPuzzlesSize3();  // Get puzzles for size 3
-                break;
-            case 4:
-                this.puzzlesArray = getPuzzlesSize4();  // Get puzzles for size 6
-                break;
-            case 5:
-                this.puzzlesArray = getPuzzlesSize5();  // Get puzzles for size 5
-                break;
-            default:
-                this.gridSize = 0;  // Invalid size, set puzzlesArray to null
-                break;
+
+        if (size >= 3 && size <= 5) {
+            this.session = BuiltIn.POOL.newSession();
+        } else {
+            this.gridSize = 0;  // Invalid size, there are no puzzles
         }
-    
-        // Shuffle the puzzles array to randomize the order
-        shufflePuzzles();
     }
-    
+
+    /**
+     * Constructor that initializes the {@code RandomSumdokuPuzzle} object with the puzzles of the specified
+     * grid size in a pool, from any difficulty band.
+     *
+     * @param pool the pool where the puzzles are
+     * @param size the size of the puzzle grid
+     * @requires {@code pool != null}
+     * @ensures The order of the puzzles is random, and no puzzle is repeated.
+     */
+    public RandomSumdokuPuzzle(SumdokuPuzzlePool pool, int size) {
+        this.gridSize = size;
+        this.session = pool.newSession();
+    }
+
+    /**
+     * Constructor that initializes the {@code RandomSumdokuPuzzle} object with the puzzles of the specified
+     * grid size and difficulty band in a pool.
+     *
+     * @param pool the pool where the puzzles are
+     * @param size the size of the puzzle grid
+     * @param difficulty the difficulty band of the puzzles
+     * @requires {@code pool != null && difficulty != null}
+     * @ensures The order of the puzzles is random, and no puzzle is repeated.
+     */
+    public RandomSumdokuPuzzle(SumdokuPuzzlePool pool, int size, SumdokuDifficulty difficulty) {
+        this.gridSize = size;
+        this.session = pool.newSession();
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Constructor that initializes the {@code RandomSumdokuPuzzle} object with the puzzles of the specified
+     * grid size in a catalog. The puzzles are drawn in a random order and only read from the catalog when
+     * they are needed, so the construction doesn't depend on the number of puzzles.
+     *
+     * @param catalog the catalog where the puzzles are
+     * @param size the size of the puzzle grid
+     * @requires {@code catalog != null}
+     * @ensures The order of the puzzles is random, and no puzzle is repeated.
+     */
+    public RandomSumdokuPuzzle(SumdokuCatalog catalog, int size) {
+        this.gridSize = size;
+        this.catalog = catalog;
+        this.catalogCount = catalog.count(size);
+
+        Random random = new Random();
+        if (this.catalogCount > 0) {
+            this.start = random.nextInt(this.catalogCount);
+
+            // Any stride that has no common divisors with the number of puzzles goes through all of them
+            this.stride = 1 + random.nextInt(this.catalogCount);
+            while (gcd(this.stride, this.catalogCount) != 1) {
+                this.stride++;
+            }
+        }
+    }
+
+    /**
+     * Finds the greatest common divisor of two numbers (with the Euclidean algorithm).
+     *
+     * @param a the first number
+     * @param b the second number
+     * @requires {@code a >= 0 && b >= 0}
+     * @return the greatest common divisor of {@code a} and {@code b}
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
     /**
      * Retrieves the array of 3x3 Sumdoku puzzles.
      *
@@ -79,7 +152,7 @@ public class RandomSumdokuPuzzle {
      * @requires Predefined membership and value arrays for 3x3 puzzles.
      * @ensures A fully initialized array of {@code SumdokuPuzzle} objects is returned.
      */
-    private SumdokuPuzzle[] getPuzzlesSize3() {
+    private static SumdokuPuzzle[] getPuzzlesSize3() {
         int[][][] puzzlesMembership;
         int[][] puzzlesValues;
     
@@ -114,7 +187,7 @@ public class RandomSumdokuPuzzle {
      * @requires Predefined membership and value arrays for 5x5 puzzles.
      * @ensures A fully initialized array of {@code SumdokuPuzzle} objects is returned.
      */
-    private SumdokuPuzzle[] getPuzzlesSize5() {
+    private static SumdokuPuzzle[] getPuzzlesSize5() {
         int[][][] puzzlesMembership;
         int[][] puzzlesValues;
     
@@ -153,7 +226,7 @@ public class RandomSumdokuPuzzle {
      * @requires Predefined membership and value arrays for 4x4 puzzles.
      * @ensures A fully initialized array of {@code SumdokuPuzzle} objects is returned.
      */    
-    private SumdokuPuzzle[] getPuzzlesSize4() {
+    private static SumdokuPuzzle[] getPuzzlesSize4() {
         int[][][] puzzlesMembership;
         int[][] puzzlesValues;
     
@@ -201,7 +274,14 @@ public class RandomSumdokuPuzzle {
      * @return true if there are more puzzles, false otherwise.
      */
     public boolean hasNextPuzzle(){
-        return this.counter < this.puzzlesArray.length; // Return if it has a next puzzle
+        if (this.catalog != null) {
+            return this.counter < this.catalogCount; // The puzzles come from a catalog
+        }
+        if (this.session == null) {
+            return false; // The size isn't supported
+        }
+        // Return if the pool has a puzzle we haven't drawn
+        return this.difficulty == null ? this.session.hasNext(this.gridSize) : this.session.hasNext(this.gridSize, this.difficulty);
         
     }
 
@@ -209,11 +289,22 @@ public class RandomSumdokuPuzzle {
      * Retrieves the next puzzle in the sequence.
      *
      * @return the next {@code SumdokuPuzzle} if available;  null if no more puzzles exist.
-     * @requires There must be a next puzzle available.
      * @ensures The counter is incremented if a puzzle is returned.
      */
     public SumdokuPuzzle nextPuzzle() {
-        // Return the next puzzle and increment the counter
-        return this.puzzlesArray[counter++];
+        // There may be no puzzles left (or none at all)
+        if (!hasNextPuzzle()) {
+            return null;
+        }
+
+        // If the puzzles come from a catalog, we read the next one in our order
+        if (this.catalog != null) {
+            int index = (int) ((this.start + this.counter++ * this.stride) % this.catalogCount);
+            return this.catalog.puzzle(this.gridSize, index);
+        }
+
+        // Draw a puzzle we haven't seen from the pool and increment the counter
+        this.counter++;
+        return this.difficulty == null ? this.session.next(this.gridSize) : this.session.next(this.gridSize, this.difficulty);
     }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntSupplier;
+
+/**
+ * The {@code SumdokuBenchmark} measures the time of the most used operations of the game on puzzles from 3x3 to 9x9:
+ * {@code definesPuzzle}, {@code isSolvedBy}, {@code isPartiallySolvedBy}, {@code cluesToString}, {@code SumdokuGrid.toString}
+ * and the construction of a {@code RandomSumdokuPuzzle}
+ *
+ * Each operation runs in a loop for a fixed time: first some warm-up iterations (so the JVM compiles it), then the measured
+ * iterations, each one giving the average time of an operation. The results are written in a JSON file with the same fields
+ * of the JSON results of JMH (benchmark, mode, params, primaryMetric with score, scoreError, scoreUnit and rawData),
+ * so the files of two versions can be compared by the same tools
+ *
+ * The puzzles are made by the {@code SumdokuGenerator} with a fixed seed, so every run measures the same puzzles
+ *
+ * 		Compile: javac SumdokuBenchmark.java
+ * 		Execute: java  SumdokuBenchmark [resultFile] [benchmarkFilter]
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class SumdokuBenchmark {
+
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 9;
+    private static final int PUZZLES = 4; // The number of puzzles of each size (the operations go through them in turns)
+    private static final long SEED = 19;
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = 200_000_000L; // Each iteration runs for 200 ms
+    private static final double STUDENT_T = 4.781; // The Student's t for 99.9% with MEASUREMENT_ITERATIONS - 1 degrees of freedom (as JMH)
+
+    // The results of the operations are added here, so the JVM can't remove an operation whose result isn't used
+    private static volatile int sink;
+
+    /**
+     * The {@code Operation} prepares the operation measured by a benchmark for the puzzles of a size.
+     */
+    private interface Operation {
+        IntSupplier forSize(int size, SumdokuPuzzle[] puzzles);
+    }
+
+    /**
+     * Runs every benchmark whose name has the filter and writes the results.
+     *
+     * @param args optionally, the file of the results ("sumdoku-benchmark.json" by default) and the filter of the benchmarks
+     * @throws IOException if the file of the results can't be written
+     */
+    public static void main(String[] args) throws IOException{
+        Path resultFile = Path.of(args.length > 0 ? args[0] : "sumdoku-benchmark.json");
+        String filter = args.length > 1 ? args[1] : "";
+
+        // We build the puzzles before measuring (the big ones take a while)
+        SumdokuPuzzle[][] puzzles = new SumdokuPuzzle[MAX_SIZE + 1][PUZZLES];
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            SumdokuGenerator generator = new SumdokuGenerator(size, SEED);
+            for (int i = 0; i < PUZZLES; i++){
+                puzzles[size][i] = generator.puzzle(i);
+            }
+        }
+
+        String[] names = {"SumdokuPuzzle.definesPuzzle", "SumdokuPuzzle.isSolvedBy", "SumdokuPuzzle.isPartiallySolvedBy",
+            "SumdokuPuzzle.cluesToString", "SumdokuGrid.toString", "RandomSumdokuPuzzle.new"};
+        Operation[] operations = {SumdokuBenchmark::definesPuzzle, SumdokuBenchmark::isSolvedBy, SumdokuBenchmark::isPartiallySolvedBy,
+            SumdokuBenchmark::cluesToString, SumdokuBenchmark::gridToString, SumdokuBenchmark::randomPuzzle};
+
+        List<String> results = new ArrayList<>();
+        for (int b = 0; b < names.length; b++){
+            if (!names[b].contains(filter))
+                continue;
+
+            for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+                double[] scores = measure(operations[b].forSize(size, puzzles[size]));
+                double mean = mean(scores);
+                double error = STUDENT_T * standardDeviation(scores, mean) / Math.sqrt(scores.length);
+                System.out.printf(Locale.ROOT, "%-36s %dx%d %14.1f +- %.1f ns/op%n", names[b], size, size, mean, error);
+                results.add(toJson(names[b], size, mean, error, scores));
+            }
+        }
+
+        Files.writeString(resultFile, "[\n" + String.join(",\n", results) + "\n]\n");
+        System.out.println("Results written to " + resultFile);
+    }
+
+    /**
+     * Runs an operation during the warm-up and the measured iterations.
+     *
+     * @param operation the operation
+     * @return the average time of an operation in each measured iteration, in nanoseconds
+     */
+    private static double[] measure(IntSupplier operation){
+        double[] scores = new double[MEASUREMENT_ITERATIONS];
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; iteration++){
+            int result = 0;
+            long operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+
+            // We only read the clock after a batch of operations, so reading it doesn't change much the time measured
+            int batch = 1;
+            do {
+                for (int i = 0; i < batch; i++){
+                    result += operation.getAsInt();
+                }
+                operations += batch;
+                elapsed = System.nanoTime() - start;
+                batch = Math.min(batch * 2, 1024);
+            } while (elapsed < ITERATION_NANOS);
+
+            sink += result;
+            if (iteration >= WARMUP_ITERATIONS)
+                scores[iteration - WARMUP_ITERATIONS] = (double) elapsed / operations;
+        }
+        return scores;
+    }
+
+    /**
+     * Validates the arrays of the puzzles (this also checks that each one has a single solution).
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @return the operation
+     */
+    private static IntSupplier definesPuzzle(int size, SumdokuPuzzle[] puzzles){
+        int[][][] memberships = new int[PUZZLES][][];
+        int[][] values = new int[PUZZLES][];
+        for (int i = 0; i < PUZZLES; i++){
+            memberships[i] = membership(puzzles[i]);
+            values[i] = values(puzzles[i]);
+        }
+
+        int[] next = {0};
+        return () -> {
+            int i = next[0]++ % PUZZLES;
+            return SumdokuPuzzle.definesPuzzle(memberships[i], values[i]) ? 1 : 0;
+        };
+    }
+
+    /**
+     * Checks full grids with the solutions (already found, as during a game).
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @return the operation
+     */
+    private static IntSupplier isSolvedBy(int size, SumdokuPuzzle[] puzzles){
+        SumdokuGrid[] grids = grids(size, puzzles, size * size);
+        int[] next = {0};
+        return () -> {
+            int i = next[0]++ % PUZZLES;
+            return puzzles[i].isSolvedBy(grids[i]) ? 1 : 0;
+        };
+    }
+
+    /**
+     * Checks grids with half of the cells filled with the right values.
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @return the operation
+     */
+    private static IntSupplier isPartiallySolvedBy(int size, SumdokuPuzzle[] puzzles){
+        SumdokuGrid[] grids = grids(size, puzzles, size * size / 2);
+        int[] next = {0};
+        return () -> {
+            int i = next[0]++ % PUZZLES;
+            return puzzles[i].isPartiallySolvedBy(grids[i]) ? 1 : 0;
+        };
+    }
+
+    /**
+     * Writes the clues of the puzzles.
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @return the operation
+     */
+    private static IntSupplier cluesToString(int size, SumdokuPuzzle[] puzzles){
+        int[] next = {0};
+        return () -> puzzles[next[0]++ % PUZZLES].cluesToString().length();
+    }
+
+    /**
+     * Writes grids with half of the cells filled.
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @return the operation
+     */
+    private static IntSupplier gridToString(int size, SumdokuPuzzle[] puzzles){
+        SumdokuGrid[] grids = grids(size, puzzles, size * size / 2);
+        int[] next = {0};
+        return () -> grids[next[0]++ % PUZZLES].toString().length();
+    }
+
+    /**
+     * Creates the random puzzles of a size (the built-in ones from 3x3 to 5x5, and a pool of the generated ones for the others).
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @return the operation
+     */
+    private static IntSupplier randomPuzzle(int size, SumdokuPuzzle[] puzzles){
+        if (size <= 5)
+            return () -> new RandomSumdokuPuzzle(size).hasNextPuzzle() ? 1 : 0;
+
+        SumdokuDifficulty[] bands = new SumdokuDifficulty[PUZZLES];
+        Arrays.fill(bands, SumdokuDifficulty.MEDIUM);
+        SumdokuPuzzlePool pool = new SumdokuPuzzlePool(List.of(puzzles), bands);
+        return () -> new RandomSumdokuPuzzle(pool, size).hasNextPuzzle() ? 1 : 0;
+    }
+
+    /**
+     * Creates a grid for each puzzle with the first cells of its solution.
+     *
+     * @param size the size of the puzzles
+     * @param puzzles the puzzles
+     * @param filledCells the number of cells filled, row by row
+     * @return the grids
+     */
+    private static SumdokuGrid[] grids(int size, SumdokuPuzzle[] puzzles, int filledCells){
+        SumdokuGrid[] grids = new SumdokuGrid[PUZZLES];
+        for (int i = 0; i < PUZZLES; i++){
+            grids[i] = new SumdokuGrid(size);
+            String[] solution = puzzles[i].toString().split("\\s+"); // The solution, row by row (it is also found here, before measuring)
+            for (int cell = 0; cell < filledCells; cell++){
+                grids[i].fill(cell / size + 1, cell % size + 1, Integer.parseInt(solution[cell]));
+            }
+        }
+        return grids;
+    }
+
+    /**
+     * Retrieves the group membership matrix of a puzzle (the groups start at 0).
+     *
+     * @param puzzle the puzzle
+     * @return a new matrix
+     */
+    private static int[][] membership(SumdokuPuzzle puzzle){
+        int[][] result = new int[puzzle.size()][puzzle.size()];
+        for (int r = 0; r < puzzle.size(); r++){
+            for (int c = 0; c < puzzle.size(); c++){
+                result[r][c] = puzzle.groupNumber(c + 1, r + 1) - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the sum of each group of a puzzle.
+     *
+     * @param puzzle the puzzle
+     * @return a new array
+     */
+    private static int[] values(SumdokuPuzzle puzzle){
+        int[] result = new int[puzzle.numberOfGroups()];
+        for (int group = 0; group < result.length; group++){
+            result[group] = puzzle.valueGroup(group + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the mean of some values.
+     *
+     * @param values the values
+     * @requires {@code values.length > 0}
+     * @return the mean
+     */
+    private static double mean(double[] values){
+        double sum = 0;
+        for (double value : values){
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Calculates the sample standard deviation of some values.
+     *
+     * @param values the values
+     * @param mean the mean of the values
+     * @requires {@code values.length > 1}
+     * @return the standard deviation
+     */
+    private static double standardDeviation(double[] values, double mean){
+        double sum = 0;
+        for (double value : values){
+            sum += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    /**
+     * Writes the result of a benchmark as a JSON object (with the fields of JMH).
+     *
+     * @param name the name of the benchmark
+     * @param size the size of the puzzles
+     * @param score the mean time of an operation, in nanoseconds
+     * @param error the half-width of the 99.9% confidence interval of the score
+     * @param scores the time of an operation in each iteration
+     * @return the JSON object
+     */
+    private static String toJson(String name, int size, double score, double error, double[] scores){
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < scores.length; i++){
+            raw.append(i > 0 ? ", " : "").append(String.format(Locale.ROOT, "%.3f", scores[i]));
+        }
+
+        return String.format(Locale.ROOT,
+            "  {\"benchmark\": \"%s\", \"mode\": \"avgt\", \"threads\": 1, \"warmupIterations\": %d, \"measurementIterations\": %d, "
+            + "\"params\": {\"size\": \"%d\"}, \"primaryMetric\": {\"score\": %.3f, \"scoreError\": %.3f, \"scoreUnit\": \"ns/op\", \"rawData\": [[%s]]}}",
+            name, WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, size, score, error, raw);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * The {@code SumdokuBitboard} consists in the class which keeps the groups of a puzzle in the compact form used by the
+ * solvers and the validators, built only once per puzzle (check the function {@code SumdokuPuzzle.bitboard})
+ *
+ * The cells are numbered row by row, starting at 0, and the groups also start at 0. Besides the group of each cell and the
+ * size of each group, it keeps the cells of each group as a bitboard: a set of cells in two {@code long}s, where the cell i
+ * is in the set if the bit i of the first one (for i < 64) or the bit i - 64 of the second one is 1 (a 9x9 grid has 81 cells).
+ * So, checking if a group is inside a line (or any other set of cells, as the empty ones) takes a few bit operations,
+ * instead of going through the cells
+ *
+ * Every array is shared (by the trackers of the grids, the checkers of conflicts and the search states), so they are never changed
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+final class SumdokuBitboard {
+
+    final int size; // The size of the puzzle
+    final int numOfCells; // The number of cells (size * size)
+    final byte[] cellGroup; // The group of each cell
+    final int[] groupTarget; // The sum that each group must have
+    final int[] groupSize; // The number of cells of each group
+    final long[] groupCells; // The cells of each group, the group g in the positions 2 * g and 2 * g + 1
+    final boolean[] groupDistinct; // If each group is inside a single row or column (so its digits can't repeat)
+
+    /**
+     * Creates the bitboard of the puzzle with the given group membership matrix and group values.
+     *
+     * @param groupMembership a square two-dimensional matrix representing group memberships
+     * @param groupsValues a one-dimensional array with the target sum for each group
+     * @requires {@code groupMembership} is a square matrix with size between 3 and 9 and every value
+     *           in it is between 0 and {@code groupsValues.length - 1}
+     */
+    SumdokuBitboard(int[][] groupMembership, int[] groupsValues){
+        this.size = groupMembership.length;
+        this.numOfCells = this.size * this.size;
+        this.groupTarget = groupsValues.clone();
+
+        // We read the matrix only once, keeping the group of each cell and the cells of each group
+        this.cellGroup = new byte[this.numOfCells];
+        this.groupCells = new long[2 * groupsValues.length];
+        for (int cell = 0; cell < this.numOfCells; cell++){
+            int group = groupMembership[cell / this.size][cell % this.size];
+            this.cellGroup[cell] = (byte) group;
+            this.groupCells[2 * group + (cell >>> 6)] |= 1L << cell; // The shift only uses the lowest 6 bits of 'cell'
+        }
+
+        this.groupSize = new int[groupsValues.length];
+        this.groupDistinct = new boolean[groupsValues.length];
+        for (int group = 0; group < groupsValues.length; group++){
+            long low = this.groupCells[2 * group];
+            long high = this.groupCells[2 * group + 1];
+            this.groupSize[group] = Long.bitCount(low) + Long.bitCount(high);
+
+            // The group is inside the line of its first cell if it has no cell out of that line
+            int first = low != 0 ? Long.numberOfTrailingZeros(low) : 64 + Long.numberOfTrailingZeros(high);
+            this.groupDistinct[group] = isInside(group, rowCells(first / this.size, 0), rowCells(first / this.size, 1))
+                                     || isInside(group, columnCells(first % this.size, 0), columnCells(first % this.size, 1));
+        }
+    }
+
+    /**
+     * Checks if every cell of a group is in a set of cells.
+     *
+     * @param group the group
+     * @param low the cells 0 to 63 of the set
+     * @param high the cells 64 to 80 of the set
+     * @return {@code true} if the set has every cell of the group, {@code false} otherwise
+     */
+    boolean isInside(int group, long low, long high){
+        return (this.groupCells[2 * group] & ~low) == 0 && (this.groupCells[2 * group + 1] & ~high) == 0;
+    }
+
+    /**
+     * Retrieves half of the set of cells of a row.
+     *
+     * @param row the row (starting at 0)
+     * @param half 0 for the cells 0 to 63, 1 for the cells 64 to 80
+     * @return the half of the set
+     */
+    long rowCells(int row, int half){
+        long result = 0;
+        for (int cell = row * this.size; cell < (row + 1) * this.size; cell++){
+            if (cell >>> 6 == half)
+                result |= 1L << cell;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves half of the set of cells of a column.
+     *
+     * @param column the column (starting at 0)
+     * @param half 0 for the cells 0 to 63, 1 for the cells 64 to 80
+     * @return the half of the set
+     */
+    long columnCells(int column, int half){
+        long result = 0;
+        for (int cell = column; cell < this.numOfCells; cell += this.size){
+            if (cell >>> 6 == half)
+                result |= 1L << cell;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves half of the set of every cell of the grid.
+     *
+     * @param half 0 for the cells 0 to 63, 1 for the cells 64 to 80
+     * @return the half of the set
+     */
+    long allCells(int half){
+        int count = Math.max(0, Math.min(64, this.numOfCells - 64 * half));
+        return count == 64 ? -1L : (1L << count) - 1;
+    }
+}
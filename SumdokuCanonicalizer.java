@@ -0,0 +1,456 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The {@code SumdokuCanonicalizer} consists in the class which finds the canonical form of a puzzle: the same puzzle for
+ * every puzzle that only differs by a permutation of the rows, a permutation of the columns, a transposition, a renumbering
+ * of the groups or the relabeling of the digits d -> size + 1 - d (check the functions {@code SumdokuPuzzle.canonicalForm}
+ * and {@code SumdokuPuzzle.fingerprint})
+ *
+ * The relabeling d -> size + 1 - d is the only one that keeps a puzzle a puzzle: the groups only know the sum of their digits,
+ * and it changes the sum s of a group with k cells into k * (size + 1) - s, while any other relabeling changes the sums in a
+ * way that depends on the digits of the solution
+ *
+ * For each of the 4 variants (transposed or not, relabeled or not) we order the rows and the columns by their colors, refined
+ * with the colors of their groups, until the colors stop splitting (as in the colour refinement of graphs). When rows or
+ * columns are still tied, we try each one of them first and keep the smallest result. Two tied rows (or columns) that can be
+ * swapped without changing the puzzle lead to the same result, so we only try one of them
+ *
+ * The canonical form has the rows and columns in that order and the groups numbered by their first cell, row by row.
+ * The smallest form compares the membership row by row and then the sums
+ *
+ * 		Compile: javac SumdokuCanonicalizer.java
+ * 		Execute: java SumdokuCanonicalizer catalogFile
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuCanonicalizer {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // The same constant of 'SplittableRandom'
+
+    private final int size;
+    private final int[] cells; // The group of each cell, row by row
+    private final int[] transposed; // The group of each cell, column by column (the cells of the column c are a "row" here)
+    private final int[] sums; // The sum of each group
+    private final int[] groupSize; // The number of cells of each group
+    private int[] best; // The smallest encoding found so far (the membership row by row and then the sums)
+
+    /**
+     * Creates the search of one variant of a puzzle.
+     *
+     * @param size the size of the puzzle
+     * @param cells the group of each cell, row by row
+     * @param sums the sum of each group
+     * @param groupSize the number of cells of each group
+     * @param best the smallest encoding of the variants already searched (null if there isn't any)
+     */
+    private SumdokuCanonicalizer(int size, int[] cells, int[] sums, int[] groupSize, int[] best){
+        this.size = size;
+        this.cells = cells;
+        this.sums = sums;
+        this.groupSize = groupSize;
+        this.best = best;
+
+        this.transposed = new int[cells.length];
+        for (int cell = 0; cell < cells.length; cell++){
+            this.transposed[cell] = cells[(cell % size) * size + cell / size];
+        }
+    }
+
+    /**
+     * Finds the canonical form of a puzzle.
+     *
+     * @param groupMembership the group of each cell of the puzzle (starting at 0)
+     * @param groupsValues the sum of each group
+     * @requires {@code SumdokuPuzzle.definesPuzzle(groupMembership, groupsValues)}
+     * @return the membership (in the first position) and the sums (in the second position) of the canonical form
+     */
+    static int[][][] canonicalize(int[][] groupMembership, int[] groupsValues){
+        int size = groupMembership.length;
+        int numOfGroups = groupsValues.length;
+        int maxValue = (size * size * size + size * size) / 2;
+
+        int[] cells = new int[size * size];
+        int[] groupSize = new int[numOfGroups];
+        for (int cell = 0; cell < cells.length; cell++){
+            cells[cell] = groupMembership[cell / size][cell % size];
+            groupSize[cells[cell]]++;
+        }
+
+        // The relabeled sums (a puzzle without solution may not have them all between 1 and the biggest sum, so it has no relabeled variant)
+        int[] relabeled = new int[numOfGroups];
+        boolean relabelable = true;
+        for (int group = 0; group < numOfGroups; group++){
+            relabeled[group] = groupSize[group] * (size + 1) - groupsValues[group];
+            relabelable &= relabeled[group] >= 1 && relabeled[group] <= maxValue;
+        }
+
+        int[] transposedCells = new int[cells.length];
+        for (int cell = 0; cell < cells.length; cell++){
+            transposedCells[cell] = cells[(cell % size) * size + cell / size];
+        }
+
+        int[] best = null;
+        for (int variant = 0; variant < 4; variant++){
+            if ((variant & 2) != 0 && !relabelable)
+                continue;
+
+            SumdokuCanonicalizer search = new SumdokuCanonicalizer(size, (variant & 1) == 0 ? cells : transposedCells,
+                (variant & 2) == 0 ? groupsValues : relabeled, groupSize, best);
+            search.search(new int[size], new int[size]);
+            best = search.best;
+        }
+
+        // We split the encoding into the membership and the sums
+        int[][] membership = new int[size][size];
+        for (int cell = 0; cell < cells.length; cell++){
+            membership[cell / size][cell % size] = best[cell];
+        }
+        return new int[][][] {membership, {Arrays.copyOfRange(best, cells.length, best.length)}};
+    }
+
+    /**
+     * Finds a 64 bit fingerprint of a puzzle in canonical form (two equivalent puzzles have the same fingerprint,
+     * and two different ones only have the same fingerprint by a very unlikely accident).
+     *
+     * @param groupMembership the group of each cell of the canonical form
+     * @param groupsValues the sum of each group of the canonical form
+     * @return the fingerprint
+     */
+    static long fingerprint(int[][] groupMembership, int[] groupsValues){
+        long hash = mix(groupMembership.length);
+        for (int[] row : groupMembership){
+            for (int group : row){
+                hash = mix(hash + group + 1);
+            }
+        }
+        for (int value : groupsValues){
+            hash = mix(hash + value);
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the bits of a number (the step of 'SplittableRandom', so each input bit changes about half of the output bits).
+     *
+     * @param value the number
+     * @return the mixed number
+     */
+    private static long mix(long value){
+        long z = value + GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Refines the colors and, while rows or columns are tied, tries each of the tied ones first (keeping the smallest encoding).
+     *
+     * @param rowColor the color of each row (it is changed)
+     * @param colColor the color of each column (it is changed)
+     */
+    private void search(int[] rowColor, int[] colColor){
+        refine(rowColor, colColor);
+
+        // We split the first tied class of rows (or, when every row is alone, of columns)
+        boolean rows = !isDiscrete(rowColor);
+        if (!rows && isDiscrete(colColor)){
+            encode(rowColor, colColor);
+            return;
+        }
+
+        int[] colors = rows ? rowColor : colColor;
+        int[] matrix = rows ? this.cells : this.transposed;
+        int tied = smallestTiedColor(colors);
+
+        int[] tried = new int[this.size];
+        int numTried = 0;
+        for (int line = 0; line < this.size; line++){
+            if (colors[line] != tied || isTwinOfTried(matrix, line, tried, numTried))
+                continue;
+            tried[numTried++] = line;
+
+            // The chosen line keeps an even color (before the other lines of its class) and every other line gets an odd one
+            int[] nextColors = new int[this.size];
+            for (int other = 0; other < this.size; other++){
+                nextColors[other] = 2 * colors[other] + (other == line ? 0 : 1);
+            }
+            search(rows ? nextColors : rowColor.clone(), rows ? colColor.clone() : nextColors);
+        }
+    }
+
+    /**
+     * Refines the colors of the rows and columns (and of the groups) until they stop splitting.
+     * The color of a row becomes a rank of its old color with the colors of its cells (the color of its group and of
+     * its column), the same for the columns, and the color of a group a rank of its old color with the colors of its cells
+     *
+     * @param rowColor the color of each row (it is changed)
+     * @param colColor the color of each column (it is changed)
+     */
+    private void refine(int[] rowColor, int[] colColor){
+        int numOfGroups = this.sums.length;
+
+        // The groups start with the rank of their size and sum
+        long[] signature = new long[numOfGroups];
+        for (int group = 0; group < numOfGroups; group++){
+            signature[group] = ((long) this.groupSize[group] << 32) | this.sums[group];
+        }
+        int[] groupColor = ranks(signature);
+
+        int classes = -1;
+        long[] parts = new long[this.size * this.size];
+        while (true){
+            int[] nextRow = lineColors(this.cells, rowColor, colColor, groupColor, parts);
+            int[] nextCol = lineColors(this.transposed, colColor, rowColor, groupColor, parts);
+
+            long[] groupSignature = new long[numOfGroups];
+            for (int group = 0; group < numOfGroups; group++){
+                groupSignature[group] = mix(groupColor[group]);
+            }
+            // The cells of each group are added in any order, so we add their mixes (the sum doesn't depend on the order)
+            for (int cell = 0; cell < this.cells.length; cell++){
+                groupSignature[this.cells[cell]] += mix(((long) rowColor[cell / this.size] << 32) | colColor[cell % this.size]);
+            }
+            int[] nextGroup = ranks(groupSignature);
+
+            System.arraycopy(nextRow, 0, rowColor, 0, this.size);
+            System.arraycopy(nextCol, 0, colColor, 0, this.size);
+            groupColor = nextGroup;
+
+            int nextClasses = numberOfClasses(rowColor) + numberOfClasses(colColor) + numberOfClasses(groupColor);
+            if (nextClasses == classes)
+                return; // The colors stopped splitting
+            classes = nextClasses;
+        }
+    }
+
+    /**
+     * Finds the next colors of the lines (rows or columns) of a matrix.
+     *
+     * @param matrix the group of each cell, line by line
+     * @param lineColor the color of each line
+     * @param crossColor the color of each line in the other direction
+     * @param groupColor the color of each group
+     * @param parts an array with space for the parts of every line (only used to avoid creating it every time)
+     * @return the new color of each line
+     */
+    private int[] lineColors(int[] matrix, int[] lineColor, int[] crossColor, int[] groupColor, long[] parts){
+        long[] signature = new long[this.size];
+        for (int line = 0; line < this.size; line++){
+            int from = line * this.size;
+            for (int cross = 0; cross < this.size; cross++){
+                parts[from + cross] = ((long) groupColor[matrix[from + cross]] << 32) | crossColor[cross];
+            }
+
+            // We sort the parts of the line, so the signature doesn't depend on the order of the other lines
+            Arrays.sort(parts, from, from + this.size);
+            long hash = mix(lineColor[line]);
+            for (int cross = 0; cross < this.size; cross++){
+                hash = mix(hash + parts[from + cross]);
+            }
+            signature[line] = hash;
+        }
+        return ranks(signature);
+    }
+
+    /**
+     * Replaces each signature by its position among the different signatures (so equal signatures get the same rank).
+     *
+     * @param signature the signatures
+     * @return the rank of each signature
+     */
+    private static int[] ranks(long[] signature){
+        long[] sorted = signature.clone();
+        Arrays.sort(sorted);
+
+        int[] result = new int[signature.length];
+        for (int i = 0; i < signature.length; i++){
+            // Equal signatures are next to each other, so the rank is the number of different values before the first one
+            int position = Arrays.binarySearch(sorted, signature[i]);
+            while (position > 0 && sorted[position - 1] == signature[i]){
+                position--;
+            }
+            result[i] = position;
+        }
+        return result;
+    }
+
+    /**
+     * Counts the different colors.
+     *
+     * @param colors the colors
+     * @return the number of different values in {@code colors}
+     */
+    private static int numberOfClasses(int[] colors){
+        return (int) Arrays.stream(colors).distinct().count();
+    }
+
+    /**
+     * Checks if every line has a different color.
+     *
+     * @param colors the color of each line
+     * @return {@code true} if there are no tied lines, {@code false} otherwise
+     */
+    private static boolean isDiscrete(int[] colors){
+        return numberOfClasses(colors) == colors.length;
+    }
+
+    /**
+     * Finds the smallest color shared by two or more lines.
+     *
+     * @param colors the color of each line
+     * @requires {@code !isDiscrete(colors)}
+     * @return the color
+     */
+    private static int smallestTiedColor(int[] colors){
+        int[] sorted = colors.clone();
+        Arrays.sort(sorted);
+        int i = 0;
+        while (sorted[i] != sorted[i + 1]){
+            i++;
+        }
+        return sorted[i];
+    }
+
+    /**
+     * Checks if a line can be swapped with one of the lines already tried without changing the puzzle
+     * (renumbering the groups of both lines, when those groups don't have cells in any other line).
+     *
+     * @param matrix the group of each cell, line by line
+     * @param line the line
+     * @param tried the lines already tried
+     * @param numTried the number of lines already tried
+     * @return {@code true} if trying the line would give the same result of a line already tried, {@code false} otherwise
+     */
+    private boolean isTwinOfTried(int[] matrix, int line, int[] tried, int numTried){
+        for (int i = 0; i < numTried; i++){
+            if (areTwins(matrix, tried[i], line))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if swapping two lines only renumbers the groups.
+     *
+     * @param matrix the group of each cell, line by line
+     * @param a the first line
+     * @param b the second line
+     * @return {@code true} if the swap keeps the puzzle, {@code false} otherwise
+     */
+    private boolean areTwins(int[] matrix, int a, int b){
+        int[] image = new int[this.sums.length];
+        Arrays.fill(image, -1);
+        int[] inside = new int[this.sums.length]; // The number of cells of each group in the two lines
+
+        for (int cross = 0; cross < this.size; cross++){
+            int x = matrix[a * this.size + cross];
+            int y = matrix[b * this.size + cross];
+            if (!map(image, x, y) || !map(image, y, x))
+                return false;
+            inside[x]++;
+            inside[y]++;
+        }
+
+        // A group that goes to another one must have the same sum and no cells outside the two lines
+        for (int group = 0; group < image.length; group++){
+            if (image[group] >= 0 && image[group] != group
+                && (this.sums[group] != this.sums[image[group]] || inside[group] != this.groupSize[group]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends a group to another one, if it wasn't already sent to a different one.
+     *
+     * @param image where each group is sent (-1 if it wasn't sent yet)
+     * @param from the group
+     * @param to where the group is sent
+     * @return {@code true} if the group is sent to {@code to}, {@code false} if it was already sent elsewhere
+     */
+    private static boolean map(int[] image, int from, int to){
+        if (image[from] < 0)
+            image[from] = to;
+        return image[from] == to;
+    }
+
+    /**
+     * Encodes the puzzle with the rows and columns in the order of their colors and keeps it if it is the smallest one.
+     *
+     * @param rowColor the color of each row (all different)
+     * @param colColor the color of each column (all different)
+     */
+    private void encode(int[] rowColor, int[] colColor){
+        int[] rowOrder = order(rowColor);
+        int[] colOrder = order(colColor);
+
+        int[] newNumber = new int[this.sums.length];
+        Arrays.fill(newNumber, -1);
+        int numOfGroups = 0;
+
+        int[] encoding = new int[this.cells.length + this.sums.length];
+        for (int r = 0; r < this.size; r++){
+            for (int c = 0; c < this.size; c++){
+                int group = this.cells[rowOrder[r] * this.size + colOrder[c]];
+                if (newNumber[group] < 0){
+                    newNumber[group] = numOfGroups;
+                    encoding[this.cells.length + numOfGroups] = this.sums[group];
+                    numOfGroups++;
+                }
+                encoding[r * this.size + c] = newNumber[group];
+            }
+        }
+
+        if (this.best == null || Arrays.compare(encoding, this.best) < 0)
+            this.best = encoding;
+    }
+
+    /**
+     * Finds the lines sorted by their colors.
+     *
+     * @param colors the color of each line (all different)
+     * @return the lines, from the smallest color to the biggest
+     */
+    private int[] order(int[] colors){
+        int[] result = new int[this.size];
+        for (int line = 0; line < this.size; line++){
+            result[colors[line]] = line; // The colors are ranks, so they go from 0 to size - 1
+        }
+        return result;
+    }
+
+    /**
+     * Counts the different puzzles of each size in a catalog (check the class {@code SumdokuCatalog}),
+     * keeping only the fingerprint of each one.
+     *
+     * @param args the path of the catalog
+     * @throws IOException if the catalog can't be read
+     */
+    public static void main(String[] args) throws IOException{
+        if (args.length != 1){
+            System.out.println("Usage: java SumdokuCanonicalizer catalogFile");
+            return;
+        }
+
+        SumdokuCatalog catalog = SumdokuCatalog.open(Path.of(args[0]));
+        for (int size = 3; size <= 9; size++){
+            int count = catalog.count(size);
+            if (count == 0)
+                continue;
+
+            Set<Long> fingerprints = new HashSet<>();
+            for (int index = 0; index < count; index++){
+                fingerprints.add(catalog.puzzle(size, index).fingerprint());
+            }
+            System.out.println(size + "x" + size + ": " + count + " puzzles, " + fingerprints.size() + " different");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The {@code SumdokuCatalog} consists in the class which stores Sumdoku puzzles in a compact binary file
+ * and reads them back without loading the whole file
+ *
+ * The file has a header, an index and then the records of each size, one after the other:
+ * - header: the magic number "SDKC" (4 bytes), the version (2 bytes) and the number of sizes in the index (1 byte)
+ * - index: for each size, the size (1 byte), the number of puzzles (4 bytes) and the position of its first record (8 bytes)
+ * - records: every record of the same size has the same width, so the puzzle number i is found without reading the others.
+ *   Each one has the number of groups (1 byte), the group of each cell row by row (size * size bytes) and the value of each
+ *   group (size * size values of 2 bytes, the ones after the number of groups are 0)
+ *
+ * When the catalog is opened, each section of records is mapped into memory ({@code FileChannel.map}), so opening a catalog
+ * with millions of puzzles only reads the header and the index, and each record is only read (by the operating system)
+ * when its puzzle is asked for. Each section must be smaller than 2 GB (about 8 million puzzles of size 9)
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuCatalog {
+
+    private static final int MAGIC = 0x53444B43; // The letters "SDKC"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 1;
+    private static final int INDEX_ENTRY_BYTES = 1 + 4 + 8;
+
+    // The sizes of the puzzles we support (the same limits of 'SumdokuPuzzle.definesPuzzle')
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 9;
+
+    private final int[] counts = new int[MAX_SIZE + 1]; // The number of puzzles of each size
+    private final ByteBuffer[] records = new ByteBuffer[MAX_SIZE + 1]; // The mapped records of each size (null if there are none)
+
+    /**
+     * This class is only created by {@code open}.
+     */
+    private SumdokuCatalog(){
+    }
+
+    /**
+     * Retrieves the number of bytes of each record of the given size.
+     *
+     * @param size the size of the puzzles
+     * @return the width of the records
+     */
+    private static int recordBytes(int size){
+        return 1 + size * size + 2 * size * size;
+    }
+
+    /**
+     * Writes the given puzzles into a new catalog file (replacing the file if it already exists).
+     *
+     * @param file the path of the catalog
+     * @param puzzles the puzzles to be stored (in any order, they are grouped by size)
+     * @requires {@code file != null && puzzles != null} and every puzzle has a size between 3 and 9
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path file, List<SumdokuPuzzle> puzzles) throws IOException {
+
+        // We first count the puzzles of each size, to know where each section starts
+        int[] counts = new int[MAX_SIZE + 1];
+        for (SumdokuPuzzle puzzle : puzzles){
+            counts[puzzle.size()]++;
+        }
+
+        int numOfSections = 0;
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            if (counts[size] > 0)
+                numOfSections++;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)){
+
+            // The header and the index
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + numOfSections * INDEX_ENTRY_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).put((byte) numOfSections);
+
+            long position = header.capacity();
+            for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+                if (counts[size] > 0){
+                    header.put((byte) size).putInt(counts[size]).putLong(position);
+                    position += (long) counts[size] * recordBytes(size);
+                }
+            }
+            header.flip();
+            writeFully(channel, header);
+
+            // The records, one section for each size
+            for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+                if (counts[size] > 0){
+                    ByteBuffer record = ByteBuffer.allocate(recordBytes(size));
+
+                    for (SumdokuPuzzle puzzle : puzzles){
+                        if (puzzle.size() == size){
+                            record.clear();
+                            encode(puzzle, record);
+                            record.flip();
+                            writeFully(channel, record);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every remaining byte of the buffer into the channel.
+     *
+     * @param channel the channel
+     * @param buffer the bytes to be written
+     * @throws IOException if the bytes can't be written
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Puts the record of a puzzle in the buffer (check the format in the description of the class).
+     *
+     * @param puzzle the puzzle
+     * @param record the buffer, with at least {@code recordBytes(puzzle.size())} bytes remaining
+     */
+    private static void encode(SumdokuPuzzle puzzle, ByteBuffer record){
+        int size = puzzle.size();
+        record.put((byte) puzzle.numberOfGroups());
+
+        // Note that 'groupNumber' receives the column first and starts the groups at 1
+        for (int r = 1; r <= size; r++){
+            for (int c = 1; c <= size; c++){
+                record.put((byte) (puzzle.groupNumber(c, r) - 1));
+            }
+        }
+
+        for (int group = 1; group <= size * size; group++){
+            record.putShort((short) (group <= puzzle.numberOfGroups() ? puzzle.valueGroup(group) : 0));
+        }
+    }
+
+    /**
+     * Opens a catalog file, reading only its header and index (the records are mapped into memory).
+     *
+     * @param file the path of the catalog
+     * @requires {@code file != null}
+     * @return the catalog
+     * @throws IOException if the file can't be read or isn't a catalog
+     */
+    public static SumdokuCatalog open(Path file) throws IOException {
+        SumdokuCatalog catalog = new SumdokuCatalog();
+
+        // The mappings stay valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_BYTES));
+            if (header.capacity() < HEADER_BYTES || header.getInt(0) != MAGIC)
+                throw new IOException(file + " is not a Sumdoku catalog");
+            if (header.getShort(4) != VERSION)
+                throw new IOException(file + " has an unknown catalog version: " + header.getShort(4));
+
+            int numOfSections = header.get(6);
+            if (channel.size() < HEADER_BYTES + (long) numOfSections * INDEX_ENTRY_BYTES)
+                throw new IOException(file + " has an incomplete index");
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) numOfSections * INDEX_ENTRY_BYTES);
+
+            for (int i = 0; i < numOfSections; i++){
+                int size = index.get();
+                int count = index.getInt();
+                long position = index.getLong();
+
+                long length = (long) count * recordBytes(size);
+                if (size < MIN_SIZE || size > MAX_SIZE || count < 0 || position + length > channel.size())
+                    throw new IOException(file + " has an invalid section for size " + size);
+
+                catalog.counts[size] = count;
+                catalog.records[size] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            }
+        }
+
+        return catalog;
+    }
+
+    /**
+     * Retrieves the number of puzzles of the given size.
+     *
+     * @param size the size of the puzzles
+     * @return the number of puzzles (0 if the size isn't in the catalog)
+     */
+    public int count(int size){
+        return size < MIN_SIZE || size > MAX_SIZE ? 0 : this.counts[size];
+    }
+
+    /**
+     * Reads a puzzle of the catalog (only its record is read, any number of threads can call this function).
+     *
+     * @param size the size of the puzzle
+     * @param index the number of the puzzle among the ones of the same size (starting at 0)
+     * @requires {@code 0 <= index < count(size)}
+     * @return the puzzle
+     */
+    public SumdokuPuzzle puzzle(int size, int index){
+        ByteBuffer section = this.records[size];
+        int position = index * recordBytes(size);
+
+        // We only use absolute reads, which don't change the buffer, so the threads don't interfere with each other
+        int numOfGroups = section.get(position);
+        int[][] membership = new int[size][size];
+        for (int r = 0; r < size; r++){
+            for (int c = 0; c < size; c++){
+                membership[r][c] = section.get(position + 1 + r * size + c);
+            }
+        }
+
+        int[] values = new int[numOfGroups];
+        for (int group = 0; group < numOfGroups; group++){
+            values[group] = section.getShort(position + 1 + size * size + 2 * group);
+        }
+
+        return new SumdokuPuzzle(membership, values);
+    }
+
+    /**
+     * Prints the number of puzzles of each size of a catalog.
+     *
+     * @param args the path of the catalog
+     * @throws IOException if the catalog can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        SumdokuCatalog catalog = open(Path.of(args[0]));
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            if (catalog.count(size) > 0)
+                System.out.println("size " + size + ": " + catalog.count(size) + " puzzles");
+        }
+    }
+}
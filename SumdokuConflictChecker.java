@@ -0,0 +1,108 @@
+import java.util.BitSet;
+
+/**
+ * The {@code SumdokuConflictChecker} consists in the class which keeps, for a grid and a puzzle, the cells and groups that
+ * are wrong, and updates them only for the cells changed since the last check (check the function {@code SumdokuPuzzle.conflicts})
+ *
+ * The grid marks every cell it changes (check the function {@code SumdokuGrid.forEachChange}), so each check costs
+ * as much as the number of changes, not as the size of the grid
+ *
+ * The cells are numbered row by row, starting at 0 (the same positions used inside {@code SumdokuGrid})
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+class SumdokuConflictChecker {
+
+    // The information about the puzzle, that never changes
+    private final SumdokuPuzzle puzzle; // The puzzle the grid is checked against
+    private final byte[] solution; // The solution of the puzzle, row by row
+    private final int size; // The size of the puzzle
+    private final byte[] cellGroup; // The group of each cell (starting at 0)
+    private final int[] groupTarget; // The sum that each group must have
+    private final long[] groupCells; // The cells of each group, as a bitboard (check the class 'SumdokuBitboard')
+
+    // The information about the grid on the last check
+    private final byte[] values; // The value of each cell
+    private final int[] groupSum; // The sum of the values of each group
+    private long emptyLow; // The set of empty cells between 0 and 63
+    private long emptyHigh; // The set of empty cells between 64 and 80
+    private final BitSet wrongCells = new BitSet(); // The filled cells with a value different from the solution
+    private final BitSet wrongGroups = new BitSet(); // The groups (1-indexed) that can't reach their sum
+
+    /**
+     * Creates the checker of an empty grid.
+     *
+     * @param puzzle the puzzle the grid is checked against
+     * @param solution the solution of the puzzle, row by row
+     * @requires {@code puzzle != null && solution != null}
+     */
+    SumdokuConflictChecker(SumdokuPuzzle puzzle, byte[] solution){
+        this.puzzle = puzzle;
+        this.solution = solution;
+        this.size = puzzle.size();
+
+        // The groups of the puzzle are shared with its grids and search states (check the class 'SumdokuBitboard')
+        SumdokuBitboard bitboard = puzzle.bitboard();
+        this.cellGroup = bitboard.cellGroup;
+        this.groupCells = bitboard.groupCells;
+        this.groupTarget = bitboard.groupTarget;
+
+        this.values = new byte[this.cellGroup.length];
+        this.groupSum = new int[this.groupTarget.length];
+        this.emptyLow = bitboard.allCells(0);
+        this.emptyHigh = bitboard.allCells(1);
+    }
+
+    /**
+     * Retrieves the puzzle the grid is checked against.
+     *
+     * @return the puzzle given during the construction
+     */
+    SumdokuPuzzle puzzle(){
+        return this.puzzle;
+    }
+
+    /**
+     * Updates the wrong cells and groups with the cells of the grid changed since the last check.
+     *
+     * @param grid the grid
+     * @requires {@code grid} has the size of the puzzle
+     * @return the conflicts of the grid
+     */
+    SumdokuConflicts check(SumdokuGrid grid){
+        grid.forEachChange(cell -> update(cell, grid.value(cell / this.size + 1, cell % this.size + 1)));
+        return new SumdokuConflicts((BitSet) this.wrongCells.clone(), (BitSet) this.wrongGroups.clone());
+    }
+
+    /**
+     * Updates the information after a cell changed its value.
+     *
+     * @param cell the number of the cell
+     * @param value the new value of the cell (0 if it is empty)
+     */
+    private void update(int cell, int value){
+        int old = this.values[cell];
+        if (old == value)
+            return; // The cell changed and then went back to its old value
+
+        int group = this.cellGroup[cell];
+        this.values[cell] = (byte) value;
+        this.groupSum[group] += value - old;
+        if (cell < 64)
+            this.emptyLow = value != 0 ? this.emptyLow & ~(1L << cell) : this.emptyLow | 1L << cell;
+        else
+            this.emptyHigh = value != 0 ? this.emptyHigh & ~(1L << cell) : this.emptyHigh | 1L << cell;
+
+        this.wrongCells.set(cell, value != 0 && value != this.solution[cell]);
+
+        // With the empty cells, the group must still be able to reach its sum (check the class 'CageSumTable')
+        int emptyCells = Long.bitCount(this.groupCells[2 * group] & this.emptyLow) + Long.bitCount(this.groupCells[2 * group + 1] & this.emptyHigh);
+        int remainingSum = this.groupTarget[group] - this.groupSum[group];
+        boolean wrong = emptyCells == 0 ? remainingSum != 0 : CageSumTable.candidates(this.size, emptyCells, remainingSum) == 0;
+        this.wrongGroups.set(group + 1, wrong);
+    }
+}
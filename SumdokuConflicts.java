@@ -0,0 +1,77 @@
+import java.util.BitSet;
+
+/**
+ * The {@code SumdokuConflicts} consists in the class which keeps everything wrong in a partially filled grid
+ * (check the function {@code SumdokuPuzzle.conflicts}): the filled cells whose value isn't the one of the solution
+ * and the groups whose filled cells can't lead to the group's sum anymore
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuConflicts {
+
+    private final BitSet wrongCells; // The bit (r - 1) * size + (c - 1) is set if the cell in row r and column c is wrong
+    private final BitSet wrongGroups; // The bit g is set if the group g (1-indexed) is wrong
+
+    /**
+     * Creates the conflicts of a grid.
+     *
+     * @param wrongCells the wrong cells (it is kept, not copied)
+     * @param wrongGroups the wrong groups (it is kept, not copied)
+     */
+    SumdokuConflicts(BitSet wrongCells, BitSet wrongGroups){
+        this.wrongCells = wrongCells;
+        this.wrongGroups = wrongGroups;
+    }
+
+    /**
+     * Retrieves the filled cells with a value different from the solution.
+     *
+     * @return a copy of the set where the bit (r - 1) * size + (c - 1) is set if the cell in row r and column c is wrong
+     */
+    public BitSet wrongCells(){
+        return (BitSet) this.wrongCells.clone();
+    }
+
+    /**
+     * Retrieves the groups whose filled cells already exceed the group's sum or can't reach it with the empty cells.
+     *
+     * @return a copy of the set where the bit g is set if the group g (1-indexed, as in {@code SumdokuPuzzle.valueGroup}) is wrong
+     */
+    public BitSet wrongGroups(){
+        return (BitSet) this.wrongGroups.clone();
+    }
+
+    /**
+     * Checks if a cell is wrong.
+     *
+     * @param row the row of the cell (1-indexed)
+     * @param column the column of the cell (1-indexed)
+     * @param size the size of the puzzle
+     * @return {@code true} if the cell is filled with a value different from the solution, {@code false} otherwise
+     */
+    public boolean isWrong(int row, int column, int size){
+        return this.wrongCells.get((row - 1) * size + (column - 1));
+    }
+
+    /**
+     * Checks if nothing is wrong.
+     *
+     * @return {@code true} if there are no wrong cells nor wrong groups, {@code false} otherwise
+     */
+    public boolean isEmpty(){
+        return this.wrongCells.isEmpty() && this.wrongGroups.isEmpty();
+    }
+
+    /**
+     * Converts the conflicts into a textual representation.
+     *
+     * @return a {@code String} with the wrong cells and the wrong groups
+     */
+    public String toString(){
+        return "wrong cells " + this.wrongCells + ", wrong groups " + this.wrongGroups;
+    }
+}
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+
+/**
+ * The {@code SumdokuDeduction} consists in the class which finds, in a partially filled grid, the next cell whose value
+ * is forced by the rules, trying the easiest techniques first (check the enum {@code SumdokuTechnique})
+ *
+ * It works over a {@code SumdokuSearchState}, which already keeps the digits used in each row and column and the sum
+ * of each group, so the candidates of a cell are found with a few bit operations and a step never needs to solve the puzzle
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+class SumdokuDeduction {
+
+    private final SumdokuSearchState state; // The grid where the steps are found (it is only changed by 'apply')
+    private final int[] candidates; // The candidates of each empty cell, found by the last call of 'findStep'
+    private final int[] groupMinSum; // The smallest sum the empty cells of each group can get
+    private final int[] groupMaxSum; // The biggest sum the empty cells of each group can get
+
+    // The last step found by 'findStep'
+    int cell; // The number of the cell (row by row, starting at 0)
+    int digit; // The value of the cell
+    SumdokuTechnique technique; // How the value was deduced
+    boolean contradiction; // If the grid can't be completed (some value was wrong)
+
+    /**
+     * Creates the deduction of the given grid.
+     *
+     * @param state the partially filled grid
+     * @requires {@code state != null}
+     */
+    SumdokuDeduction(SumdokuSearchState state){
+        this.state = state;
+        this.candidates = new int[state.numOfCells];
+        this.groupMinSum = new int[state.groupTarget.length];
+        this.groupMaxSum = new int[state.groupTarget.length];
+    }
+
+    /**
+     * Finds the easiest forced cell of the grid and keeps it in {@code cell}, {@code digit} and {@code technique}.
+     *
+     * @return {@code true} if a step was found, {@code false} if the grid is full, no cell is forced
+     *         or the grid can't be completed (in that case {@code contradiction} is {@code true})
+     */
+    boolean findStep(){
+        SumdokuSearchState s = this.state;
+        this.contradiction = false;
+
+        if (s.filled == s.numOfCells)
+            return false; // Nothing to deduce
+
+        // 1. The last empty cell of a group must complete the group's sum
+        // The empty cell of such a group is the only cell both in the group and in the set of empty cells
+        // (we take the lowest of those cells, as if we went through the grid)
+        int last = -1;
+        for (int group = 0; group < s.groupTarget.length; group++){
+            if (s.groupFilled[group] == s.groupSize[group] - 1){
+                long low = s.bitboard.groupCells[2 * group] & s.emptyLow;
+                long high = s.bitboard.groupCells[2 * group + 1] & s.emptyHigh;
+                int c = low != 0 ? Long.numberOfTrailingZeros(low) : 64 + Long.numberOfTrailingZeros(high);
+                if (last == -1 || c < last)
+                    last = c;
+            }
+        }
+        if (last != -1){
+            int group = s.cellGroup[last];
+            int d = s.groupTarget[group] - s.groupSum[group];
+            if (d < 1 || d > s.size || (rowColumnCandidates(last) & (1 << d)) == 0)
+                return contradicts();
+            return found(last, d, SumdokuTechnique.LAST_CELL_OF_GROUP);
+        }
+
+        // 2. A cell whose row and column already use every other value
+        // We only visit the empty cells, taking them from the sets of empty cells (the lowest one first, as in the grid)
+        for (int half = 0; half < 2; half++){
+            long empty = half == 0 ? s.emptyLow : s.emptyHigh;
+            while (empty != 0){
+                int c = (half << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1; // We remove the lowest cell
+
+                int digits = rowColumnCandidates(c);
+                if (digits == 0)
+                    return contradicts();
+                if (Integer.bitCount(digits) == 1)
+                    return found(c, Integer.numberOfTrailingZeros(digits), SumdokuTechnique.NAKED_SINGLE);
+            }
+        }
+
+        // Now we also use the groups: the combinations that reach each group's sum and the sums the other cells can get
+        if (!findCandidates())
+            return contradicts();
+
+        // 3. A missing value that has only one possible cell in a row or in a column
+        for (int line = 0; line < s.size; line++){
+            int rowMissing = s.allDigits & ~s.rowUsed[line];
+            int colMissing = s.allDigits & ~s.colUsed[line];
+            int rowOnce = 0, rowTwice = 0, colOnce = 0, colTwice = 0;
+
+            for (int other = 0; other < s.size; other++){
+                int rowCell = line * s.size + other;
+                if (s.values[rowCell] == 0){
+                    rowTwice |= rowOnce & this.candidates[rowCell];
+                    rowOnce |= this.candidates[rowCell];
+                }
+                int colCell = other * s.size + line;
+                if (s.values[colCell] == 0){
+                    colTwice |= colOnce & this.candidates[colCell];
+                    colOnce |= this.candidates[colCell];
+                }
+            }
+
+            if ((rowMissing & ~rowOnce) != 0 || (colMissing & ~colOnce) != 0)
+                return contradicts(); // A missing value has no place
+
+            int rowSingles = rowMissing & ~rowTwice;
+            if (rowSingles != 0)
+                return foundIn(line * s.size, 1, Integer.numberOfTrailingZeros(rowSingles), SumdokuTechnique.HIDDEN_SINGLE_ROW);
+            int colSingles = colMissing & ~colTwice;
+            if (colSingles != 0)
+                return foundIn(line, s.size, Integer.numberOfTrailingZeros(colSingles), SumdokuTechnique.HIDDEN_SINGLE_COLUMN);
+        }
+
+        // 4. A cell where only one value lets its group reach the group's sum
+        for (int half = 0; half < 2; half++){
+            long empty = half == 0 ? s.emptyLow : s.emptyHigh;
+            while (empty != 0){
+                int c = (half << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+
+                if (Integer.bitCount(this.candidates[c]) == 1)
+                    return found(c, Integer.numberOfTrailingZeros(this.candidates[c]), SumdokuTechnique.CAGE_COMBINATION);
+            }
+        }
+
+        return false; // No cell is forced
+    }
+
+    /**
+     * Places the value of the last step found in the grid.
+     *
+     * @requires the last call of {@code findStep} returned {@code true}
+     */
+    void apply(){
+        this.state.place(this.cell, this.digit);
+    }
+
+    /**
+     * Applies every step that can be found, until the grid is full or no cell is forced.
+     *
+     * @param techniqueCounts where the number of steps of each technique is added (the position is the technique's ordinal)
+     * @return {@code false} if the grid can't be completed, {@code true} otherwise
+     */
+    boolean applyAll(int[] techniqueCounts){
+        while (findStep()){
+            techniqueCounts[this.technique.ordinal()]++;
+            apply();
+        }
+        return !this.contradiction;
+    }
+
+    /**
+     * Retrieves the values not used in the row and in the column of an empty cell.
+     *
+     * @param c the number of the cell
+     * @return the bitmask with the values
+     */
+    private int rowColumnCandidates(int c){
+        int row = c / this.state.size;
+        int col = c - row * this.state.size;
+        return this.state.allDigits & ~(this.state.rowUsed[row] | this.state.colUsed[col]);
+    }
+
+    /**
+     * Finds the candidates of every empty cell using the rows, the columns, the combinations of each group's sum
+     * (check the class {@code CageSumTable}) and the smallest and biggest sums the other cells of the group can get.
+     *
+     * @return {@code false} if an empty cell has no candidates, {@code true} otherwise
+     */
+    private boolean findCandidates(){
+        SumdokuSearchState s = this.state;
+        Arrays.fill(this.groupMinSum, 0);
+        Arrays.fill(this.groupMaxSum, 0);
+
+        for (int half = 0; half < 2; half++){
+            long empty = half == 0 ? s.emptyLow : s.emptyHigh;
+            while (empty != 0){
+                int c = (half << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+
+                int digits = s.candidates(c);
+                if (digits == 0)
+                    return false;
+                this.candidates[c] = digits;
+                this.groupMinSum[s.cellGroup[c]] += Integer.numberOfTrailingZeros(digits);
+                this.groupMaxSum[s.cellGroup[c]] += 31 - Integer.numberOfLeadingZeros(digits);
+            }
+        }
+
+        for (int half = 0; half < 2; half++){
+            long empty = half == 0 ? s.emptyLow : s.emptyHigh;
+            while (empty != 0){
+                int c = (half << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+
+                int group = s.cellGroup[c];
+                int digits = this.candidates[c];
+                int remainingSum = s.groupTarget[group] - s.groupSum[group];
+                int otherMin = this.groupMinSum[group] - Integer.numberOfTrailingZeros(digits);
+                int otherMax = this.groupMaxSum[group] - (31 - Integer.numberOfLeadingZeros(digits));
+
+                this.candidates[c] = digits & s.digitsBetween(remainingSum - otherMax, remainingSum - otherMin);
+                if (this.candidates[c] == 0)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keeps a step.
+     *
+     * @param c the number of the cell
+     * @param d the value of the cell
+     * @param how the technique used
+     * @return {@code true}
+     */
+    private boolean found(int c, int d, SumdokuTechnique how){
+        this.cell = c;
+        this.digit = d;
+        this.technique = how;
+        return true;
+    }
+
+    /**
+     * Keeps the step of a hidden single: the only cell of a row or column where the value can go.
+     *
+     * @param first the first cell of the row or column
+     * @param step the distance between two cells of the row (1) or of the column (size)
+     * @param d the value
+     * @param how the technique used
+     * @return {@code true}
+     */
+    private boolean foundIn(int first, int step, int d, SumdokuTechnique how){
+        int c = first;
+        while (this.state.values[c] != 0 || (this.candidates[c] & (1 << d)) == 0){
+            c += step;
+        }
+        return found(c, d, how);
+    }
+
+    /**
+     * Marks the grid as impossible to complete.
+     *
+     * @return {@code false}
+     */
+    private boolean contradicts(){
+        this.contradiction = true;
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * The {@code SumdokuDifficulty} describes the difficulty bands of the puzzles, found from their rating
+ * (check the class {@code SumdokuRater})
+ *
+ * The bands only depend on the techniques and on the search, not on the score, so a band means the same for every size.
+ * To tell the bands apart, the search is only needed up to {@code HARD_SEARCH_NODES} nodes, so a rating with that budget
+ * of nodes (check the function {@code SumdokuRater.rateWithinNodes}) gives the same band as a full one, always
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public enum SumdokuDifficulty {
+
+    EASY, // Solved only with singles (group, row and column)
+    MEDIUM, // Solved only with logical steps, including the combinations of the groups' sums
+    HARD, // Needs a short search (at most HARD_SEARCH_NODES nodes)
+    EXPERT; // Needs a longer search (or the rating didn't finish)
+
+    static final long HARD_SEARCH_NODES = 50; // The budget of search nodes needed to find the band of a puzzle
+
+    /**
+     * Finds the difficulty band of a rated puzzle.
+     *
+     * @param rating the rating of the puzzle
+     * @requires {@code rating != null}
+     * @return the band of the puzzle
+     */
+    public static SumdokuDifficulty of(SumdokuRating rating){
+        if (rating.isLogical())
+            return rating.count(SumdokuTechnique.CAGE_COMBINATION) == 0 ? EASY : MEDIUM;
+        if (rating.isFinished() && rating.searchNodes() <= HARD_SEARCH_NODES)
+            return HARD;
+        return EXPERT;
+    }
+}
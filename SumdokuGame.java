@@ -0,0 +1,199 @@
+/**
+ * The {@code SumdokuGame} consists in the class which keeps the state of a player during a game: the puzzle,
+ * the grid being filled and the attempts left, with the rules and the messages of the game
+ *
+ * It is shared by the game in the terminal (check the function {@code SumdokuTxt.play}) and the game over the network
+ * (check the class {@code SumdokuServer}), which only differ in how they read the moves and show the messages.
+ * The recorded games are also played again with it (check the class {@code SumdokuReplay}), so they end in the same way
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class SumdokuGame {
+
+    // The messages of the game (the same ones of the project instructions)
+    public static final String SQUARE_PROMPT = "Casa a preencher? ";
+    public static final String VALUE_PROMPT = "Valor a colocar? ";
+    public static final String PLAY_AGAIN_PROMPT = "Queres tentar resolver um novo puzzle (true/false)? ";
+    public static final String NO_MORE_PUZZLES = "Não há mais puzzles para jogar";
+    public static final String GOODBYE = "Espero que tenhas gostado. Volta sempre!";
+    public static final String WON = "Ganhaste!!!!!";
+    public static final String LOST = "Opps, tentativas esgotadas!";
+
+    private final SumdokuPuzzle puzzle;
+    private final SumdokuGrid grid; // It follows the puzzle, so the final check doesn't need the solution
+    private int attemptsLeft;
+
+    /**
+     * Creates a game of a puzzle, with an empty grid.
+     *
+     * @param puzzle the puzzle to solve
+     * @param maxAttempts the number of moves the player can make
+     * @requires {@code puzzle != null && maxAttempts > 0}
+     */
+    public SumdokuGame(SumdokuPuzzle puzzle, int maxAttempts){
+        this.puzzle = puzzle;
+        this.grid = new SumdokuGrid(puzzle);
+        this.attemptsLeft = maxAttempts;
+    }
+
+    /**
+     * Retrieves the puzzle of the game.
+     *
+     * @return the puzzle
+     */
+    public SumdokuPuzzle puzzle(){
+        return this.puzzle;
+    }
+
+    /**
+     * Retrieves the grid filled by the player.
+     *
+     * @return the grid (it changes with each move)
+     */
+    public SumdokuGrid grid(){
+        return this.grid;
+    }
+
+    /**
+     * Retrieves the number of moves the player can still make.
+     *
+     * @return the attempts left
+     */
+    public int attemptsLeft(){
+        return this.attemptsLeft;
+    }
+
+    /**
+     * Retrieves the number of squares of the grid (the squares are numbered from 1, row by row).
+     *
+     * @return the size of the puzzle squared
+     */
+    public int numberOfSquares(){
+        return this.puzzle.size() * this.puzzle.size();
+    }
+
+    /**
+     * Checks if a square exists in the grid.
+     *
+     * @param square the number of the square
+     * @return {@code true} if {@code 1 <= square <= numberOfSquares()}, {@code false} otherwise
+     */
+    public boolean isValidSquare(int square){
+        return square >= 1 && square <= numberOfSquares();
+    }
+
+    /**
+     * Checks if a value can be put in a square.
+     *
+     * @param value the value
+     * @return {@code true} if {@code 1 <= value <= size}, {@code false} otherwise
+     */
+    public boolean isValidValue(int value){
+        return value >= 1 && value <= this.puzzle.size();
+    }
+
+    /**
+     * Makes a move: fills a square with a value and uses one attempt.
+     *
+     * @param square the number of the square (1-indexed, row by row)
+     * @param value the value to put in the square
+     * @requires {@code !isOver() && isValidSquare(square) && isValidValue(value)}
+     */
+    public void play(int square, int value){
+        this.grid.fill(rowOfSquare(square, this.puzzle.size()), columnOfSquare(square, this.puzzle.size()), value);
+        this.attemptsLeft--;
+    }
+
+    /**
+     * Starts the game again: empties the grid and gives back the attempts.
+     *
+     * @param maxAttempts the number of moves the player can make
+     * @requires {@code maxAttempts > 0}
+     */
+    public void restart(int maxAttempts){
+        this.grid.clear();
+        this.attemptsLeft = maxAttempts;
+    }
+
+    /**
+     * Checks if the game is over (the player has no attempts left).
+     *
+     * @return {@code true} if the game is over, {@code false} otherwise
+     */
+    public boolean isOver(){
+        return this.attemptsLeft == 0;
+    }
+
+    /**
+     * Checks if the grid solves the puzzle.
+     *
+     * @return {@code true} if the player solved the puzzle, {@code false} otherwise
+     */
+    public boolean isWon(){
+        return this.puzzle.isSolvedBy(this.grid);
+    }
+
+    /**
+     * Writes the start of the game: the welcome, the clues of the puzzle and the number of attempts.
+     *
+     * @param out where the text is written
+     * @requires {@code out != null}
+     */
+    public void writeIntro(StringBuilder out){
+        out.append("Bem vindo ao jogo Sumdoku!\n");
+        out.append("As pistas do puzzle:\n");
+        this.puzzle.writeClues(out); // It already ends with a line break, as in the project instructions and tests
+        out.append("Tens ").append(this.attemptsLeft).append(" tentativas para o resolver. Boa sorte!\n");
+    }
+
+    /**
+     * Writes the end of the game: if the player won or lost.
+     *
+     * @param out where the text is written
+     * @requires {@code out != null && isOver()}
+     */
+    public void writeResult(StringBuilder out){
+        out.append(isWon() ? WON : LOST).append('\n');
+    }
+
+    /**
+     * Writes the message of a number outside the valid interval.
+     *
+     * @param out where the text is written
+     * @param min the minimum allowed value
+     * @param max the maximum allowed value
+     */
+    public static void writeInvalid(StringBuilder out, int min, int max){
+        out.append("Valor inválido. Tem que estar entre ").append(min).append(" e ").append(max).append(".\n");
+    }
+
+    /**
+     * Calculates the row index for a given square number in the grid.
+     *
+     * @param square   The square number (1-based index).
+     * @param gridSize The size of the grid.
+     * @return The row index of the square.
+     * @requires square must be between 1 and gridSize^2; gridSize must be > 0.
+     */
+    static int rowOfSquare(int square, int gridSize) {
+        // Calculate the row number based on the square's position in a grid
+        return (square - 1) / gridSize + 1;
+    }
+
+    /**
+     * Calculates the column index for a given square number in the grid.
+     *
+     * @param square   The square number (1-based index).
+     * @param gridSize The size of the grid.
+     * @return The column index of the square.
+     * @requires square must be between 1 and gridSize^2; gridSize must be > 0.
+     */
+    static int columnOfSquare(int square, int gridSize) {
+        // Calculate the column number based on the square's position in a grid
+        return (square - 1) % gridSize + 1;
+    }
+}
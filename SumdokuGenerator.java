@@ -0,0 +1,442 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * The {@code SumdokuGenerator} consists in the class which creates new Sumdoku puzzles (with only one solution)
+ * of any size between 3 and 9
+ *
+ * Each puzzle is built in three steps:
+ * 1. A random latin square is filled (it will be the solution of the puzzle)
+ * 2. The grid is split into random connected groups, and the sum of each group is found in the square
+ * 3. While the puzzle has more than one solution, we take a cell where two solutions differ and split it
+ *    from its group (so that cell can't change anymore). After that, we try to merge a few neighbouring groups,
+ *    keeping the merges that don't create new solutions (fewer groups make the puzzle harder)
+ *
+ * The puzzle number i of a generator only depends on the seed and on i, so {@code stream} can be used
+ * in parallel and always produces the same puzzles
+ *
+ * 		Compile: javac SumdokuGenerator.java
+ * 		Execute: java  SumdokuGenerator [seconds per size]
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class SumdokuGenerator {
+
+    // The sizes of the puzzles we support (the same limits of 'SumdokuPuzzle.definesPuzzle')
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 9;
+
+    private static final int MAX_GROUP_SIZE = 4; // The biggest group (bigger groups have too many combinations, so the puzzles get slow to check)
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // Spreads the seeds of consecutive puzzles
+
+    private final int size;
+    private final long seed;
+
+    /**
+     * Creates a generator of puzzles of the given size, with a random seed.
+     *
+     * @param size the size of the puzzles
+     * @requires {@code 3 <= size <= 9}
+     */
+    public SumdokuGenerator(int size){
+        this(size, new Random().nextLong());
+    }
+
+    /**
+     * Creates a generator of puzzles of the given size that always produces the same puzzles for the same seed.
+     *
+     * @param size the size of the puzzles
+     * @param seed the seed of the random numbers
+     * @requires {@code 3 <= size <= 9}
+     */
+    public SumdokuGenerator(int size, long seed){
+        this.size = size;
+        this.seed = seed;
+    }
+
+    /**
+     * Retrieves the size of the puzzles of this generator.
+     *
+     * @return the size of the puzzles
+     */
+    public int size(){
+        return this.size;
+    }
+
+    /**
+     * Builds the puzzle number {@code index} of this generator (any number of threads can call this function).
+     *
+     * @param index the number of the puzzle
+     * @requires {@code index >= 0}
+     * @return a puzzle with only one solution
+     */
+    public SumdokuPuzzle puzzle(long index){
+        SplittableRandom random = new SplittableRandom(this.seed + index * GOLDEN_GAMMA);
+
+        int[][] square = randomLatinSquare(this.size, random);
+        int[][] membership = randomGroups(this.size, random);
+        int[] values = groupsValues(square, membership);
+
+        // We split cells until there is only one solution
+        int[][][] solutions = new ConstraintSumdokuSolver(membership, values).findSolutions(2);
+        while (solutions.length > 1){
+            splitDifferentCell(membership, solutions[0], solutions[1], random);
+            values = groupsValues(square, membership);
+            solutions = new ConstraintSumdokuSolver(membership, values).findSolutions(2);
+        }
+
+        // We try to merge some neighbouring groups, keeping the puzzle unique
+        for (int attempt = 0; attempt < this.size; attempt++){
+            int[][] merged = mergeNeighbours(membership, random);
+            if (merged != null){
+                int[] mergedValues = groupsValues(square, merged);
+                if (new ConstraintSumdokuSolver(merged, mergedValues).checkUniqueness() == SumdokuUniqueness.UNIQUE){
+                    membership = merged;
+                    values = mergedValues;
+                }
+            }
+        }
+
+        return new SumdokuPuzzle(membership, values);
+    }
+
+    /**
+     * Creates a lazy and infinite stream with the puzzles of this generator (the puzzle number i is the element number i).
+     * It can be used in parallel, each puzzle is built by the thread that needs it.
+     *
+     * @return the stream of puzzles (use {@code limit} to choose how many)
+     */
+    public Stream<SumdokuPuzzle> stream(){
+        return LongStream.range(0, Long.MAX_VALUE).mapToObj(this::puzzle);
+    }
+
+    /**
+     * Builds a random latin square, filling the cells row by row with random candidates (with backtracking).
+     *
+     * @param size the size of the square
+     * @param random the source of random numbers
+     * @requires {@code size > 0}
+     * @return a size x size matrix where each row and column has every digit between 1 and size
+     */
+    static int[][] randomLatinSquare(int size, SplittableRandom random){
+        int[] cells = new int[size * size];
+        int[] rowUsed = new int[size];
+        int[] colUsed = new int[size];
+
+        fillSquare(0, size, cells, rowUsed, colUsed, random);
+
+        int[][] square = new int[size][size];
+        for (int cell = 0; cell < cells.length; cell++){
+            square[cell / size][cell % size] = cells[cell];
+        }
+        return square;
+    }
+
+    /**
+     * Fills the cells from {@code cell} on with digits that don't repeat in any row or column.
+     *
+     * @param cell the first empty cell (row by row, starting at 0)
+     * @param size the size of the square
+     * @param cells the values of the cells
+     * @param rowUsed the set of digits used in each row (the digit d is the bit number d)
+     * @param colUsed the set of digits used in each column
+     * @param random the source of random numbers
+     * @return {@code true} if every cell was filled, {@code false} if there is no way of filling them
+     */
+    private static boolean fillSquare(int cell, int size, int[] cells, int[] rowUsed, int[] colUsed, SplittableRandom random){
+        if (cell == cells.length)
+            return true;
+
+        int row = cell / size;
+        int col = cell % size;
+        int candidates = ((1 << (size + 1)) - 2) & ~(rowUsed[row] | colUsed[col]);
+
+        // We try the candidates in a random order
+        while (candidates != 0){
+            int digit = nthDigit(candidates, random.nextInt(Integer.bitCount(candidates)));
+            candidates &= ~(1 << digit);
+
+            cells[cell] = digit;
+            rowUsed[row] |= 1 << digit;
+            colUsed[col] |= 1 << digit;
+
+            if (fillSquare(cell + 1, size, cells, rowUsed, colUsed, random))
+                return true;
+
+            rowUsed[row] &= ~(1 << digit);
+            colUsed[col] &= ~(1 << digit);
+        }
+
+        cells[cell] = 0;
+        return false;
+    }
+
+    /**
+     * Finds the digit in the position {@code n} of a set of digits.
+     *
+     * @param digits the set of digits (the digit d is the bit number d)
+     * @param n the position, starting at 0
+     * @requires {@code 0 <= n < Integer.bitCount(digits)}
+     * @return the digit
+     */
+    private static int nthDigit(int digits, int n){
+        for (int i = 0; i < n; i++){
+            digits &= digits - 1; // We remove the smallest digit
+        }
+        return Integer.numberOfTrailingZeros(digits);
+    }
+
+    /**
+     * Splits the grid into random connected groups of at most {@code MAX_GROUP_SIZE} cells. Each group starts at
+     * the first free cell and grows into random free neighbours of its cells.
+     *
+     * @param size the size of the grid
+     * @param random the source of random numbers
+     * @return the group membership matrix (the groups are numbered from 0, in the order of their first cell)
+     */
+    private static int[][] randomGroups(int size, SplittableRandom random){
+        int[] group = new int[size * size];
+        Arrays.fill(group, -1);
+
+        int[] members = new int[MAX_GROUP_SIZE];
+        int numOfGroups = 0;
+
+        for (int first = 0; first < group.length; first++){
+            if (group[first] < 0){
+                int target = 1 + random.nextInt(Math.min(MAX_GROUP_SIZE, size));
+                int count = 0;
+                group[first] = numOfGroups;
+                members[count++] = first;
+
+                // We try a few times to add a free neighbour of a random cell of the group
+                for (int attempt = 0; attempt < 4 * target && count < target; attempt++){
+                    int next = neighbour(members[random.nextInt(count)], random.nextInt(4), size);
+                    if (next >= 0 && group[next] < 0){
+                        group[next] = numOfGroups;
+                        members[count++] = next;
+                    }
+                }
+                numOfGroups++;
+            }
+        }
+
+        return toMatrix(group, size);
+    }
+
+    /**
+     * Finds a neighbour of a cell.
+     *
+     * @param cell the cell (row by row, starting at 0)
+     * @param direction 0 for up, 1 for down, 2 for left and 3 for right
+     * @param size the size of the grid
+     * @return the neighbour, or -1 if it's outside the grid
+     */
+    private static int neighbour(int cell, int direction, int size){
+        int row = cell / size;
+        int col = cell % size;
+        switch (direction){
+            case 0:
+                return row > 0 ? cell - size : -1;
+            case 1:
+                return row < size - 1 ? cell + size : -1;
+            case 2:
+                return col > 0 ? cell - 1 : -1;
+            default:
+                return col < size - 1 ? cell + 1 : -1;
+        }
+    }
+
+    /**
+     * Takes a random cell where the two solutions are different and moves it into a group of its own
+     * (the rest of its group may be split into several groups, if it isn't connected anymore).
+     *
+     * @param membership the group membership matrix (it is changed)
+     * @param one a solution of the puzzle
+     * @param other another solution of the puzzle
+     * @param random the source of random numbers
+     * @requires {@code one} and {@code other} are different
+     */
+    private static void splitDifferentCell(int[][] membership, int[][] one, int[][] other, SplittableRandom random){
+        int size = membership.length;
+
+        // We choose one of the different cells with the same probability (reservoir sampling)
+        int chosen = -1;
+        int seen = 0;
+        for (int cell = 0; cell < size * size; cell++){
+            if (one[cell / size][cell % size] != other[cell / size][cell % size] && random.nextInt(++seen) == 0)
+                chosen = cell;
+        }
+
+        membership[chosen / size][chosen % size] = size * size; // A number no other group has
+        renumber(membership);
+    }
+
+    /**
+     * Merges a random group with one of its neighbouring groups, if the merged group has at most {@code MAX_GROUP_SIZE} cells.
+     *
+     * @param membership the group membership matrix (it isn't changed)
+     * @param random the source of random numbers
+     * @return a new group membership matrix with the merged groups, or null if the chosen groups can't be merged
+     */
+    private static int[][] mergeNeighbours(int[][] membership, SplittableRandom random){
+        int size = membership.length;
+        int cell = random.nextInt(size * size);
+        int next = neighbour(cell, random.nextInt(4), size);
+        if (next < 0)
+            return null;
+
+        int group = membership[cell / size][cell % size];
+        int otherGroup = membership[next / size][next % size];
+        if (group == otherGroup)
+            return null;
+
+        // Big groups have too many combinations, which makes the puzzle ambiguous (and slow to check)
+        int mergedSize = 0;
+        for (int[] row : membership){
+            for (int g : row){
+                if (g == group || g == otherGroup)
+                    mergedSize++;
+            }
+        }
+        if (mergedSize > MAX_GROUP_SIZE)
+            return null;
+
+        int[][] merged = new int[size][size];
+        for (int r = 0; r < size; r++){
+            for (int c = 0; c < size; c++){
+                merged[r][c] = membership[r][c] == otherGroup ? group : membership[r][c];
+            }
+        }
+        renumber(merged);
+        return merged;
+    }
+
+    /**
+     * Numbers the groups again, from 0 and in the order of their first cell, so that each connected set of cells
+     * with the same number becomes a group (a group that was split gets a number for each part).
+     *
+     * @param membership the group membership matrix (it is changed)
+     */
+    private static void renumber(int[][] membership){
+        int size = membership.length;
+        int[] group = new int[size * size];
+        Arrays.fill(group, -1);
+        int[] stack = new int[size * size];
+        int numOfGroups = 0;
+
+        for (int first = 0; first < group.length; first++){
+            if (group[first] < 0){
+                int old = membership[first / size][first % size];
+
+                // We visit every cell connected to the first one with the same old number
+                int top = 0;
+                stack[top++] = first;
+                group[first] = numOfGroups;
+                while (top > 0){
+                    int cell = stack[--top];
+                    for (int direction = 0; direction < 4; direction++){
+                        int next = neighbour(cell, direction, size);
+                        if (next >= 0 && group[next] < 0 && membership[next / size][next % size] == old){
+                            group[next] = numOfGroups;
+                            stack[top++] = next;
+                        }
+                    }
+                }
+                numOfGroups++;
+            }
+        }
+
+        for (int cell = 0; cell < group.length; cell++){
+            membership[cell / size][cell % size] = group[cell];
+        }
+    }
+
+    /**
+     * Turns the group of each cell (row by row) into a matrix.
+     *
+     * @param group the group of each cell
+     * @param size the size of the grid
+     * @return the group membership matrix
+     */
+    private static int[][] toMatrix(int[] group, int size){
+        int[][] membership = new int[size][size];
+        for (int cell = 0; cell < group.length; cell++){
+            membership[cell / size][cell % size] = group[cell];
+        }
+        return membership;
+    }
+
+    /**
+     * Finds the sum of each group in the given square.
+     *
+     * @param square the full grid
+     * @param membership the group membership matrix (the groups are numbered from 0 without gaps)
+     * @return the sum of the values of each group
+     */
+    static int[] groupsValues(int[][] square, int[][] membership){
+        int numOfGroups = 0;
+        for (int[] row : membership){
+            for (int group : row){
+                numOfGroups = Math.max(numOfGroups, group + 1);
+            }
+        }
+
+        int[] values = new int[numOfGroups];
+        for (int r = 0; r < square.length; r++){
+            for (int c = 0; c < square.length; c++){
+                values[membership[r][c]] += square[r][c];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Measures how many puzzles of each size are generated per second, with one thread and with every processor.
+     *
+     * @param args optionally, the number of seconds measured for each size (1 by default)
+     */
+    public static void main(String[] args){
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+
+        System.out.println("processors: " + Runtime.getRuntime().availableProcessors());
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            SumdokuGenerator generator = new SumdokuGenerator(size, 42);
+            generator.stream().limit(10).mapToLong(puzzle -> 1).sum(); // We warm up the JVM
+
+            System.out.printf("size %d: %.1f puzzles/s (1 thread), %.1f puzzles/s (parallel)%n", size,
+                              throughput(generator, seconds, false), throughput(generator, seconds, true));
+        }
+    }
+
+    /**
+     * Generates puzzles in batches until the given time passes.
+     *
+     * @param generator the generator
+     * @param seconds the minimum time of the measure
+     * @param parallel if the puzzles are generated by several threads
+     * @return the number of puzzles generated per second
+     */
+    private static double throughput(SumdokuGenerator generator, double seconds, boolean parallel){
+        long start = System.nanoTime();
+        long elapsed;
+        long count = 0;
+        int batch = 1;
+
+        do {
+            // The puzzles from 'count' on, so each one is only built once ('sum' makes sure every puzzle is built)
+            LongStream indexes = LongStream.range(count, count + batch);
+            count += (parallel ? indexes.parallel() : indexes).mapToObj(generator::puzzle).mapToLong(puzzle -> 1).sum();
+            batch *= 2;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < seconds * 1e9);
+
+        return count / (elapsed / 1e9);
+    }
+}
@@ -1,3 +1,10 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
 /**
  * The {@code SumdokuGrid} consists in the class which contains the section of the grid of the game
  * 
@@ -8,8 +15,26 @@
  * @version 1.0
  */  
 public class SumdokuGrid {
-    private int[][] grid;
-    private int size;
+    // The cells are stored row by row in a single byte array (the values are never bigger than the size),
+    // so the cell in row r and column c (both 1-indexed) is in the position (r - 1) * size + (c - 1),
+    // which is the same as r * size + c - (size + 1)
+    private final byte[] grid;
+    private final int size;
+    private final int offset; // The value size + 1, subtracted from r * size + c to find the position of a cell (and the number of keys of each one)
+    private int filled; // The number of filled cells
+    private final SumdokuGridTracker tracker; // Follows the rows, columns and groups of a puzzle (null if the grid isn't tracking one)
+    private final long[] changed; // The bit of each position changed since the last check of conflicts (64 positions per long)
+    private SumdokuConflictChecker checker; // The last checker of conflicts used with this grid (null if there wasn't any)
+    private SumdokuSearchState hintCells; // The cells with the right value for the last puzzle asked for a hint (null if there wasn't any)
+    private byte[] hintSolution; // The solution of that puzzle
+    private long zobrist; // The XOR of the key of each filled cell with its value (check the array 'keys')
+    private final long[] keys; // The Zobrist keys of the size of the grid, shared by every grid of that size
+    private SumdokuJournal journal; // The moves that can be undone and redone (null if the grid doesn't keep them)
+
+    // A random key for each position and value of each size (the empty cells have the key 0), so the hash of the grid
+    // is updated on each 'fill' with two XORs, instead of going through every cell. The keys of a size are only created
+    // when the first grid of that size is
+    private static final ConcurrentHashMap<Integer, long[]> ZOBRIST_KEYS = new ConcurrentHashMap<>();
 
     /**
      * Constructor for the SumdokuGrid class.
@@ -19,11 +44,36 @@ public class SumdokuGrid {
      * @requires {@code gridSize > 0}
      */
     public SumdokuGrid(int gridSize) {
-        // Initialize a 2D array to represent the grid
-        this.grid = new int[gridSize][gridSize];
+        // Initialize a flat array to represent the grid (every cell starts empty)
+        this.grid = new byte[gridSize * gridSize];
         
         // Set the grid size
         this.size = gridSize;
+        this.offset = gridSize + 1;
+        this.filled = 0;
+        this.tracker = null;
+        this.changed = new long[(this.grid.length + 63) / 64];
+        this.keys = ZOBRIST_KEYS.computeIfAbsent(gridSize, SumdokuGrid::zobristKeys);
+    }
+
+    /**
+     * Constructor for the SumdokuGrid class in the incremental mode.
+     * Initializes an empty grid with the size of the given puzzle, which keeps, on every {@code fill},
+     * the digits used in each row and column and the sum of each group of the puzzle.
+     * This way, the functions {@code conflicts}, {@code isGroupCorrect} and {@code isSolved}
+     * answer without going through the grid (and without solving the puzzle).
+     *
+     * @param puzzle the puzzle this grid is validated against
+     * @requires {@code puzzle != null}
+     */
+    public SumdokuGrid(SumdokuPuzzle puzzle) {
+        this.grid = new byte[puzzle.size() * puzzle.size()];
+        this.size = puzzle.size();
+        this.offset = this.size + 1;
+        this.filled = 0;
+        this.tracker = new SumdokuGridTracker(puzzle);
+        this.changed = new long[(this.grid.length + 63) / 64];
+        this.keys = ZOBRIST_KEYS.computeIfAbsent(this.size, SumdokuGrid::zobristKeys);
     }
     
     /**
@@ -36,8 +86,8 @@ public class SumdokuGrid {
      *           {@code column > 0 && column <= size}
      */
     public int value(int row, int column) {
-        // Return the value from the specified row and column, adjusting for 0-based indexing
-        return this.grid[row - 1][column - 1];
+        // Return the value from the specified row and column
+        return this.grid[row * this.size + column - this.offset];
     }
 
     /**
@@ -45,13 +95,399 @@ public class SumdokuGrid {
      *
      * @param row the row of the cell (1-indexed)
      * @param column the column of the cell (1-indexed)
-     * @param value the value to be inserted into the cell
+     * @param value the value to be inserted into the cell (0 empties it)
      * @requires {@code row > 0 && row <= size}
      *           {@code column > 0 && column <= size}
+     *           {@code value >= 0 && value <= size}
+     * @throws IllegalArgumentException if the value is outside the interval (the grid isn't changed)
      */
     public void fill(int row, int column, int value) {
-        // Set the value in the specified cell, adjusting for 0-based indexing
-        this.grid[row - 1][column - 1] = value;
+        // A bigger value would be counted in the next row or column of the tracker, so we refuse it before changing anything
+        if (value < 0 || value > this.size) {
+            throw new IllegalArgumentException("The value must be between 0 and " + this.size + ": " + value);
+        }
+        int position = row * this.size + column - this.offset;
+        int oldValue = this.grid[position];
+        set(position, value);
+
+        // Keep the move, so it can be undone (only if the grid has a journal, and only after it was made)
+        if (this.journal != null) {
+            this.journal.record(position, oldValue, value);
+        }
+    }
+
+    /**
+     * Puts a value in a position of the grid, updating the number of filled cells, the tracker, the hash and the changes
+     * (the journal isn't updated, so this is also used to undo and redo the moves).
+     *
+     * @param position the position of the cell ((r - 1) * size + (c - 1))
+     * @param value the value to be inserted into the cell
+     */
+    private void set(int position, int value) {
+        // Update the number of filled cells (the cell may have been empty or filled before)
+        if (this.grid[position] == 0 && value != 0) {
+            this.filled++;
+        } else if (this.grid[position] != 0 && value == 0) {
+            this.filled--;
+        }
+
+        // Update the rows, columns and groups (only in the incremental mode)
+        if (this.tracker != null) {
+            this.tracker.update(position, this.grid[position], value);
+        }
+
+        // Update the right cells of the hints (only if a hint was asked for this grid)
+        if (this.hintCells != null) {
+            if (this.grid[position] != 0 && this.grid[position] == this.hintSolution[position]) {
+                this.hintCells.remove(position);
+            }
+            if (value != 0 && value == this.hintSolution[position]) {
+                this.hintCells.place(position, value);
+            }
+        }
+
+        // Update the hash (the old value leaves and the new one enters)
+        this.zobrist ^= this.keys[position * this.offset + this.grid[position]] ^ this.keys[position * this.offset + value];
+
+        // Set the value in the specified cell and mark it as changed
+        this.grid[position] = (byte) value;
+        this.changed[position >>> 6] |= 1L << position;
+    }
+
+    /**
+     * Starts keeping the moves made with {@code fill}, so they can be undone and redone without copying the grid
+     * (check the class {@code SumdokuJournal}). The moves made before aren't kept.
+     *
+     * @param capacity the number of moves kept (the oldest ones are forgotten)
+     * @requires {@code capacity > 0}
+     */
+    public void startJournal(int capacity) {
+        this.journal = new SumdokuJournal(capacity);
+    }
+
+    /**
+     * Checks if there is a move to undo.
+     *
+     * @return {@code true} if the grid keeps its moves and a move can be undone, {@code false} otherwise
+     */
+    public boolean canUndo() {
+        return this.journal != null && this.journal.canUndo();
+    }
+
+    /**
+     * Checks if there is a move to redo.
+     *
+     * @return {@code true} if the grid keeps its moves and an undone move can be redone, {@code false} otherwise
+     */
+    public boolean canRedo() {
+        return this.journal != null && this.journal.canRedo();
+    }
+
+    /**
+     * Undoes the last move: the cell gets back the value it had before it.
+     *
+     * @return {@code true} if a move was undone, {@code false} if there was none
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        int entry = this.journal.undo();
+        set(SumdokuJournal.position(entry), SumdokuJournal.oldValue(entry));
+        return true;
+    }
+
+    /**
+     * Redoes the last move undone (a new move forgets the ones that could be redone).
+     *
+     * @return {@code true} if a move was redone, {@code false} if there was none
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        int entry = this.journal.redo();
+        set(SumdokuJournal.position(entry), SumdokuJournal.newValue(entry));
+        return true;
+    }
+
+    /**
+     * Takes a snapshot of the grid, which is only a point of its history of moves (nothing is copied).
+     *
+     * @requires the grid keeps its moves (check the function {@code startJournal})
+     * @return the snapshot
+     */
+    public SumdokuJournal.Snapshot snapshot() {
+        return this.journal.snapshot();
+    }
+
+    /**
+     * Takes the grid back (or forward) to a snapshot, undoing or redoing the moves between them.
+     *
+     * @param snapshot a snapshot of this grid
+     * @requires {@code snapshot != null}
+     * @return {@code true} if the grid is now as it was in the snapshot, {@code false} if the moves to reach it
+     *         were forgotten (in that case the grid doesn't change)
+     */
+    public boolean restore(SumdokuJournal.Snapshot snapshot) {
+        if (this.journal == null || !this.journal.canRestore(snapshot)) {
+            return false;
+        }
+        for (long distance = this.journal.distance(snapshot); distance < 0; distance++) {
+            undo();
+        }
+        for (long distance = this.journal.distance(snapshot); distance > 0; distance--) {
+            redo();
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the grid is in the incremental mode (i.e., it was built for a puzzle).
+     *
+     * @return {@code true} if the grid follows the rows, columns and groups of a puzzle, {@code false} otherwise
+     */
+    public boolean isTracking() {
+        return this.tracker != null;
+    }
+
+    /**
+     * Checks if the grid is in the incremental mode for the given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @return {@code true} if the grid was built for {@code puzzle}, {@code false} otherwise
+     */
+    boolean tracks(SumdokuPuzzle puzzle) {
+        return this.tracker != null && this.tracker.puzzle() == puzzle;
+    }
+
+    /**
+     * Checks if filling a cell with a value would repeat it in the cell's row or column.
+     *
+     * @param row the row of the cell (1-indexed)
+     * @param column the column of the cell (1-indexed)
+     * @param value the value to be inserted into the cell
+     * @return {@code true} if another cell of the same row or column already has the value, {@code false} otherwise
+     * @requires {@code isTracking()}
+     *           {@code row > 0 && row <= size}
+     *           {@code column > 0 && column <= size}
+     *           {@code value > 0 && value <= size}
+     */
+    public boolean conflicts(int row, int column, int value) {
+        int position = row * this.size + column - this.offset;
+        return this.tracker.conflicts(position, this.grid[position], value);
+    }
+
+    /**
+     * Checks if every cell of a group of the puzzle is filled and their values add up to the group's sum.
+     *
+     * @param group the number of the group (1-indexed, as in {@code SumdokuPuzzle.valueGroup})
+     * @return {@code true} if the group is complete and correct, {@code false} otherwise
+     * @requires {@code isTracking()}
+     *           {@code group > 0 && group <= puzzle.numberOfGroups()}
+     */
+    public boolean isGroupCorrect(int group) {
+        return this.tracker.isGroupCorrect(group - 1);
+    }
+
+    /**
+     * Checks if the grid solves the puzzle: it's full, no value repeats in a row or column
+     * and every group has the right sum (the puzzle has only one solution, so this grid is that solution).
+     *
+     * @return {@code true} if the grid solves the puzzle, {@code false} otherwise
+     * @requires {@code isTracking()}
+     */
+    public boolean isSolved() {
+        return this.tracker.isSolved(this.filled);
+    }
+
+    /**
+     * Retrieves the number of filled cells of the grid (it doesn't need to go through the grid).
+     *
+     * @return the number of cells with a value different from 0
+     */
+    public int filledCount() {
+        return this.filled;
+    }
+
+    /**
+     * Copies every value of another grid into this one.
+     *
+     * @param other the grid to be copied
+     * @requires {@code other != null} and {@code other} has the same size as this grid
+     */
+    public void copyFrom(SumdokuGrid other) {
+        // In the incremental mode we must update the rows, columns and groups with every value
+        if (this.tracker != null) {
+            this.tracker.clear();
+            for (int i = 0; i < this.grid.length; i++) {
+                this.tracker.update(i, 0, other.grid[i]);
+            }
+        }
+
+        System.arraycopy(other.grid, 0, this.grid, 0, this.grid.length);
+        this.filled = other.filled;
+        this.zobrist = other.zobrist;
+        this.hintCells = null; // It is found again on the next hint
+        markAllChanged();
+
+        // The moves kept don't lead to the copied values
+        if (this.journal != null) {
+            this.journal.reset();
+        }
+    }
+
+    /**
+     * Empties every cell of the grid.
+     */
+    public void clear() {
+        Arrays.fill(this.grid, (byte) 0);
+        this.filled = 0;
+        this.zobrist = 0;
+        if (this.tracker != null) {
+            this.tracker.clear();
+        }
+        this.hintCells = null; // It is found again on the next hint
+        markAllChanged();
+
+        // Every move is forgotten at once (check the function 'SumdokuJournal.reset')
+        if (this.journal != null) {
+            this.journal.reset();
+        }
+    }
+
+    /**
+     * Marks every cell as changed since the last check of conflicts.
+     */
+    void markAllChanged() {
+        Arrays.fill(this.changed, -1L);
+        this.changed[this.changed.length - 1] = -1L >>> (this.changed.length * 64 - this.grid.length);
+    }
+
+    /**
+     * Gives every position changed since the last call to the {@code action}, and forgets them
+     * (it looks at 64 positions at a time, so it costs as much as the number of changes).
+     *
+     * @param action what is done with each position (the cell in row r and column c is in the position (r - 1) * size + (c - 1))
+     */
+    void forEachChange(IntConsumer action) {
+        for (int word = 0; word < this.changed.length; word++) {
+            long bits = this.changed[word];
+            this.changed[word] = 0;
+            while (bits != 0) {
+                action.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1; // We remove the lowest bit
+            }
+        }
+    }
+
+    /**
+     * Retrieves the last checker of conflicts used with this grid (check the function {@code SumdokuPuzzle.conflicts}).
+     *
+     * @return the checker, or null if the conflicts of this grid were never checked
+     */
+    SumdokuConflictChecker checker() {
+        return this.checker;
+    }
+
+    /**
+     * Keeps the checker of conflicts used with this grid.
+     *
+     * @param checker the checker
+     */
+    void setChecker(SumdokuConflictChecker checker) {
+        this.checker = checker;
+    }
+
+    /**
+     * Retrieves the cells with the right value for the last puzzle asked for a hint (check the function {@code SumdokuPuzzle.hint}),
+     * which are kept on every {@code fill}, {@code undo} and {@code redo}.
+     *
+     * @return the state with the right cells, or null if no hint was asked for this grid since it was last emptied or copied
+     */
+    SumdokuSearchState hintCells() {
+        return this.hintCells;
+    }
+
+    /**
+     * Keeps the cells with the right value for a puzzle, to update them on every change of the grid.
+     *
+     * @param cells the state with the right cells of the grid (and nothing else)
+     * @param solution the solution of the puzzle
+     */
+    void setHintCells(SumdokuSearchState cells, byte[] solution) {
+        this.hintCells = cells;
+        this.hintSolution = solution;
+    }
+
+    /**
+     * Retrieves a copy of the values of the grid, row by row.
+     *
+     * @return an array where the value of the cell in row r and column c (1-indexed) is in the position (r - 1) * size + (c - 1)
+     */
+    public int[] toArray() {
+        int[] result = new int[this.grid.length];
+        for (int i = 0; i < this.grid.length; i++) {
+            result[i] = this.grid[i];
+        }
+        return result;
+    }
+
+    /**
+     * Checks if another grid has the same size and the same value in every cell.
+     *
+     * @param other the grid to be compared
+     * @return {@code true} if both grids have the same size and values, {@code false} otherwise
+     */
+    public boolean equalsGrid(SumdokuGrid other) {
+        return other != null && this.size == other.size && Arrays.equals(this.grid, other.grid);
+    }
+
+    /**
+     * Checks if another object is a grid with the same size and the same value in every cell (check the function {@code equalsGrid}).
+     *
+     * @param other the object to be compared
+     * @return {@code true} if {@code other} is a {@code SumdokuGrid} with the same size and values, {@code false} otherwise
+     */
+    public boolean equals(Object other) {
+        // Different hashes mean different grids, so we only compare the cells when the hashes are equal
+        return other instanceof SumdokuGrid && this.zobrist == ((SumdokuGrid) other).zobrist && equalsGrid((SumdokuGrid) other);
+    }
+
+    /**
+     * Retrieves the hash code of the grid (consistent with {@code equals}), without going through the cells.
+     *
+     * @return the hash code
+     */
+    public int hashCode() {
+        return Long.hashCode(this.zobrist) * 31 + this.size;
+    }
+
+    /**
+     * Retrieves the 64 bit Zobrist hash of the grid: the XOR of a random key for each filled cell and its value.
+     * It is updated on each {@code fill}, so it can be used as the key of a table of positions already seen.
+     *
+     * @return the hash (0 for an empty grid)
+     */
+    public long zobristHash() {
+        return this.zobrist;
+    }
+
+    /**
+     * Creates the random keys of every position and value of a size (always the same ones, so the hashes don't change between runs).
+     *
+     * @param size the size of the grids
+     * @return the keys, with the key of the value v in the position p in {@code p * (size + 1) + v} (the values go from 0 to size, check {@code fill})
+     */
+    private static long[] zobristKeys(int size) {
+        SplittableRandom random = new SplittableRandom(0x5D0C0L + size);
+        long[] keys = new long[size * size * (size + 1)];
+        for (int i = 0; i < keys.length; i++) {
+            if (i % (size + 1) != 0) {
+                keys[i] = random.nextLong(); // The empty cells keep the key 0
+            }
+        }
+        return keys;
     }
 
     /**
@@ -61,39 +497,60 @@ public class SumdokuGrid {
      * @return a textual representation of the grid
      */
     public String toString() {
-        // Create a StringBuilder to build the grid's string representation
-        StringBuilder output = new StringBuilder();
-        
-        // Get the number of rows and columns in the grid
-        int gridSizeRow = this.grid.length;
-        int gridSizeColumn = this.grid[0].length;
-        
+        // Create a StringBuilder with room for the whole grid (a space before each row, two characters per cell and a line break)
+        StringBuilder output = new StringBuilder(this.size * (2 * this.size + 2));
+
+        // Write the grid into it (check the function 'writeTo')
+        writeTo(output);
+
+        // Return the complete string representation of the grid
+        return output.toString();
+    }
+
+    /**
+     * Writes the textual representation of the grid (the same text of {@code toString}) straight into {@code out},
+     * without creating any intermediate {@code String} (useful to send it to a {@code Writer} or a reused buffer).
+     *
+     * @param out where the grid is written
+     * @requires {@code out != null}
+     * @throws IOException if {@code out} can't be written
+     */
+    public void writeTo(Appendable out) throws IOException {
         // Append the grid's top boundary (if applicable)
-        // output.append(gridEnds());
-        
+        // out.append(gridEnds());
+
         // Iterate through each cell in the grid
-        for (int r = 1; r <= gridSizeRow; r++) {
+        for (int r = 0; r < this.size; r++) {
             // We add a space before each line (as indicated in the project's instructions)
-            output.append(" ");
-            for (int c = 1; c <= gridSizeColumn; c++) {
-                // Check if the cell is filled and append the appropriate symbol
-                if (this.isFilled(r, c)) {
-                    output.append(this.value(r, c));  // Append the value if the cell is filled
-                } else {
-                    output.append(".");  // Append a dot if the cell is empty
-                }
-                output.append(" ");  // Add space between cells for readability
+            out.append(' ');
+            for (int c = 0; c < this.size; c++) {
+                // Append the value if the cell is filled (a single digit), or a dot if the cell is empty
+                byte value = this.grid[r * this.size + c];
+                out.append(value != 0 ? (char) ('0' + value) : '.');
+                out.append(' ');  // Add space between cells for readability
             }
-            output.append("\n");  // Add a newline after each row
+            out.append('\n');  // Add a newline after each row
         }
-        
+
         // Append the grid's bottom boundary (if applicable)
-        // output.append(gridEnds());
+        // out.append(gridEnds());
+    }
 
-        // Return the complete string representation of the grid
-        return output.toString();
+    /**
+     * Writes the textual representation of the grid into a {@code StringBuilder} (the same as {@code writeTo(Appendable)},
+     * but a {@code StringBuilder} never fails, so there is no {@code IOException}).
+     *
+     * @param out where the grid is written
+     * @requires {@code out != null}
+     */
+    public void writeTo(StringBuilder out) {
+        try {
+            writeTo((Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // It never happens with a StringBuilder
+        }
     }
-    
+
     /**
      * Generates the divider line used in the textual representation of the grid.
      *
@@ -104,7 +561,7 @@ public class SumdokuGrid {
         StringBuilder divider = new StringBuilder();
         
         // Append the appropriate number of dashes for each column in the grid
-        for (int i = 0; i < this.grid.length; i++) {
+        for (int i = 0; i < this.size; i++) {
             divider.append("--");
         }
         
@@ -115,6 +572,37 @@ public class SumdokuGrid {
         return divider.toString();
     }
 
+    /**
+     * Checks if the grid has exactly the given values (for example, the solution of a puzzle).
+     *
+     * @param values the values of every cell, row by row (the cell in row r and column c is in the position (r - 1) * size + (c - 1))
+     * @return {@code true} if every cell of the grid has the corresponding value, {@code false} otherwise
+     * @requires {@code values.length == size * size}
+     */
+    boolean hasValues(byte[] values) {
+        // Both are stored row by row, so we can compare the arrays directly
+        return Arrays.equals(this.grid, values);
+    }
+
+    /**
+     * Checks if the grid has the given values, ignoring the cells that have the {@code ignoredValue}
+     * (for example, the empty cells of a grid that isn't finished).
+     *
+     * @param values the values of every cell, row by row (the cell in row r and column c is in the position (r - 1) * size + (c - 1))
+     * @param ignoredValue the value of the cells that are not compared
+     * @return {@code true} if every cell of the grid without the {@code ignoredValue} has the corresponding value, {@code false} otherwise
+     * @requires {@code values.length == size * size}
+     */
+    boolean hasValues(byte[] values, byte ignoredValue) {
+        // Compare each cell of the grid with the corresponding value
+        for (int i = 0; i < this.grid.length; i++) {
+            if (this.grid[i] != ignoredValue && this.grid[i] != values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Checks if a specific cell in the grid is filled.
      *
@@ -126,6 +614,6 @@ public class SumdokuGrid {
      */
     public boolean isFilled(int row, int column) {
         // Check if the value in the specified cell is different from 0, indicating it is filled
-        return this.grid[row - 1][column - 1] != 0;
+        return this.grid[row * this.size + column - this.offset] != 0;
     }
 }
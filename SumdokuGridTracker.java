@@ -0,0 +1,250 @@
+import java.util.Arrays;
+
+/**
+ * The {@code SumdokuGridTracker} consists in the class which follows every change of a {@code SumdokuGrid}
+ * and keeps what we need to validate it against a puzzle without going through the whole grid
+ *
+ * For each row and column it keeps how many times each digit is used (and the set of used digits as a bitmask,
+ * where the digit d is in the set if the bit number d is 1). For each group it keeps the sum, and the empty
+ * cells are kept as a bitboard (check the class {@code SumdokuBitboard}), so a group is full if it has no empty cell.
+ * So, every question ("does this move conflict?", "is this group correct?", "is the grid solved?") is answered in constant time
+ *
+ * The cells are numbered row by row, starting at 0 (the same positions used inside {@code SumdokuGrid})
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+class SumdokuGridTracker {
+
+    // The information about the puzzle, that never changes
+    private final SumdokuPuzzle puzzle; // The puzzle the grid is validated against
+    private final int size; // The size of the puzzle
+    private final byte[] cellGroup; // The group of each cell (starting at 0)
+    private final int[] groupTarget; // The sum that each group must have
+    private final long[] groupCells; // The cells of each group, as a bitboard (check the class 'SumdokuBitboard')
+    private final long allLow; // The cells 0 to 63 of the grid
+    private final long allHigh; // The cells 64 to 80 of the grid
+
+    // The information about the grid, updated on every change
+    private final byte[] rowCount; // How many times each digit is in each row (the digit d of the row r is in the position r * (size + 1) + d)
+    private final byte[] colCount; // How many times each digit is in each column (the same positions as 'rowCount')
+    private final int[] rowUsed; // The set of digits used in each row
+    private final int[] colUsed; // The set of digits used in each column
+    private final int[] groupSum; // The sum of the values of each group
+    private long emptyLow; // The set of empty cells between 0 and 63
+    private long emptyHigh; // The set of empty cells between 64 and 80
+    private int repeated; // How many extra copies of digits there are in all the rows and columns (0 if no digit repeats)
+    private int correctGroups; // How many groups are full and have the right sum
+
+    /**
+     * Creates a tracker of an empty grid for the given puzzle.
+     *
+     * @param puzzle the puzzle the grid is validated against
+     * @requires {@code puzzle != null}
+     */
+    SumdokuGridTracker(SumdokuPuzzle puzzle){
+        this.puzzle = puzzle;
+        this.size = puzzle.size();
+
+        // The groups of the puzzle are shared by every grid of the puzzle (check the class 'SumdokuBitboard')
+        SumdokuBitboard bitboard = puzzle.bitboard();
+        this.cellGroup = bitboard.cellGroup;
+        this.groupCells = bitboard.groupCells;
+        this.allLow = bitboard.allCells(0);
+        this.allHigh = bitboard.allCells(1);
+        this.groupTarget = bitboard.groupTarget;
+
+        this.rowCount = new byte[this.size * (this.size + 1)];
+        this.colCount = new byte[this.size * (this.size + 1)];
+        this.rowUsed = new int[this.size];
+        this.colUsed = new int[this.size];
+        this.groupSum = new int[this.groupTarget.length];
+        this.emptyLow = this.allLow;
+        this.emptyHigh = this.allHigh;
+        this.repeated = 0;
+        this.correctGroups = 0;
+    }
+
+    /**
+     * Retrieves the puzzle the grid is validated against.
+     *
+     * @return the puzzle given during the construction
+     */
+    SumdokuPuzzle puzzle(){
+        return this.puzzle;
+    }
+
+    /**
+     * Updates the tracked information after a cell changes its value.
+     *
+     * @param position the position of the cell (row by row, starting at 0)
+     * @param oldValue the value the cell had (0 if it was empty)
+     * @param newValue the value the cell has now (0 if it is empty)
+     * @requires {@code 0 <= position < size * size} and both values between 0 and size
+     */
+    void update(int position, int oldValue, int newValue){
+        if (oldValue == newValue)
+            return; // Nothing changed
+
+        int row = position / this.size;
+        int col = position - row * this.size;
+        int group = this.cellGroup[position];
+
+        // A group that was correct may stop being correct (we check it again at the end)
+        if (isGroupCorrect(group))
+            this.correctGroups--;
+
+        if (oldValue != 0){
+            removeDigit(row, col, oldValue);
+            this.groupSum[group] -= oldValue;
+            setEmpty(position, true);
+        }
+        if (newValue != 0){
+            addDigit(row, col, newValue);
+            this.groupSum[group] += newValue;
+            setEmpty(position, false);
+        }
+
+        if (isGroupCorrect(group))
+            this.correctGroups++;
+    }
+
+    /**
+     * Counts a new copy of a digit in a row and in a column.
+     *
+     * @param row the row (starting at 0)
+     * @param col the column (starting at 0)
+     * @param digit the digit
+     */
+    private void addDigit(int row, int col, int digit){
+        int rowPosition = row * (this.size + 1) + digit;
+        int colPosition = col * (this.size + 1) + digit;
+
+        // If the digit was already there, the new copy is an extra one
+        if (this.rowCount[rowPosition]++ > 0)
+            this.repeated++;
+        if (this.colCount[colPosition]++ > 0)
+            this.repeated++;
+
+        this.rowUsed[row] |= 1 << digit;
+        this.colUsed[col] |= 1 << digit;
+    }
+
+    /**
+     * Removes a copy of a digit from a row and from a column.
+     *
+     * @param row the row (starting at 0)
+     * @param col the column (starting at 0)
+     * @param digit the digit
+     */
+    private void removeDigit(int row, int col, int digit){
+        int rowPosition = row * (this.size + 1) + digit;
+        int colPosition = col * (this.size + 1) + digit;
+
+        // If other copies of the digit stay there, the removed one was an extra one
+        if (--this.rowCount[rowPosition] > 0)
+            this.repeated--;
+        else
+            this.rowUsed[row] &= ~(1 << digit);
+
+        if (--this.colCount[colPosition] > 0)
+            this.repeated--;
+        else
+            this.colUsed[col] &= ~(1 << digit);
+    }
+
+    /**
+     * Adds a cell to the set of empty cells or removes it from there.
+     *
+     * @param position the position of the cell (row by row, starting at 0)
+     * @param empty {@code true} if the cell became empty, {@code false} if it was filled
+     */
+    private void setEmpty(int position, boolean empty){
+        if (position < 64)
+            this.emptyLow = empty ? this.emptyLow | 1L << position : this.emptyLow & ~(1L << position);
+        else
+            this.emptyHigh = empty ? this.emptyHigh | 1L << position : this.emptyHigh & ~(1L << position);
+    }
+
+    /**
+     * Empties every tracked information (for a grid that was cleared).
+     */
+    void clear(){
+        Arrays.fill(this.rowCount, (byte) 0);
+        Arrays.fill(this.colCount, (byte) 0);
+        Arrays.fill(this.rowUsed, 0);
+        Arrays.fill(this.colUsed, 0);
+        Arrays.fill(this.groupSum, 0);
+        this.emptyLow = this.allLow;
+        this.emptyHigh = this.allHigh;
+        this.repeated = 0;
+        this.correctGroups = 0;
+    }
+
+    /**
+     * Checks if placing a digit in a cell would repeat it in the cell's row or column.
+     *
+     * @param position the position of the cell (row by row, starting at 0)
+     * @param currentValue the value the cell has now (0 if it is empty)
+     * @param digit the digit to be placed
+     * @requires {@code 0 <= position < size * size} and {@code 1 <= digit <= size}
+     * @return {@code true} if the digit is already in another cell of the same row or column, {@code false} otherwise
+     */
+    boolean conflicts(int position, int currentValue, int digit){
+        int row = position / this.size;
+        int col = position - row * this.size;
+
+        // The cell's own value doesn't count as a conflict
+        int ownCopy = currentValue == digit ? 1 : 0;
+
+        return this.rowCount[row * (this.size + 1) + digit] > ownCopy || this.colCount[col * (this.size + 1) + digit] > ownCopy;
+    }
+
+    /**
+     * Retrieves the set of digits used in a row.
+     *
+     * @param row the row (starting at 0)
+     * @return the bitmask with the digits of the row
+     */
+    int rowDigits(int row){
+        return this.rowUsed[row];
+    }
+
+    /**
+     * Retrieves the set of digits used in a column.
+     *
+     * @param col the column (starting at 0)
+     * @return the bitmask with the digits of the column
+     */
+    int columnDigits(int col){
+        return this.colUsed[col];
+    }
+
+    /**
+     * Checks if a group is full and its values add up to the group's target sum.
+     *
+     * @param group the number of the group (starting at 0)
+     * @requires {@code 0 <= group < puzzle.numberOfGroups()}
+     * @return {@code true} if the group is complete and correct, {@code false} otherwise
+     */
+    boolean isGroupCorrect(int group){
+        // The group is full if none of its cells is in the set of empty cells
+        return (this.groupCells[2 * group] & this.emptyLow) == 0 && (this.groupCells[2 * group + 1] & this.emptyHigh) == 0
+            && this.groupSum[group] == this.groupTarget[group];
+    }
+
+    /**
+     * Checks if a full grid with the given number of filled cells solves the puzzle: no digit repeats
+     * in a row or column and every group has the right sum. Because the puzzle has only one solution,
+     * that means the grid is the solution.
+     *
+     * @param filled the number of filled cells of the grid
+     * @return {@code true} if the grid solves the puzzle, {@code false} otherwise
+     */
+    boolean isSolved(int filled){
+        return filled == this.size * this.size && this.repeated == 0 && this.correctGroups == this.groupTarget.length;
+    }
+}
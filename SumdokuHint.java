@@ -0,0 +1,86 @@
+/**
+ * The {@code SumdokuHint} consists in the class which keeps a hint for the player: a cell, its value
+ * and the reason why the cell must have that value (check the function {@code SumdokuPuzzle.hint})
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuHint {
+
+    private final int row; // The row of the cell (1-indexed)
+    private final int column; // The column of the cell (1-indexed)
+    private final int value; // The value of the cell
+    private final SumdokuTechnique technique; // How the value is deduced (null if no logical step finds it)
+
+    /**
+     * Creates a hint.
+     *
+     * @param row the row of the cell (1-indexed)
+     * @param column the column of the cell (1-indexed)
+     * @param value the value of the cell
+     * @param technique how the value is deduced (null if it was taken from the solution)
+     */
+    SumdokuHint(int row, int column, int value, SumdokuTechnique technique){
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.technique = technique;
+    }
+
+    /**
+     * Retrieves the row of the cell.
+     *
+     * @return the row (1-indexed)
+     */
+    public int row(){
+        return this.row;
+    }
+
+    /**
+     * Retrieves the column of the cell.
+     *
+     * @return the column (1-indexed)
+     */
+    public int column(){
+        return this.column;
+    }
+
+    /**
+     * Retrieves the value of the cell.
+     *
+     * @return the value
+     */
+    public int value(){
+        return this.value;
+    }
+
+    /**
+     * Retrieves the technique that deduces the value.
+     *
+     * @return the technique, or null if no logical step finds the value (so it was taken from the solution)
+     */
+    public SumdokuTechnique technique(){
+        return this.technique;
+    }
+
+    /**
+     * Retrieves the reason why the cell has its value.
+     *
+     * @return the explanation of the technique, or a sentence saying it is the value of the solution
+     */
+    public String reason(){
+        return this.technique == null ? "it is the value of the solution (no cell can be deduced yet)" : this.technique.reason();
+    }
+
+    /**
+     * Converts the hint into a textual representation.
+     *
+     * @return a {@code String} with the cell, the value and the reason
+     */
+    public String toString(){
+        return "row " + this.row + ", column " + this.column + ": " + this.value + " (" + reason() + ")";
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * The {@code SumdokuJournal} consists in the class which keeps the last moves made in a {@code SumdokuGrid}, so they can be
+ * undone and redone without copying the grid (check the functions {@code SumdokuGrid.startJournal}, {@code undo} and {@code redo})
+ *
+ * Each move is a single integer (the position of the cell, the value it had and the value it got) in a ring with a fixed
+ * number of entries, so the oldest moves are forgotten when it is full. Undoing and redoing only moves a cursor in the ring,
+ * and a new move after an undo forgets the moves that could be redone. Emptying the grid forgets every move at once, by
+ * starting a new generation, instead of erasing the ring.
+ *
+ * A snapshot ({@code Snapshot}) is just a point of the history, so taking one doesn't copy anything and many snapshots share
+ * the same moves. It can be restored while its generation is the current one, the moves between it and the grid are still
+ * kept, and those moves weren't replaced by others (after an undo)
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuJournal {
+
+    /**
+     * The {@code Snapshot} is a point of the history of a grid, which the grid can go back (or forward) to
+     * (check the functions {@code SumdokuGrid.snapshot} and {@code SumdokuGrid.restore}).
+     */
+    public static final class Snapshot {
+        private final SumdokuJournal journal;
+        private final int generation;
+        private final long position; // The number of moves applied when it was taken
+        private final long id; // The number of the last of those moves (0 if there wasn't any)
+
+        private Snapshot(SumdokuJournal journal, int generation, long position, long id){
+            this.journal = journal;
+            this.generation = generation;
+            this.position = position;
+            this.id = id;
+        }
+    }
+
+    // Each entry has the position of the cell in the bits 16 and up, the value it had in the bits 8 to 15 and the new value in the bits 0 to 7
+    // (the values are never bigger than the size of the grid, and the grid keeps them in bytes)
+    private final int[] entries;
+    private final long[] ids; // The number of the move written in each entry, to know if it was replaced
+    private final int mask; // The number of entries minus 1 (the number of entries is a power of 2)
+
+    // The moves are numbered from 0 since the start of the generation, and the move i is in the entry 'i & mask'
+    private long start; // The oldest move still kept
+    private long cursor; // The number of moves applied to the grid (the next one to redo)
+    private long end; // The number of moves that can be applied (the ones after the cursor can be redone)
+    private long written; // The number of moves written since the journal was created
+    private int generation;
+
+    /**
+     * Creates an empty journal.
+     *
+     * @param capacity the number of moves kept (it is rounded up to a power of 2)
+     * @requires {@code 0 < capacity <= 2^30}
+     */
+    SumdokuJournal(int capacity){
+        int entries = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new int[entries];
+        this.ids = new long[entries];
+        this.mask = entries - 1;
+    }
+
+    /**
+     * Keeps a move made in the grid, forgetting the moves that could be redone (and the oldest one, if the ring is full).
+     *
+     * @param position the position of the cell in the grid
+     * @param oldValue the value the cell had
+     * @param newValue the value the cell got
+     * @requires {@code 0 <= position < 2^15} and {@code 0 <= oldValue, newValue <= 255} (checked by {@code SumdokuGrid.fill})
+     */
+    void record(int position, int oldValue, int newValue){
+        int slot = (int) this.cursor & this.mask;
+        this.entries[slot] = position << 16 | oldValue << 8 | newValue;
+        this.ids[slot] = ++this.written;
+
+        this.cursor++;
+        this.end = this.cursor;
+        if (this.end - this.start > this.entries.length)
+            this.start = this.end - this.entries.length;
+    }
+
+    /**
+     * Checks if there is a move to undo.
+     *
+     * @return {@code true} if a move can be undone, {@code false} otherwise
+     */
+    boolean canUndo(){
+        return this.cursor > this.start;
+    }
+
+    /**
+     * Checks if there is a move to redo.
+     *
+     * @return {@code true} if a move can be redone, {@code false} otherwise
+     */
+    boolean canRedo(){
+        return this.cursor < this.end;
+    }
+
+    /**
+     * Moves the cursor back one move.
+     *
+     * @requires {@code canUndo()}
+     * @return the entry of the move to undo (check the functions {@code position} and {@code oldValue})
+     */
+    int undo(){
+        this.cursor--;
+        return this.entries[(int) this.cursor & this.mask];
+    }
+
+    /**
+     * Moves the cursor forward one move.
+     *
+     * @requires {@code canRedo()}
+     * @return the entry of the move to redo (check the functions {@code position} and {@code newValue})
+     */
+    int redo(){
+        int entry = this.entries[(int) this.cursor & this.mask];
+        this.cursor++;
+        return entry;
+    }
+
+    /**
+     * Forgets every move at once, starting a new generation (the snapshots taken before can't be restored).
+     */
+    void reset(){
+        this.generation++;
+        this.start = 0;
+        this.cursor = 0;
+        this.end = 0;
+    }
+
+    /**
+     * Takes a snapshot of the current point of the history.
+     *
+     * @return the snapshot
+     */
+    Snapshot snapshot(){
+        long id = this.cursor == 0 ? 0 : this.ids[(int) (this.cursor - 1) & this.mask];
+        return new Snapshot(this, this.generation, this.cursor, id);
+    }
+
+    /**
+     * Checks if the grid can go back (or forward) to a snapshot with the moves kept.
+     *
+     * @param snapshot the snapshot
+     * @return {@code true} if the snapshot can be restored, {@code false} otherwise
+     */
+    boolean canRestore(Snapshot snapshot){
+        if (snapshot.journal != this || snapshot.generation != this.generation || snapshot.position > this.end)
+            return false;
+        if (snapshot.position == 0)
+            return this.start == 0;
+
+        // The last move of the snapshot must still be kept and be the same one (it isn't after an undo and a new move)
+        return snapshot.position - 1 >= this.start && this.ids[(int) (snapshot.position - 1) & this.mask] == snapshot.id;
+    }
+
+    /**
+     * Retrieves the number of moves the cursor is from a snapshot.
+     *
+     * @param snapshot the snapshot
+     * @requires {@code canRestore(snapshot)}
+     * @return the number of moves to redo (if positive) or to undo (if negative) to reach the snapshot
+     */
+    long distance(Snapshot snapshot){
+        return snapshot.position - this.cursor;
+    }
+
+    /**
+     * Retrieves the position of the cell of a move.
+     *
+     * @param entry the entry of the move
+     * @return the position of the cell in the grid
+     */
+    static int position(int entry){
+        return entry >>> 16;
+    }
+
+    /**
+     * Retrieves the value the cell had before a move.
+     *
+     * @param entry the entry of the move
+     * @return the old value
+     */
+    static int oldValue(int entry){
+        return entry >>> 8 & 0xFF;
+    }
+
+    /**
+     * Retrieves the value the cell got with a move.
+     *
+     * @param entry the entry of the move
+     * @return the new value
+     */
+    static int newValue(int entry){
+        return entry & 0xFF;
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * The {@code SumdokuLoadClient} consists in the class which plays many games at the same time against a {@code SumdokuServer},
+ * to measure how many players it can serve
+ *
+ * Each connection sends the moves of a whole game at once (a value for every square, and then "false" to the question
+ * of a new puzzle) and reads everything until the server says goodbye and closes it. A single thread with a selector
+ * handles every connection, so the client can open as many connections as the system allows
+ *
+ * 		Compile: javac SumdokuLoadClient.java
+ * 		Execute: java  SumdokuLoadClient host port connections size
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class SumdokuLoadClient {
+
+    // The end of the last message of the server (its first letter doesn't appear again in it, check the function 'read')
+    private static final byte[] GOODBYE_END = "Volta sempre!".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The {@code Connection} keeps what is left to send and how much of the goodbye was already received.
+     */
+    private static final class Connection {
+        private final ByteBuffer moves;
+        private int matched;
+        private boolean finished;
+
+        private Connection(ByteBuffer moves){
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * There are no objects of this class, only its functions.
+     */
+    private SumdokuLoadClient(){
+    }
+
+    /**
+     * Plays a game in each of the given number of connections, all at the same time.
+     *
+     * @param address the address of the server
+     * @param connections the number of connections
+     * @param size the size of the puzzles of the server
+     * @requires {@code connections > 0} and {@code size} is the size used by the server
+     * @return the number of connections that played a whole game and received the goodbye
+     * @throws IOException if the connections can't be opened
+     */
+    public static int run(InetSocketAddress address, int connections, int size) throws IOException{
+        byte[] script = moves(size);
+        ByteBuffer input = ByteBuffer.allocateDirect(1 << 16);
+        int open = 0;
+        int finished = 0;
+
+        try (Selector selector = Selector.open()){
+            for (int i = 0; i < connections; i++){
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Connection(ByteBuffer.wrap(script)));
+                open++;
+            }
+
+            while (open > 0){
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    Connection connection = (Connection) key.attachment();
+
+                    try {
+                        if (key.isConnectable() && channel.finishConnect())
+                            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+                        if (key.isValid() && key.isWritable()){
+                            channel.write(connection.moves);
+                            if (!connection.moves.hasRemaining())
+                                key.interestOps(SelectionKey.OP_READ);
+                        }
+
+                        if (key.isValid() && key.isReadable()){
+                            input.clear();
+                            if (channel.read(input) < 0){
+                                channel.close();
+                                open--;
+                                finished += connection.finished ? 1 : 0;
+                            } else {
+                                read(connection, input.flip());
+                            }
+                        }
+                    } catch (IOException e){
+                        channel.close(); // The server closed it in a bad way, so it doesn't count as finished
+                        open--;
+                    }
+                }
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Writes the moves of a game: every square in order, with a value for each one, and then "false" to leave.
+     *
+     * @param size the size of the puzzle
+     * @return the bytes of the moves, one per line
+     */
+    private static byte[] moves(int size){
+        StringBuilder moves = new StringBuilder();
+        for (int square = 1; square <= size * size; square++){
+            moves.append(square).append('\n').append((square - 1) % size + 1).append('\n');
+        }
+        moves.append("false\n");
+        return moves.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Looks for the end of the goodbye in the bytes received.
+     *
+     * @param connection the connection
+     * @param bytes the bytes received
+     */
+    private static void read(Connection connection, ByteBuffer bytes){
+        while (bytes.hasRemaining()){
+            byte b = bytes.get();
+
+            // The first letter doesn't appear again in the goodbye, so after a wrong letter we only need to check if it is the first one
+            if (b == GOODBYE_END[connection.matched])
+                connection.matched++;
+            else
+                connection.matched = b == GOODBYE_END[0] ? 1 : 0;
+
+            if (connection.matched == GOODBYE_END.length){
+                connection.finished = true;
+                connection.matched = 0;
+            }
+        }
+    }
+
+    /**
+     * Plays the given number of games at the same time and shows how long they took.
+     *
+     * @param args the host and the port of the server, the number of connections and the size of the puzzles
+     * @throws IOException if the connections can't be opened
+     */
+    public static void main(String[] args) throws IOException{
+        if (args.length != 4){
+            System.out.println("Usage: java SumdokuLoadClient host port connections size");
+            return;
+        }
+
+        int connections = Integer.parseInt(args[2]);
+        int size = Integer.parseInt(args[3]);
+        long start = System.nanoTime();
+        int finished = run(new InetSocketAddress(args[0], Integer.parseInt(args[1])), connections, size);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d of %d games finished in %.2f s (%.0f games/s, %.0f moves/s)%n",
+            finished, connections, seconds, finished / seconds, finished * size * size / seconds);
+    }
+}
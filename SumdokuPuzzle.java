@@ -1,3 +1,13 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 /**
  * The {@code SumdokuPuzzle} consists in the class which contains a big section of the entire project
  * 
@@ -9,14 +19,35 @@
  */  
 public class SumdokuPuzzle{
     
-    // We must have the two main attributes for this object
-    private final int[][] groupMembership; // The matrix that defines each square's group
-    private final int[] groupsValues; // The vector that defines each group's total values sum
+    // The groups of the puzzle and their sums, kept only in the compact form used by the solvers and the validators
+    // and shared by every grid, checker and search state of this puzzle (check the class 'SumdokuBitboard')
+    private final SumdokuBitboard bitboard;
     
     // For simplicity, we can also use a variable for the size of the puzzle and the number of groups
     private final int puzzleSize;
     private final int numOfGroups;
 
+    // The unique solution of the puzzle, stored row by row with one byte per cell
+    // It is only computed the first time we need it, unless another object of the same puzzle already did (check the function 'solution')
+    private volatile byte[] solution;
+
+    // The canonical form of the puzzle and its fingerprint, also only computed the first time we need them
+    // (check the functions 'canonicalForm' and 'fingerprint')
+    private volatile SumdokuPuzzle canonical;
+    private volatile long fingerprint;
+
+    // The hash code of the puzzle, only computed the first time we need it (0 means it wasn't computed yet)
+    private int hash;
+
+    // From this size on, the puzzles are solved by several threads (if the computer has more than one processor)
+    private static final int PARALLEL_SIZE = 8;
+
+    // From this number of grids on, the function 'areSolvedBy' checks the grids with several threads
+    private static final int PARALLEL_BATCH = 4096;
+
+    // Counts how many times a solver was used to find the solution of a puzzle (useful to test the cache)
+    private static final AtomicLong solverCalls = new AtomicLong();
+
 
     /**
      * Determines if the given groupMembership matrix and groupsValues array define a valid puzzle.
@@ -58,16 +89,34 @@ public class SumdokuPuzzle{
         if (!noEmptyGroups(groupMembership, numOfGroups))
             return false; // If not...
 
-        // We verify if the puzzle has only one possible solution using the SumdokuSolver class
-        SumdokuSolver solver = new SumdokuSolver(groupMembership, groupsValues);
+        // We verify if the puzzle has only one possible solution using our solver engine (check the function 'solverFor')
+        // It stops as soon as it finds a second solution, so ambiguous puzzles are rejected quickly
+        SumdokuSolverEngine solver = solverFor(new SumdokuBitboard(groupMembership, groupsValues));
 
-        if (!(solver.howManySolutions(2) == 1))
+        if (solver.checkUniqueness() != SumdokuUniqueness.UNIQUE)
             return false; // If not...
 
         // If no problem has been found, then return true
         return true;
     }
 
+    /**
+     * Chooses the solver engine for the given puzzle: the big puzzles are solved in parallel
+     * (check the class {@code ParallelSumdokuSolver}) and the others in a single thread
+     * (check the class {@code ConstraintSumdokuSolver}).
+     *
+     * @param bitboard the groups of the puzzle (check the class {@code SumdokuBitboard})
+     * @requires {@code bitboard != null}
+     * @return the solver engine for the puzzle
+     */
+    private static SumdokuSolverEngine solverFor(SumdokuBitboard bitboard){
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        if (bitboard.size >= PARALLEL_SIZE && processors > 1)
+            return new ParallelSumdokuSolver(bitboard, processors);
+        return new ConstraintSumdokuSolver(bitboard);
+    }
+
     /**
      * Checks if the given matrix is a square matrix (each row has the same number of columns as the number of rows).
      *
@@ -189,62 +238,77 @@ public class SumdokuPuzzle{
      * @requires {@code definesPuzzle(groupMembership, groupsValues)}
      */
     public SumdokuPuzzle(int[][] groupMembership, int[] groupsValues){
-
-        // We now have the puzzle size and number of groups
         this.puzzleSize = groupMembership.length;
         this.numOfGroups = groupsValues.length;
-        
-        // We'll now replicate each value in the matrix groupMembership to the groupMembership atribute
-        this.groupMembership = copySquareMatrix(this.puzzleSize, groupMembership);
 
-        // We'll now replicate each value in the vector groupValues to the groupValues atribute
-        this.groupsValues = copyVector(groupsValues);
+        // The bitboard reads each value of groupMembership once and copies groupsValues, so the puzzle never shares the given arrays
+        this.bitboard = new SumdokuBitboard(groupMembership, groupsValues);
     }
 
     /**
-     * Copies each value from a square two-dimension integer-only matrix into a new one that will be returned
-     * 
-     * @param matrixSize the size of the matrix
-     * @param matrix the base matrix from where we want to copy every value
-     * @requires {@code matrix != null && matrix.length == matrixSize} and every row in {@code matrix} has length == {@code matrixSize},
-     *           {@code matrixSize > 0}
-     * @return a two-dimension matrix with all the copied values from {@code matrix}
+     * Retrieves the canonical form of the puzzle: the same puzzle for every puzzle equal to this one after permuting the rows,
+     * permuting the columns, transposing, renumbering the groups or replacing each digit d by size + 1 - d
+     * (check the class {@code SumdokuCanonicalizer}).
+     *
+     * @return the canonical form (it is computed only once)
      */
-    private int[][] copySquareMatrix(int matrixSize, int[][] matrix){
-
-        // We create a new matrix where we're gonna put the same values as the base matrix
-        int[][] copy = new int[puzzleSize][puzzleSize];
-
-        // In each position, we'll replicate the base matrix's values
-        for (int i = 0; i < puzzleSize; i++){
-            for (int j = 0; j < puzzleSize; j++){
-                copy[i][j] = matrix[i][j];
-            }
+    public SumdokuPuzzle canonicalForm(){
+        SumdokuPuzzle result = this.canonical;
+        if (result == null){
+            int[][][] form = SumdokuCanonicalizer.canonicalize(groupMembership(), this.bitboard.groupTarget);
+            result = new SumdokuPuzzle(form[0], form[1][0]);
+            result.canonical = result; // The canonical form is its own canonical form
+            this.canonical = result;
         }
+        return result;
+    }
 
-        // We finally return the copy of the base matrix
-        return copy;
+    /**
+     * Retrieves a 64 bit fingerprint of the canonical form of the puzzle, so two equivalent puzzles have the same
+     * fingerprint (useful to find repeated puzzles with a set of fingerprints, without keeping the puzzles).
+     *
+     * @return the fingerprint (it is computed only once)
+     */
+    public long fingerprint(){
+        SumdokuPuzzle form = canonicalForm();
+        long result = form.fingerprint;
+        if (result == 0){
+            result = SumdokuCanonicalizer.fingerprint(form.groupMembership(), form.bitboard.groupTarget);
+            form.fingerprint = result; // Another thread may compute it at the same time, but the value is the same
+        }
+        return result;
     }
 
     /**
-     * Copies each value from a one-dimensional integer-only array into a new one that will be returned.
-     * 
-     * @param vector the base array from where we want to copy every value
-     * @requires {@code vector != null && vector.length > 0}
-     * @return a one-dimensional array with all the copied values from {@code vector}
+     * Creates an empty search state of this puzzle (check the class {@code SumdokuSearchState}).
+     *
+     * @return a new search state, without any cell filled
      */
-    private int[] copyVector(int[] vector){
+    SumdokuSearchState newSearchState(){
+        return new SumdokuSearchState(this.bitboard);
+    }
 
-        // We create a new matrix where we're gonna put the same values as the base matrix
-        int[] copy = new int[vector.length];
+    /**
+     * Retrieves the groups of the puzzle in a compact form: the group of each cell in a flat array, the size of each group
+     * and the cells of each group as a bitboard (check the class {@code SumdokuBitboard}).
+     *
+     * @return the bitboard (it is built with the puzzle, and its arrays must not be changed)
+     */
+    SumdokuBitboard bitboard(){
+        return this.bitboard;
+    }
 
-        // In each position, we'll replicate the base vector's values
-        for (int i = 0; i < vector.length; i++){
-            copy[i] = vector[i];
+    /**
+     * Rebuilds the group membership matrix of the puzzle from its bitboard (the groups starting at 0).
+     *
+     * @return a new square matrix with the group of each cell
+     */
+    private int[][] groupMembership(){
+        int[][] matrix = new int[this.puzzleSize][this.puzzleSize];
+        for (int cell = 0; cell < this.bitboard.numOfCells; cell++){
+            matrix[cell / this.puzzleSize][cell % this.puzzleSize] = this.bitboard.cellGroup[cell];
         }
-
-        // We finally return the copy of the base matrix
-        return copy;
+        return matrix;
     }
 
 
@@ -282,8 +346,8 @@ public class SumdokuPuzzle{
      */
     public int groupNumber(int col, int row){
         
-        // We'll search the position (row - 1, col - 1) of groupMembership and return it's value plus one (because the first group equals to the value zero)
-        return (this.groupMembership[row - 1][col - 1] + 1);
+        // We'll search the cell (row - 1, col - 1), numbered row by row, and return it's group plus one (because the first group equals to the value zero)
+        return (this.bitboard.cellGroup[(row - 1) * this.puzzleSize + col - 1] + 1);
     }
 
 
@@ -296,9 +360,9 @@ public class SumdokuPuzzle{
      */
     public int valueGroup(int group){
         
-        // We'll get the value from our groupValues with the index: group - 1
-        // The group 1, for example, will have their sum in our groupsValues[0]
-        return this.groupsValues[group - 1];
+        // We'll get the value from the sums of the bitboard with the index: group - 1
+        // The group 1, for example, will have their sum in the position 0
+        return this.bitboard.groupTarget[group - 1];
     }
 
 
@@ -310,48 +374,96 @@ public class SumdokuPuzzle{
      * @return {@code true} if the {@code playedGrid} correctly solves the puzzle, {@code false} otherwise.
      */
     public boolean isSolvedBy(SumdokuGrid playedGrid){
-        
-        // Because we only have one possible solution for this puzzle, we will find it using the SumdokuSolver class
-        SumdokuSolver sumdokuSolver = new SumdokuSolver(this.groupMembership, this.groupsValues);
-        int[][] solution = sumdokuSolver.findSolutions(1)[0];
-        
-        
-        /* After investigating the documentation of SumdokuSolver's class, I can
-         * suppose that the method 'findSolutions' returns a three-dimension
-         * matrix instead of a two-dimension because the first one is to indicate
-         * which of the solutions we're talking about. That's why I suppose that
-         * if we have the index 0 in the first dimension, we're referring to the
-         * first and, in this case, only possible solution. */
-        // Now, we must compare each value of the playedGrid with the ones in the solution
-
-        if (!hasSameValues(playedGrid, solution)){
-            return false; // If the values of the matrix and SumdokuGrid are different, we return false
+
+        // If the grid follows this puzzle (check the constructor 'SumdokuGrid(SumdokuPuzzle)'), it already knows the answer
+        if (playedGrid.tracks(this)){
+            return playedGrid.isSolved();
         }
         
+        // Because we only have one possible solution for this puzzle, we compare the playedGrid with it
+        // The solution is only searched the first time, after that we just read it (check the function 'solution')
+        if (!hasSameValues(playedGrid, solution())){
+            return false; // If the values of the solution and SumdokuGrid are different, we return false
+        }
+
         return true; // If everything went smoothly, the playedGrid solves the puzzle
     }
 
+    /**
+     * Retrieves the unique solution of the puzzle, stored row by row with one byte per cell.
+     * 
+     * The solution is found with our solver engine (check the function {@code solverFor}) only the first time this function is called,
+     * the following calls (from any thread) return the same array without searching again. The solution is also kept in
+     * the {@code SumdokuSolutionCache}, so other objects of the same puzzle don't search it again.
+     *
+     * @requires {@code definesPuzzle(groupMembership, groupsValues)} (i.e., the puzzle has exactly one solution)
+     * @return an array of length {@code size() * size()} where the position {@code (r - 1) * size() + (c - 1)} has the value of the cell in row r and column c
+     */
+    private byte[] solution(){
+
+        // We first read the attribute only once, because another thread might be writing it
+        byte[] result = this.solution;
+
+        if (result == null){
+            synchronized (this){
+
+                // We must check again, because another thread could have found the solution while we were waiting
+                result = this.solution;
+
+                // Another object of the same puzzle may have found the solution before (check the class 'SumdokuSolutionCache')
+                if (result == null){
+                    result = SumdokuSolutionCache.get(this);
+                    if (result != null)
+                        this.solution = result;
+                }
+
+                if (result == null){
+                    /* The method 'findSolutions' returns a three-dimension matrix instead of a
+                     * two-dimension one because the first dimension indicates which of the
+                     * solutions we're talking about. With the index 0 we're referring to the
+                     * first and, in this case, only possible solution. */
+                    SumdokuSolverEngine solver = solverFor(this.bitboard);
+                    int[][] found = solver.findSolutions(1)[0];
+                    solverCalls.incrementAndGet();
+
+                    // We store it in a compact way: one byte per cell (values are never bigger than 9)
+                    result = new byte[this.puzzleSize * this.puzzleSize];
+                    for (int r = 0; r < this.puzzleSize; r++){
+                        for (int c = 0; c < this.puzzleSize; c++){
+                            result[r * this.puzzleSize + c] = (byte) found[r][c];
+                        }
+                    }
+
+                    this.solution = result;
+                    SumdokuSolutionCache.put(this, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Retrieves how many times a solver was used to find the solution of any puzzle.
+     *
+     * @return the number of solver calls made by every {@code SumdokuPuzzle} until now
+     */
+    static long solverCalls(){
+        return solverCalls.get();
+    }
+
     /**
      * Compares the values in the given {@code playedGrid} with the provided solution grid.
      *
      * @param playedGrid the {@code SumdokuGrid} representing the played grid
-     * @param solution a two-dimensional integer array representing the solution grid
-     * @requires {@code playedGrid} must not be null and must have the same dimensions as {@code solution}.
+     * @param solution a one-dimensional array representing the solution grid row by row (check the function 'solution')
+     * @requires {@code playedGrid} must not be null and must have the same dimensions as the puzzle.
      * @return {@code true} if all corresponding values in {@code playedGrid} and {@code solution} are the same; {@code false} otherwise.
      */
-    private boolean hasSameValues(SumdokuGrid playedGrid, int[][] solution){
+    private boolean hasSameValues(SumdokuGrid playedGrid, byte[] solution){
         
-        // We'll compare each position of the SumdokuGrid with each position of the solution
-        for (int r = 0; r < this.puzzleSize; r++){
-            for (int c = 0; c < this.puzzleSize; c++){
-
-                // If the values are different, we'll return false
-                if (playedGrid.value(r + 1, c + 1) != solution[r][c])
-                    return false;
-            }
-        }
-
-        return true; // If everything went smoothly, we have the same values
+        // The grid compares its cells directly with the solution (without creating anything or using 1-indexed positions)
+        return playedGrid.hasValues(solution);
     }
 
 
@@ -368,40 +480,167 @@ public class SumdokuPuzzle{
         
         // We'll use the same process than in 'isSolvedBy' but adding 0 as an excluded value of the funtion 'hasSameValues'
         // Because 0 is the default value in the SumdokuGrid, meaning the user hasn't filled the cell yet
-        SumdokuSolver sumdokuSolver = new SumdokuSolver(this.groupMembership, this.groupsValues);
-        int[][] solution = sumdokuSolver.findSolutions(1)[0];
-
-        if (!hasSameValues(playedGrid, solution, 0)){
+        if (!hasSameValues(playedGrid, solution(), 0)){
             return false; // If the values of the matrix and SumdokuGrid are different, we return false
         }
 
         return true; // If everything went smoothly, the playedGrid solves the puzzle
     }
 
+    /**
+     * Finds everything that is wrong in the given {@code playedGrid}: the filled cells with a value different from the solution
+     * and the groups whose filled cells already exceed the group's sum or can't reach it with the cells left empty.
+     *
+     * The grid keeps the answer of the last call (for this puzzle) and marks the cells changed since then, so only those
+     * cells and their groups are checked again (check the class {@code SumdokuConflictChecker})
+     *
+     * @param playedGrid the {@code SumdokuGrid} representing the played grid
+     * @requires {@code playedGrid} must not be null and must have the same dimensions as the puzzle.
+     * @return the wrong cells and groups of the {@code playedGrid}
+     */
+    public SumdokuConflicts conflicts(SumdokuGrid playedGrid){
+        SumdokuConflictChecker checker = playedGrid.checker();
+
+        // The first time (or after checking another puzzle) we start with an empty grid and every cell changed
+        if (checker == null || checker.puzzle() != this){
+            checker = new SumdokuConflictChecker(this, solution());
+            playedGrid.setChecker(checker);
+            playedGrid.markAllChanged();
+        }
+
+        return checker.check(playedGrid);
+    }
+
+    /**
+     * Finds the next cell the player can deduce from the given grid, with the easiest technique (check the class {@code SumdokuDeduction}).
+     *
+     * Only the cells of the {@code playedGrid} with the right value are used in the deduction (the wrong ones are seen as empty,
+     * so the hint can be about one of them). The grid keeps those cells from the first hint on, updating them on each move,
+     * so the next hints don't go through the grid (as the function {@code conflicts} does with its checker).
+     *
+     * If no cell can be deduced, the hint isn't a deduction: it is the first cell without its right value, with the value
+     * of the solution, and its technique is null
+     *
+     * @param playedGrid the {@code SumdokuGrid} representing the played grid
+     * @requires {@code playedGrid} must not be null and must have the same dimensions as the puzzle.
+     * @return the hint, or null if the {@code playedGrid} already solves the puzzle
+     */
+    public SumdokuHint hint(SumdokuGrid playedGrid){
+        byte[] solution = solution();
+        SumdokuSearchState state = playedGrid.hintCells();
+
+        // The first time (or after a hint of another puzzle) we place every right value of the grid
+        if (state == null || state.bitboard != this.bitboard){
+            state = newSearchState();
+            for (int cell = 0; cell < solution.length; cell++){
+                if (playedGrid.value(cell / this.puzzleSize + 1, cell % this.puzzleSize + 1) == solution[cell])
+                    state.place(cell, solution[cell]);
+            }
+            playedGrid.setHintCells(state, solution);
+        }
+
+        if (state.filled == state.numOfCells)
+            return null; // The grid is already solved
+
+        // The state only has right values, so there is no contradiction and every step agrees with the solution
+        SumdokuDeduction deduction = new SumdokuDeduction(state);
+        if (deduction.findStep()){
+            return new SumdokuHint(deduction.cell / this.puzzleSize + 1, deduction.cell % this.puzzleSize + 1, deduction.digit, deduction.technique);
+        }
+
+        // No cell is forced, so we give the value of the solution of the first cell that doesn't have it
+        int firstMissing = state.emptyLow != 0 ? Long.numberOfTrailingZeros(state.emptyLow) : 64 + Long.numberOfTrailingZeros(state.emptyHigh);
+        return new SumdokuHint(firstMissing / this.puzzleSize + 1, firstMissing % this.puzzleSize + 1, solution[firstMissing], null);
+    }
+
     /**
      * Compares the values in the given {@code playedGrid} with the provided solution grid, 
      * allowing for an excluded value to be ignored during the comparison
      *
      * @param playedGrid the {@code SumdokuGrid} representing the played grid
-     * @param solution a two-dimensional integer array representing the solution grid
+     * @param solution a one-dimensional array representing the solution grid row by row (check the function 'solution')
      * @param excludedValue the value to be ignored in the comparison
-     * @requires {@code playedGrid} must not be null and must have the same dimensions as {@code solution}.
+     * @requires {@code playedGrid} must not be null and must have the same dimensions as the puzzle.
      * @return {@code true} if all corresponding values in {@code playedGrid} and {@code solution} are the same, 
      *         ignoring positions where either grid contains the {@code excludedValue}. {@code false} otherwise
      */
-    private boolean hasSameValues(SumdokuGrid playedGrid, int[][] solution, int excludedValue){
+    private boolean hasSameValues(SumdokuGrid playedGrid, byte[] solution, int excludedValue){
         
-        // We'll compare each position of the SumdokuGrid with each position of the solution
-        for (int r = 0; r < this.puzzleSize; r++){
-            for (int c = 0; c < this.puzzleSize; c++){
+        // The solution never has the excludedValue (0), so we only need to ignore it in the SumdokuGrid
+        return playedGrid.hasValues(solution, (byte) excludedValue);
+    }
 
-                // If the values are different, we'll return false (except if the excludedValue is in any of both object's position)
-                if (playedGrid.value(r + 1, c + 1) != solution[r][c] && !(playedGrid.value(r + 1, c + 1) == excludedValue || solution[r][c] == excludedValue))
-                    return false;
-            }
+    /**
+     * Checks which of the given grids solve the puzzle.
+     * 
+     * Each grid is compared directly with the solution (found only once, check the function 'solution'), without creating
+     * any object per grid. Big batches are split in blocks of 64 grids (one {@code long} of the result each) that
+     * are checked by several threads at the same time
+     *
+     * @param playedGrids the {@code SumdokuGrid}s to be verified
+     * @requires {@code playedGrids} must not be null and every grid must have the same dimensions as the puzzle.
+     * @return a {@code BitSet} where the bit i is set if the grid in the position i of {@code playedGrids} solves the puzzle
+     */
+    public BitSet areSolvedBy(List<SumdokuGrid> playedGrids){
+        
+        // We use an array because some lists (e.g., LinkedList) are slow to read by position
+        SumdokuGrid[] grids = playedGrids.toArray(new SumdokuGrid[playedGrids.size()]);
+        byte[] solution = solution();
+
+        // Each long keeps the results of 64 grids, so each block is written by a single thread
+        long[] words = new long[(grids.length + 63) / 64];
+        IntStream blocks = IntStream.range(0, words.length);
+
+        if (grids.length >= PARALLEL_BATCH)
+            blocks = blocks.parallel();
+
+        blocks.forEach(block -> words[block] = solvedBlock(grids, block, solution));
+
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Checks which of the given grids solve the puzzle (the same as {@code areSolvedBy(List)} but reading
+     * the grids one by one from a stream, in a single thread).
+     *
+     * @param playedGrids the {@code SumdokuGrid}s to be verified
+     * @requires {@code playedGrids} must not be null and every grid must have the same dimensions as the puzzle.
+     * @return a {@code BitSet} where the bit i is set if the i-th grid of {@code playedGrids} solves the puzzle
+     */
+    public BitSet areSolvedBy(Stream<SumdokuGrid> playedGrids){
+        BitSet result = new BitSet();
+        byte[] solution = solution();
+        
+        // We go through the grids in their order, keeping the position of each one
+        Iterator<SumdokuGrid> grids = playedGrids.iterator();
+        for (int i = 0; grids.hasNext(); i++){
+            if (grids.next().hasValues(solution))
+                result.set(i);
         }
 
-        return true; // If everything went smoothly, we have the same values (excluding if there was in any position an excludedValue)
+        return result;
+    }
+
+    /**
+     * Checks which grids of a block of 64 solve the puzzle.
+     *
+     * @param grids every grid of the batch
+     * @param block the number of the block (the block b has the grids from 64 * b to 64 * b + 63)
+     * @param solution the solution of the puzzle (check the function 'solution')
+     * @requires {@code 0 <= block} and {@code 64 * block < grids.length}
+     * @return a {@code long} where the bit i is 1 if the grid 64 * block + i solves the puzzle
+     */
+    private static long solvedBlock(SumdokuGrid[] grids, int block, byte[] solution){
+        long result = 0;
+        int start = block * 64;
+        int end = Math.min(start + 64, grids.length);
+
+        for (int i = start; i < end; i++){
+            if (grids[i].hasValues(solution))
+                result |= 1L << (i - start);
+        }
+
+        return result;
     }
 
 
@@ -411,204 +650,224 @@ public class SumdokuPuzzle{
      * @return a {@code String} representing the puzzle's group membership followed by the groups values as clues.
      */
     public String cluesToString(){
-        
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder(); 
 
-        // We add the matrix with the groups corresponding to each cell to the result (we must increment 1 to every value of the group membership)
-        result.append(matrixToString(this.groupMembership, " ", 1)); // Note that these two addittional arguments will be explained on the function's javadoc
-        
-        // We add a line break
-        result.append("\n");
-
-        // We now add the groups clues
-        result.append(groupsClues(this.groupsValues));
+        // We write the clues in a StringBuilder with room for all of them (check the function 'writeClues')
+        StringBuilder result = new StringBuilder(this.puzzleSize * (3 * this.puzzleSize + 2) + 11 * this.numOfGroups + 1);
+        writeClues(result);
 
         // We finally return our result converted to a String
         return result.toString();
     }
 
     /**
-     * Converts a two-dimension integer-only matrix into a string representation, with each element modified by a specified incrementation.
-     * Each row is prefixed with a starting mark and followed by the transformed values.
+     * Writes the puzzle clues (the same text of {@code cluesToString}) straight into {@code out},
+     * without creating any intermediate {@code String} (useful to send them to a {@code Writer} or a reused buffer).
      *
-     * @param matrix a two-dimensional integer-only matrix to be converted into a string
-     * @param startingMark the string to prefix each row of the matrix
-     * @param incrementation the value to add to each element when converting it to a string
-     * @requires {@code matrix} must not be null, must be a valid two-dimension matrix and must have at least one value
-     * @return a {@code String} representing the matrix with the starting mark and the incremented values of each element.
+     * @param out where the clues are written
+     * @requires {@code out != null}
+     * @throws IOException if {@code out} can't be written
      */
-    private String matrixToString(int[][] matrix, String startingMark, int incrementation){
+    public void writeClues(Appendable out) throws IOException{
 
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder(); // Note that we won't do a line break at the start, as indicated in our project instructions
+        // We write the matrix with the groups corresponding to each cell (we must increment 1 to every value of the group membership)
+        writeMatrix(out, this.bitboard.cellGroup, this.puzzleSize, ' ', 1); // Note that these two addittional arguments will be explained on the function's javadoc
 
-        // First, we'll add the first row, that it's always there
-        result.append(startingMark);
-        result.append(arrayToString(matrix[0], incrementation));
+        // We write a line break
+        out.append('\n');
 
-        // We'll now add the rest of the rows with a line break, a starting mark and the row with our incrementation on each value (using 'arrayToString')
-        for (int r = 1; r < matrix.length; r++){
-            result.append("\n");
-            result.append(startingMark);
-            result.append(arrayToString(matrix[r], incrementation));
+        // We now write the groups clues
+        writeGroupsClues(out, this.bitboard.groupTarget);
+    }
+
+    /**
+     * Writes the puzzle clues into a {@code StringBuilder} (the same as {@code writeClues(Appendable)}, but a
+     * {@code StringBuilder} never fails, so there is no {@code IOException}).
+     *
+     * @param out where the clues are written
+     * @requires {@code out != null}
+     */
+    public void writeClues(StringBuilder out){
+        try {
+            writeClues((Appendable) out);
+        } catch (IOException e){
+            throw new UncheckedIOException(e); // It never happens with a StringBuilder
         }
+    }
 
-        // We finally return our result converted to a String
-        return result.toString();
+    /**
+     * Writes a square matrix kept row by row in a flat array, with each element modified by a specified incrementation.
+     * Each row is prefixed with a starting mark and followed by the transformed values.
+     *
+     * @param out where the matrix is written
+     * @param cells the elements of the matrix, row by row
+     * @param size the number of rows (and of columns) of the matrix
+     * @param startingMark the character to prefix each row of the matrix
+     * @param incrementation the value to add to each element when writing it
+     * @requires {@code cells} must not be null, {@code size > 0} and {@code cells.length == size * size}
+     * @throws IOException if {@code out} can't be written
+     */
+    private static void writeMatrix(Appendable out, byte[] cells, int size, char startingMark, int incrementation) throws IOException{
+
+        // We write every row with a starting mark, and a line break between them (we won't do a line break at the start, as indicated in our project instructions)
+        for (int r = 0; r < size; r++){
+            if (r > 0)
+                out.append('\n');
+            out.append(startingMark);
+            writeArray(out, cells, r * size, (r + 1) * size, incrementation);
+        }
     }
 
     /**
-     * Converts a one-dimensional integer-only array into a string representation, 
-     * with each element incremented by a specified value
+     * Writes a part of a one-dimensional array, with each element incremented by a specified value
      *
-     * @param array a one-dimensional integer array to be converted into a string
+     * @param out where the array is written
+     * @param array a one-dimensional array to be written
+     * @param from the position of the first element to be written
+     * @param to the position after the last element to be written
      * @param incrementation the value to add to each element in the array
-     * @requires {@code array} must not be null, must be a valid array and must contain at least one element.
-     * @return a {@code String} representing the array with each element incremented by the specified value
+     * @requires {@code array} must not be null and {@code 0 <= from < to <= array.length}
+     * @throws IOException if {@code out} can't be written
      */
-    private String arrayToString(int[] array, int incrementation){
-
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder(); 
+    private static void writeArray(Appendable out, byte[] array, int from, int to, int incrementation) throws IOException{
 
-        // We append the first value, that is always there (always doing the given incrementation)
-        result.append(array[0] + incrementation);
+        // We write the first value, that is always there (always doing the given incrementation)
+        writeNumber(out, array[from] + incrementation);
 
-        // Now, we can append the other values of the array (this time with a space before the value)
-        for (int i = 1; i < array.length; i++){
-            result.append(" ");
-            result.append(array[i] + incrementation);
+        // Now, we can write the other values of the array (this time with a space before the value)
+        for (int i = from + 1; i < to; i++){
+            out.append(' ');
+            writeNumber(out, array[i] + incrementation);
         }
-
-        // We finally return our result converted to a String
-        return result.toString();
     }
 
     /**
-     * Converts the groups values into a string of clues, with each clue separated by a space.
+     * Writes the groups values as clues, with each clue followed by a space, formatted as "G<group> = <value>".
      *
+     * @param out where the clues are written
      * @param groupsValues an array of integers representing the sum values of each group
      * @requires {@code groupsValues} must not be null and must contain at least one element.
-     * @return a {@code String} representing the group clues, each separated by a space.
+     * @throws IOException if {@code out} can't be written
      */
-    private String groupsClues(int[] groupsValues){
-
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder();
+    private static void writeGroupsClues(Appendable out, int[] groupsValues) throws IOException{
 
-        // We can append the clues of every group
+        // We can write the clues of every group
         for (int g = 1; g <= groupsValues.length; g++){
-            result.append(groupClue(groupsValues, g));
-            result.append(" ");
+            out.append('G');
+            writeNumber(out, g);
+            out.append(" = ");
+            writeNumber(out, groupsValues[g-1]); // We must subtract 1 because the position with a certain index is about the group with that index plus 1
+            out.append(' ');
         }
 
         // Following the project tests, we must end with a line break
-        result.append("\n");
-
-        // We finally return our result converted to a String
-        return result.toString();
+        out.append('\n');
     }
 
     /**
-     * Creates a string representation of a group clue, formatted as "G<group> = <value>".
+     * Writes the decimal digits of a number, one character at a time (so no {@code String} is created for it).
      *
-     * @param groupsValues an array of integers representing the values of each group
-     * @param group the group number (starting from 1)
-     * @requires {@code groupsValues} must not be null, must contain at least {@code group} elements, and {@code group > 0}
-     * @return a {@code String} representing the clue for the specified group in the format "G<group> = <value>".
+     * @param out where the number is written
+     * @param number the number
+     * @requires {@code number >= 0}
+     * @throws IOException if {@code out} can't be written
      */
-    private String groupClue(int[] groupsValues, int group){
-
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder("G"); // We already put the prefix of our clue: 'G'
-
-        // Now, we add the group number
-        result.append(group);
+    private static void writeNumber(Appendable out, int number) throws IOException{
 
-        // We add the equal sign and spaces
-        result.append(" = ");
+        // We find the biggest power of 10 not bigger than the number, and then write the digits from the left
+        int power = 1;
+        while (power <= number / 10){
+            power *= 10;
+        }
+        for (; power > 0; power /= 10){
+            out.append((char) ('0' + number / power % 10));
+        }
+    }
 
-        // We add the corresponding value of our group
-        result.append(groupsValues[group-1]); // We must subtract 1 because the position with a certain index is about the group with that index plus 1
 
-        // We finally return our result converted to a String
-        return result.toString();
+    /**
+     * Checks if another object is a puzzle with the same groups and the same sums (in the same positions and order).
+     * Equivalent puzzles with, for example, the rows in another order are different (check the function {@code canonicalForm}).
+     *
+     * @param other the object to be compared
+     * @return {@code true} if {@code other} is a {@code SumdokuPuzzle} with the same membership and values, {@code false} otherwise
+     */
+    public boolean equals(Object other){
+        if (this == other)
+            return true;
+        if (!(other instanceof SumdokuPuzzle))
+            return false;
+
+        // The puzzles never change, so different hash codes mean different puzzles (without going through the arrays)
+        SumdokuPuzzle puzzle = (SumdokuPuzzle) other;
+        return hashCode() == puzzle.hashCode()
+            && Arrays.equals(this.bitboard.groupTarget, puzzle.bitboard.groupTarget)
+            && Arrays.equals(this.bitboard.cellGroup, puzzle.bitboard.cellGroup);
     }
 
+    /**
+     * Retrieves the hash code of the puzzle (consistent with {@code equals}).
+     *
+     * @return the hash code (it is computed only once)
+     */
+    public int hashCode(){
+        // As in 'String.hashCode', two threads may compute it at the same time, but they store the same value
+        int result = this.hash;
+        if (result == 0){
+            result = 31 * Arrays.hashCode(this.bitboard.cellGroup) + Arrays.hashCode(this.bitboard.groupTarget);
+            this.hash = result;
+        }
+        return result;
+    }
 
     /**
      * Returns a string representation of the Sumdoku puzzle (i.e., the solution of the puzzle)
-     * The puzzle is solved using the {@code SumdokuSolver} class and then formatted as a string
-     * using the {@code matrixToString} method.
+     * The solution is the one cached by the function {@code solution} and then written by the function {@code writeTo}.
      *
      * @return a {@code String} representing the solved puzzle in matrix form.
      */
     public String toString(){
-        
+
         /*
          * In order to display the SumdokuPuzzle, we're going to find the solution, based
          * on the information we have (check the function 'isSolvedBy' to get additional
-         * information), and we're going to return it as a String with the help of a 
-         * slightly modified previously created function: 'matrixToString'
+         * information), and we're going to write it in a StringBuilder with the function 'writeTo'
         */
-
-        // Because we only have one possible solution for this puzzle, we will find it using the SumdokuSolver class
-        SumdokuSolver sumdokuSolver = new SumdokuSolver(this.groupMembership, this.groupsValues);
-        int[][] solution = sumdokuSolver.findSolutions(1)[0];
-
-        // We'll now return the matrix with the solution of the puzzle, so basically: the puzzle
-        return matrixToString(solution);
-    }
-
-    /**
-     * Converts a two-dimension integer-only matrix into a string representation
-     *
-     * @param matrix a two-dimensional integer-only matrix to be converted into a string
-     * @requires {@code matrix} must not be null, must be a valid two-dimension matrix and must have at least one value
-     * @return a {@code String} representing the matrix
-     */
-    private String matrixToString(int[][] matrix){
-
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder(); // Note that we won't do a line break at the start, as indicated in our project instructions
-
-        // First, we'll add the first row, that it's always there
-        result.append(arrayToString(matrix[0]));
-
-        // We'll now add the rest of the rows with a line break and the row (using 'arrayToString')
-        for (int r = 1; r < matrix.length; r++){
-            result.append("\n");
-            result.append(arrayToString(matrix[r]));
+        StringBuilder result = new StringBuilder(this.puzzleSize * 2 * this.puzzleSize);
+        try {
+            writeTo(result);
+        } catch (IOException e){
+            throw new UncheckedIOException(e); // It never happens with a StringBuilder
         }
 
-        // We finally return our result converted to a String
+        // We'll now return the matrix with the solution of the puzzle, so basically: the puzzle
         return result.toString();
     }
 
     /**
-     * Converts a one-dimensional integer-only array into a string representation
+     * Writes the solution of the puzzle (the same text of {@code toString}) straight into {@code out},
+     * without creating any intermediate {@code String}.
      *
-     * @param array a one-dimensional integer array to be converted into a string
-     * @requires {@code array} must not be null, must be a valid array and must contain at least one element.
-     * @return a {@code String} representing the array
+     * @param out where the solution is written
+     * @requires {@code out != null}
+     * @throws IOException if {@code out} can't be written
      */
-    private String arrayToString(int[] array){
+    public void writeTo(Appendable out) throws IOException{
+        byte[] cells = solution();
 
-        // We'll first create a StringBuilder that we'll be editing throught this function
-        StringBuilder result = new StringBuilder(); 
+        // We'll write every row, with a line break between them (but not before the first one, as indicated in our project instructions)
+        for (int r = 0; r < this.puzzleSize; r++){
+            if (r > 0)
+                out.append('\n');
 
-        // We append the first value, that is always there
-        result.append(array[0]);
+            // We write the first value of the row, that is always there
+            out.append((char) ('0' + cells[r * this.puzzleSize]));
 
-        // Now, we can append the other values of the array (this time with a space before the value)
-        for (int i = 1; i < array.length; i++){
-            result.append(" ");
-            result.append(array[i]);
+            // Now, we can write the other values of the row (this time with a space before the value)
+            for (int c = 1; c < this.puzzleSize; c++){
+                out.append(' ');
+                out.append((char) ('0' + cells[r * this.puzzleSize + c]));
+            }
         }
-
-        // We finally return our result converted to a String
-        return result.toString();
     }
 
 /*-------------------NOTE 1------------------------
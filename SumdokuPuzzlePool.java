@@ -0,0 +1,323 @@
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@code SumdokuPuzzlePool} consists in the class which keeps a set of puzzles, by size and by difficulty band,
+ * shared by every player
+ *
+ * The pool never changes after it is built, so any number of threads can use it. The puzzles of each size are kept
+ * in a single array sorted by band, so each band is a range of that array. Each player has a {@code Session}, which shuffles
+ * each band as it draws (as {@code Collections.shuffle}, one puzzle at a time), instead of keeping its own shuffled copy of the puzzles
+ *
+ * The puzzles not drawn yet of a band are the first positions of its range, in a permutation where only the positions that
+ * were swapped are kept (in a small hash table of ints), so a session only keeps what it has drawn. A draw chooses one of those positions at random,
+ * takes its puzzle and puts there the puzzle of the last one, so each puzzle not seen has the same chance and a draw
+ * doesn't depend on the number of puzzles
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuPuzzlePool {
+
+    // The sizes of the puzzles we support (the same limits of 'SumdokuPuzzle.definesPuzzle')
+    private static final int MIN_SIZE = 3;
+    private static final int MAX_SIZE = 9;
+
+    private static final int NUM_OF_BANDS = SumdokuDifficulty.values().length;
+
+    private final SumdokuPuzzle[][] puzzles = new SumdokuPuzzle[MAX_SIZE + 1][]; // The puzzles of each size, sorted by band
+    private final int[][] bandStart = new int[MAX_SIZE + 1][]; // Where each band starts in the array of each size (with the end at the last position)
+
+    /**
+     * Creates a pool with the given puzzles, rating each one to find its band (with several threads if there are many).
+     * The ratings have a budget of search nodes, not of time, so each puzzle is always in the same band.
+     *
+     * @param puzzles the puzzles, of any sizes between 3 and 9
+     * @requires {@code puzzles != null}
+     */
+    public SumdokuPuzzlePool(List<SumdokuPuzzle> puzzles){
+        SumdokuRating[] ratings = SumdokuRater.rateAllWithinNodes(puzzles, SumdokuDifficulty.HARD_SEARCH_NODES);
+
+        SumdokuDifficulty[] bands = new SumdokuDifficulty[ratings.length];
+        for (int i = 0; i < ratings.length; i++){
+            bands[i] = SumdokuDifficulty.of(ratings[i]);
+        }
+
+        build(puzzles, bands);
+    }
+
+    /**
+     * Creates a pool with the given puzzles and their bands (for puzzles that were already rated).
+     *
+     * @param puzzles the puzzles, of any sizes between 3 and 9
+     * @param bands the band of each puzzle
+     * @requires {@code puzzles != null && bands != null && puzzles.size() == bands.length}
+     */
+    public SumdokuPuzzlePool(List<SumdokuPuzzle> puzzles, SumdokuDifficulty[] bands){
+        build(puzzles, bands);
+    }
+
+    /**
+     * Puts every puzzle in the array of its size, in the range of its band (a counting sort).
+     *
+     * @param list the puzzles
+     * @param bands the band of each puzzle
+     */
+    private void build(List<SumdokuPuzzle> list, SumdokuDifficulty[] bands){
+
+        // We count the puzzles of each size and band
+        int[][] counts = new int[MAX_SIZE + 1][NUM_OF_BANDS];
+        for (int i = 0; i < bands.length; i++){
+            counts[list.get(i).size()][bands[i].ordinal()]++;
+        }
+
+        // Each band starts after the previous ones
+        int[][] next = new int[MAX_SIZE + 1][NUM_OF_BANDS];
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++){
+            this.bandStart[size] = new int[NUM_OF_BANDS + 1];
+            for (int band = 0; band < NUM_OF_BANDS; band++){
+                this.bandStart[size][band + 1] = this.bandStart[size][band] + counts[size][band];
+                next[size][band] = this.bandStart[size][band];
+            }
+            this.puzzles[size] = new SumdokuPuzzle[this.bandStart[size][NUM_OF_BANDS]];
+        }
+
+        for (int i = 0; i < bands.length; i++){
+            int size = list.get(i).size();
+            this.puzzles[size][next[size][bands[i].ordinal()]++] = list.get(i);
+        }
+    }
+
+    /**
+     * Retrieves the number of puzzles of the given size.
+     *
+     * @param size the size of the puzzles
+     * @return the number of puzzles (0 if the size isn't supported)
+     */
+    public int count(int size){
+        return size < MIN_SIZE || size > MAX_SIZE ? 0 : this.puzzles[size].length;
+    }
+
+    /**
+     * Retrieves the number of puzzles of the given size and band.
+     *
+     * @param size the size of the puzzles
+     * @param band the difficulty band
+     * @requires {@code band != null}
+     * @return the number of puzzles (0 if the size isn't supported)
+     */
+    public int count(int size, SumdokuDifficulty band){
+        if (size < MIN_SIZE || size > MAX_SIZE)
+            return 0;
+        return this.bandStart[size][band.ordinal() + 1] - this.bandStart[size][band.ordinal()];
+    }
+
+    /**
+     * Retrieves a puzzle of the pool (the puzzles of each size are sorted by band, check {@code count(int, SumdokuDifficulty)}).
+     *
+     * @param size the size of the puzzle
+     * @param index the position of the puzzle among the ones of the same size
+     * @requires {@code 0 <= index < count(size)}
+     * @return the puzzle
+     */
+    public SumdokuPuzzle puzzle(int size, int index){
+        return this.puzzles[size][index];
+    }
+
+    /**
+     * Creates the state of a new player, who hasn't seen any puzzle yet.
+     *
+     * @return the new session
+     */
+    public Session newSession(){
+        return new Session();
+    }
+
+    /**
+     * The {@code Session} consists in the puzzles a player has already seen, as the part of each band already shuffled.
+     * A session belongs to a single player, so it shouldn't be used by several threads at the same time.
+     */
+    public final class Session {
+
+        private final int[][] drawn = new int[MAX_SIZE + 1][NUM_OF_BANDS]; // How many puzzles of each band were drawn
+
+        // The puzzle of each swapped position, in a hash table with linear probing (the key 0 marks an empty entry,
+        // and the keys are never 0, check the function 'key'). A position is never read after it leaves the part
+        // not drawn of its band, so its entry is never removed, and there is at most one entry per draw
+        private int[] swappedKeys = new int[16];
+        private int[] swappedPuzzles = new int[16];
+        private int swappedCount;
+
+        /**
+         * Only the pool creates sessions.
+         */
+        private Session(){
+        }
+
+        /**
+         * Checks if the player hasn't seen some puzzle of the given size.
+         *
+         * @param size the size of the puzzles
+         * @return {@code true} if there is a puzzle to draw, {@code false} otherwise
+         */
+        public boolean hasNext(int size){
+            return remaining(size, 0, NUM_OF_BANDS) > 0;
+        }
+
+        /**
+         * Checks if the player hasn't seen some puzzle of the given size and band.
+         *
+         * @param size the size of the puzzles
+         * @param band the difficulty band
+         * @requires {@code band != null}
+         * @return {@code true} if there is a puzzle to draw, {@code false} otherwise
+         */
+        public boolean hasNext(int size, SumdokuDifficulty band){
+            return remaining(size, band.ordinal(), band.ordinal() + 1) > 0;
+        }
+
+        /**
+         * Draws a random puzzle of the given size that the player hasn't seen (and marks it as seen).
+         *
+         * @param size the size of the puzzles
+         * @return the puzzle, or null if the player has seen every puzzle of that size
+         */
+        public SumdokuPuzzle next(int size){
+            return draw(size, 0, NUM_OF_BANDS);
+        }
+
+        /**
+         * Draws a random puzzle of the given size and band that the player hasn't seen (and marks it as seen).
+         *
+         * @param size the size of the puzzles
+         * @param band the difficulty band
+         * @requires {@code band != null}
+         * @return the puzzle, or null if the player has seen every puzzle of that size and band
+         */
+        public SumdokuPuzzle next(int size, SumdokuDifficulty band){
+            return draw(size, band.ordinal(), band.ordinal() + 1);
+        }
+
+        /**
+         * Counts the puzzles not seen in the given bands.
+         *
+         * @param size the size of the puzzles
+         * @param firstBand the first band
+         * @param endBand the band after the last one
+         * @return the number of puzzles not seen
+         */
+        private int remaining(int size, int firstBand, int endBand){
+            if (size < MIN_SIZE || size > MAX_SIZE)
+                return 0;
+
+            int result = bandStart[size][endBand] - bandStart[size][firstBand];
+            for (int band = firstBand; band < endBand; band++){
+                result -= this.drawn[size][band];
+            }
+            return result;
+        }
+
+        /**
+         * Draws a random puzzle not seen in the range of the given bands and marks it as seen.
+         *
+         * @param size the size of the puzzles
+         * @param firstBand the first band
+         * @param endBand the band after the last one
+         * @return the puzzle, or null if every puzzle was seen
+         */
+        private SumdokuPuzzle draw(int size, int firstBand, int endBand){
+            int left = remaining(size, firstBand, endBand);
+            if (left == 0)
+                return null;
+
+            // We choose one of the puzzles not seen, and then the band where it is
+            int chosen = ThreadLocalRandom.current().nextInt(left);
+            int band = firstBand;
+            while (chosen >= remaining(size, band, band + 1)){
+                chosen -= remaining(size, band, band + 1);
+                band++;
+            }
+
+            // The puzzles not seen of the band are in its first positions, so the last of them takes the place of the chosen one
+            int slot = bandStart[size][band] + chosen;
+            int last = bandStart[size][band] + remaining(size, band, band + 1) - 1;
+            int position = swapped(key(size, slot), slot);
+            if (slot != last)
+                swap(key(size, slot), swapped(key(size, last), last));
+
+            this.drawn[size][band]++;
+            return puzzles[size][position];
+        }
+
+        /**
+         * Finds the key of a position of the array of a size in the table of the swapped positions.
+         *
+         * @param size the size of the puzzles
+         * @param position the position
+         * @return the key, different for each size and position (and never 0)
+         */
+        private int key(int size, int position){
+            return position * (MAX_SIZE + 1) + size;
+        }
+
+        /**
+         * Finds the entry of a key in the table of the swapped positions.
+         *
+         * @param key the key
+         * @return the index of the entry with the key, or of the empty entry where it would be
+         */
+        private int entry(int key){
+            int mask = this.swappedKeys.length - 1; // The length is a power of 2
+            int hash = key * 0x9E3779B9;
+            int index = (hash ^ hash >>> 16) & mask;
+            while (this.swappedKeys[index] != 0 && this.swappedKeys[index] != key){
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        /**
+         * Retrieves the position of the puzzle kept in a position of the permutation.
+         *
+         * @param key the key of the position (check the function {@code key})
+         * @param position the position
+         * @return the position of the puzzle in the array of its size ({@code position} if it was never swapped)
+         */
+        private int swapped(int key, int position){
+            int index = entry(key);
+            return this.swappedKeys[index] == 0 ? position : this.swappedPuzzles[index];
+        }
+
+        /**
+         * Keeps the puzzle of a position of the permutation, making the table bigger if it is half full.
+         *
+         * @param key the key of the position (check the function {@code key})
+         * @param puzzle the position of the puzzle in the array of its size
+         */
+        private void swap(int key, int puzzle){
+            if (2 * (this.swappedCount + 1) > this.swappedKeys.length){
+                int[] keys = this.swappedKeys;
+                int[] puzzles = this.swappedPuzzles;
+                this.swappedKeys = new int[2 * keys.length];
+                this.swappedPuzzles = new int[2 * keys.length];
+                for (int i = 0; i < keys.length; i++){
+                    if (keys[i] != 0){
+                        int index = entry(keys[i]);
+                        this.swappedKeys[index] = keys[i];
+                        this.swappedPuzzles[index] = puzzles[i];
+                    }
+                }
+            }
+
+            int index = entry(key);
+            if (this.swappedKeys[index] == 0){
+                this.swappedKeys[index] = key;
+                this.swappedCount++;
+            }
+            this.swappedPuzzles[index] = puzzle;
+        }
+    }
+}
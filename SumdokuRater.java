@@ -0,0 +1,236 @@
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code SumdokuRater} consists in the class which rates how hard a Sumdoku puzzle is for a player
+ *
+ * The puzzle is solved like a player would: at each step we place the cell found with the easiest technique
+ * (check the class {@code SumdokuDeduction}). If no cell is forced anymore, the rest of the puzzle is searched
+ * and we count the search nodes. Everything is kept in a {@code SumdokuRating}
+ *
+ * Each rating has a time budget: when it is reached, the search stops and the rating is marked as unfinished,
+ * so one very hard puzzle doesn't stop a batch of millions of puzzles. It can also have a budget of search nodes instead
+ * (check the function {@code rateWithinNodes}), which always stops at the same point, whatever the machine and its load
+ *
+ * 		Compile: javac SumdokuRater.java
+ * 		Execute: java  SumdokuRater [size] [puzzles] [budget in ms]
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuRater {
+
+    public static final long NO_BUDGET = Long.MAX_VALUE;
+
+    // From this number of puzzles on, 'rateAll' rates the puzzles with several threads
+    private static final int PARALLEL_BATCH = 64;
+
+    // The search only looks at the clock once every this number of nodes (reading it is slower than a node)
+    private static final int CLOCK_INTERVAL = 256;
+
+    private final long deadline; // The moment (in System.nanoTime) when the search stops (NO_BUDGET if it never stops)
+    private final long maxSearchNodes; // The number of search nodes after which the search stops (NO_BUDGET if it never stops)
+    private long searchNodes; // The number of search nodes so far
+    private boolean finished = true; // If the search didn't reach the deadline
+
+    /**
+     * Creates the rater of a single puzzle.
+     *
+     * @param budgetNanos the time budget of the rating
+     * @param maxSearchNodes the budget of search nodes of the rating
+     */
+    private SumdokuRater(long budgetNanos, long maxSearchNodes){
+        this.deadline = budgetNanos == NO_BUDGET ? NO_BUDGET : System.nanoTime() + budgetNanos;
+        this.maxSearchNodes = maxSearchNodes;
+    }
+
+    /**
+     * Rates the given puzzle without a time budget.
+     *
+     * @param puzzle the puzzle
+     * @requires {@code puzzle != null}
+     * @return the rating of the puzzle
+     */
+    public static SumdokuRating rate(SumdokuPuzzle puzzle){
+        return rate(puzzle, NO_BUDGET);
+    }
+
+    /**
+     * Rates the given puzzle, stopping when the time budget is reached.
+     *
+     * @param puzzle the puzzle
+     * @param budgetNanos the time budget, in nanoseconds ({@code NO_BUDGET} for no limit)
+     * @requires {@code puzzle != null && budgetNanos > 0}
+     * @return the rating of the puzzle (check {@code SumdokuRating.isFinished})
+     */
+    public static SumdokuRating rate(SumdokuPuzzle puzzle, long budgetNanos){
+        return rate(puzzle, budgetNanos, NO_BUDGET);
+    }
+
+    /**
+     * Rates the given puzzle, stopping when the search reaches the given number of nodes. Unlike the time budget,
+     * the rating of a puzzle is always the same (so it can be used to sort the puzzles, as in {@code SumdokuPuzzlePool}).
+     *
+     * @param puzzle the puzzle
+     * @param maxSearchNodes the budget of search nodes ({@code NO_BUDGET} for no limit)
+     * @requires {@code puzzle != null && maxSearchNodes >= 0}
+     * @return the rating of the puzzle (it is unfinished if the search needed more nodes, check {@code SumdokuRating.isFinished})
+     */
+    public static SumdokuRating rateWithinNodes(SumdokuPuzzle puzzle, long maxSearchNodes){
+        return rate(puzzle, NO_BUDGET, maxSearchNodes);
+    }
+
+    /**
+     * Rates the given puzzle, stopping when one of the budgets is reached.
+     *
+     * @param puzzle the puzzle
+     * @param budgetNanos the time budget, in nanoseconds ({@code NO_BUDGET} for no limit)
+     * @param maxSearchNodes the budget of search nodes ({@code NO_BUDGET} for no limit)
+     * @return the rating of the puzzle
+     */
+    private static SumdokuRating rate(SumdokuPuzzle puzzle, long budgetNanos, long maxSearchNodes){
+        SumdokuRater rater = new SumdokuRater(budgetNanos, maxSearchNodes);
+        SumdokuSearchState state = puzzle.newSearchState();
+        int[] techniqueCounts = new int[SumdokuTechnique.values().length];
+
+        // First, only logical steps (the puzzle has a solution, so there is no contradiction)
+        new SumdokuDeduction(state).applyAll(techniqueCounts);
+
+        // If they weren't enough, we search the rest
+        if (state.filled < state.numOfCells)
+            rater.search(state);
+
+        return new SumdokuRating(techniqueCounts, rater.searchNodes, rater.finished);
+    }
+
+    /**
+     * Rates every given puzzle (with several threads if there are many of them).
+     *
+     * @param puzzles the puzzles
+     * @param budgetNanos the time budget of each puzzle, in nanoseconds ({@code NO_BUDGET} for no limit)
+     * @requires {@code puzzles != null && budgetNanos > 0}
+     * @return the rating of each puzzle, in the same order
+     */
+    public static SumdokuRating[] rateAll(List<SumdokuPuzzle> puzzles, long budgetNanos){
+        return rateAll(puzzles, budgetNanos, NO_BUDGET);
+    }
+
+    /**
+     * Rates every given puzzle with a budget of search nodes (with several threads if there are many of them).
+     *
+     * @param puzzles the puzzles
+     * @param maxSearchNodes the budget of search nodes of each puzzle ({@code NO_BUDGET} for no limit)
+     * @requires {@code puzzles != null && maxSearchNodes >= 0}
+     * @return the rating of each puzzle, in the same order (always the same ones, check {@code rateWithinNodes})
+     */
+    public static SumdokuRating[] rateAllWithinNodes(List<SumdokuPuzzle> puzzles, long maxSearchNodes){
+        return rateAll(puzzles, NO_BUDGET, maxSearchNodes);
+    }
+
+    /**
+     * Rates every given puzzle with the given budgets (with several threads if there are many of them).
+     *
+     * @param puzzles the puzzles
+     * @param budgetNanos the time budget of each puzzle, in nanoseconds ({@code NO_BUDGET} for no limit)
+     * @param maxSearchNodes the budget of search nodes of each puzzle ({@code NO_BUDGET} for no limit)
+     * @return the rating of each puzzle, in the same order
+     */
+    private static SumdokuRating[] rateAll(List<SumdokuPuzzle> puzzles, long budgetNanos, long maxSearchNodes){
+        SumdokuRating[] result = new SumdokuRating[puzzles.size()];
+
+        IntStream indexes = IntStream.range(0, result.length);
+        if (result.length >= PARALLEL_BATCH)
+            indexes = indexes.parallel();
+        indexes.forEach(i -> result[i] = rate(puzzles.get(i), budgetNanos, maxSearchNodes));
+
+        return result;
+    }
+
+    /**
+     * Rates every puzzle of the given size in a catalog, with several threads. The puzzles are read from the catalog
+     * by the thread that rates them, so the catalog is never fully loaded.
+     *
+     * @param catalog the catalog
+     * @param size the size of the puzzles
+     * @param budgetNanos the time budget of each puzzle, in nanoseconds ({@code NO_BUDGET} for no limit)
+     * @requires {@code catalog != null && budgetNanos > 0}
+     * @return the rating of each puzzle, in the same order as the catalog
+     */
+    public static SumdokuRating[] rateAll(SumdokuCatalog catalog, int size, long budgetNanos){
+        SumdokuRating[] result = new SumdokuRating[catalog.count(size)];
+        IntStream.range(0, result.length).parallel().forEach(i -> result[i] = rate(catalog.puzzle(size, i), budgetNanos));
+        return result;
+    }
+
+    /**
+     * Searches, with backtracking, a way of completing the given state, counting the search nodes.
+     *
+     * @param state the partially filled grid (it's the same when the function ends, unless a solution was found)
+     * @return {@code true} if the state was completed or a budget was reached, {@code false} otherwise
+     */
+    private boolean search(SumdokuSearchState state){
+        this.searchNodes++;
+        if (this.searchNodes > this.maxSearchNodes){
+            this.finished = false;
+            return true; // We stop the whole search
+        }
+        if (this.deadline != NO_BUDGET && this.searchNodes % CLOCK_INTERVAL == 0 && System.nanoTime() - this.deadline > 0){
+            this.finished = false;
+            return true; // We stop the whole search
+        }
+
+        int cell = state.chooseBranchCell();
+        if (cell < 0)
+            return true; // The grid is full
+
+        int candidates = state.branchDigits; // It is 0 if this state can't be completed
+        while (candidates != 0){
+            int digit = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1; // We remove the digit from the set
+
+            state.place(cell, digit);
+            if (search(state))
+                return true;
+            state.remove(cell);
+        }
+        return false;
+    }
+
+    /**
+     * Generates puzzles and prints how many are rated per second and how many needed each technique.
+     *
+     * @param args optionally, the size of the puzzles (6 by default), the number of puzzles (500 by default)
+     *             and the time budget of each puzzle in milliseconds (100 by default)
+     */
+    public static void main(String[] args){
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int numOfPuzzles = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long budget = (args.length > 2 ? Long.parseLong(args[2]) : 100) * 1_000_000L;
+
+        List<SumdokuPuzzle> puzzles = new SumdokuGenerator(size, 42).stream().parallel().limit(numOfPuzzles).toList();
+
+        long start = System.nanoTime();
+        SumdokuRating[] ratings = rateAll(puzzles, budget);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d puzzles of size %d rated in %.3f s (%.1f puzzles/s)%n", numOfPuzzles, size, seconds, numOfPuzzles / seconds);
+
+        int logical = 0, unfinished = 0;
+        int[] hardest = new int[SumdokuTechnique.values().length];
+        for (SumdokuRating rating : ratings){
+            if (rating.isLogical())
+                logical++;
+            if (!rating.isFinished())
+                unfinished++;
+            if (rating.hardestTechnique() != null)
+                hardest[rating.hardestTechnique().ordinal()]++;
+        }
+        System.out.println("solved only with logic: " + logical + ", unfinished: " + unfinished);
+        for (SumdokuTechnique technique : SumdokuTechnique.values()){
+            System.out.println("hardest technique " + technique + ": " + hardest[technique.ordinal()]);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * The {@code SumdokuRating} consists in the class which keeps how hard a puzzle was to solve: how many cells were deduced
+ * with each technique (check the enum {@code SumdokuTechnique}) and how many search nodes were needed when no cell was forced
+ *
+ * The score is the sum of the weights of the steps plus {@code SEARCH_NODE_WEIGHT} for each search node,
+ * so it grows with the number of cells and with the difficulty of the techniques
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuRating {
+
+    public static final int SEARCH_NODE_WEIGHT = 20; // The weight of each guess (harder than any technique)
+
+    private final int[] techniqueCounts; // The number of steps of each technique (the position is the technique's ordinal)
+    private final long searchNodes; // The number of search nodes
+    private final boolean finished; // If the rating ended before its budget (of time or of search nodes)
+
+    /**
+     * Creates a rating.
+     *
+     * @param techniqueCounts the number of steps of each technique (it is kept, not copied)
+     * @param searchNodes the number of search nodes
+     * @param finished if the rating ended before its budget
+     */
+    SumdokuRating(int[] techniqueCounts, long searchNodes, boolean finished){
+        this.techniqueCounts = techniqueCounts;
+        this.searchNodes = searchNodes;
+        this.finished = finished;
+    }
+
+    /**
+     * Retrieves how many cells were deduced with the given technique.
+     *
+     * @param technique the technique
+     * @return the number of steps that used it
+     */
+    public int count(SumdokuTechnique technique){
+        return this.techniqueCounts[technique.ordinal()];
+    }
+
+    /**
+     * Retrieves the hardest technique used.
+     *
+     * @return the technique with the biggest weight among the ones used (null if none was used)
+     */
+    public SumdokuTechnique hardestTechnique(){
+        SumdokuTechnique result = null;
+        for (SumdokuTechnique technique : SumdokuTechnique.values()){
+            if (count(technique) > 0 && (result == null || technique.weight() > result.weight()))
+                result = technique;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the number of search nodes needed after the techniques stopped finding cells.
+     *
+     * @return the number of search nodes (0 if the puzzle was solved only with the techniques)
+     */
+    public long searchNodes(){
+        return this.searchNodes;
+    }
+
+    /**
+     * Checks if the puzzle was solved only with logical steps.
+     *
+     * @return {@code true} if no search was needed, {@code false} otherwise
+     */
+    public boolean isLogical(){
+        return this.searchNodes == 0 && this.finished;
+    }
+
+    /**
+     * Checks if the rating ended before its budget of time or of search nodes (if not, the counts and the score are lower than they should be).
+     *
+     * @return {@code true} if the rating is complete, {@code false} otherwise
+     */
+    public boolean isFinished(){
+        return this.finished;
+    }
+
+    /**
+     * Retrieves the difficulty score of the puzzle.
+     *
+     * @return the sum of the weights of every step and search node
+     */
+    public long score(){
+        long result = this.searchNodes * SEARCH_NODE_WEIGHT;
+        for (SumdokuTechnique technique : SumdokuTechnique.values()){
+            result += (long) count(technique) * technique.weight();
+        }
+        return result;
+    }
+
+    /**
+     * Converts the rating into a textual representation.
+     *
+     * @return a {@code String} with the score, the number of steps of each technique and the number of search nodes
+     */
+    public String toString(){
+        StringBuilder result = new StringBuilder();
+        result.append("score ").append(score());
+        for (SumdokuTechnique technique : SumdokuTechnique.values()){
+            result.append(", ").append(technique).append(" ").append(count(technique));
+        }
+        result.append(", search nodes ").append(this.searchNodes);
+        if (!this.finished)
+            result.append(" (unfinished)");
+        return result.toString();
+    }
+}
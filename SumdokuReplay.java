@@ -0,0 +1,296 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code SumdokuReplay} consists in the class which plays again recorded games, without a player, and tells
+ * if each one was won or lost (to check the scores of the players and to reproduce the problems they report)
+ *
+ * The games are read from a compact binary log, written by the class {@code SumdokuReplay.Writer}:
+ * - header: the magic number "SDKR" (4 bytes) and the version (2 bytes)
+ * - records, one per game: the size of the puzzle (1 byte), the number of the puzzle among the ones of its size in
+ *   a {@code SumdokuCatalog} (4 bytes), the number of moves (1 byte) and then the square and the value of each move
+ *   (1 byte each, the squares are numbered from 1, row by row, as in the game in the terminal)
+ *
+ * Each move is made with {@code SumdokuGame.play}, and the result is found with {@code SumdokuGame.isWon} after the
+ * last attempt, so a game is won or lost exactly as in {@code SumdokuTxt.play}. The log is read in blocks into a
+ * single buffer and the games of the most recent puzzles are kept and started again, so replaying a game doesn't
+ * create any object. The objects of this class can't be shared by many threads at the same time
+ *
+ * 		Compile: javac SumdokuReplay.java
+ * 		Execute: java  SumdokuReplay catalogFile logFile
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuReplay {
+
+    private static final int MAGIC = 0x53444B52; // The letters "SDKR"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2;
+    private static final int RECORD_HEADER_BYTES = 1 + 4 + 1;
+    private static final int MAX_MOVES = 255; // The number of moves is written in a single byte
+    private static final int BUFFER_SIZE = 1 << 16; // Always bigger than the longest record
+    private static final int GAMES_CACHED = 1 << 10; // The number of games kept for each size
+
+    /**
+     * The result of a recorded game.
+     */
+    public enum Outcome {
+        /** The player solved the puzzle with the last attempt. */
+        WON,
+        /** The player used every attempt without solving the puzzle. */
+        LOST,
+        /** The game ended before the last attempt (the player left, or the log was cut). */
+        UNFINISHED,
+        /** The puzzle isn't in the catalog, a move is outside the grid or there are more moves than attempts. */
+        INVALID
+    }
+
+    /**
+     * The {@code Listener} receives the result of each game of a log.
+     */
+    public interface Listener {
+
+        /**
+         * Receives the result of a game.
+         *
+         * @param number the number of the game in the log (starting at 0)
+         * @param size the size of the puzzle
+         * @param index the number of the puzzle in the catalog
+         * @param outcome the result of the game
+         */
+        void replayed(long number, int size, int index, Outcome outcome);
+    }
+
+    private final SumdokuCatalog catalog;
+
+    // The games of the most recent puzzles of each size, in the position 'index % GAMES_CACHED' (null if there is none yet)
+    private final SumdokuGame[][] games = new SumdokuGame[10][];
+    private final int[][] gameIndexes = new int[10][];
+
+    /**
+     * Creates a replay of the games of the puzzles of a catalog.
+     *
+     * @param catalog the catalog with the puzzles of the logs
+     * @requires {@code catalog != null}
+     */
+    public SumdokuReplay(SumdokuCatalog catalog){
+        this.catalog = catalog;
+    }
+
+    /**
+     * Plays a recorded game again.
+     *
+     * @param size the size of the puzzle
+     * @param index the number of the puzzle among the ones of its size in the catalog
+     * @param moves the squares and the values of the moves, one after the other
+     * @param offset the position of the first move in {@code moves}
+     * @param count the number of moves
+     * @requires {@code moves != null && count >= 0 && offset + 2 * count <= moves.length}
+     * @return the result of the game
+     */
+    public Outcome replay(int size, int index, byte[] moves, int offset, int count){
+        if (index < 0 || index >= this.catalog.count(size) || count > size * size)
+            return Outcome.INVALID;
+
+        // In the terminal the invalid answers are asked again, so they are never part of a game
+        SumdokuGame game = game(size, index);
+        for (int i = offset; i < offset + 2 * count; i += 2){
+            if (!game.isValidSquare(moves[i]) || !game.isValidValue(moves[i + 1]))
+                return Outcome.INVALID;
+        }
+
+        for (int i = offset; i < offset + 2 * count; i += 2){
+            game.play(moves[i], moves[i + 1]);
+        }
+
+        if (!game.isOver())
+            return Outcome.UNFINISHED;
+        return game.isWon() ? Outcome.WON : Outcome.LOST;
+    }
+
+    /**
+     * Plays again every game of a log, reading it in blocks.
+     *
+     * @param file the path of the log
+     * @param listener who receives the result of each game (it may be null)
+     * @requires {@code file != null}
+     * @return the number of games with each result, in the positions of {@code Outcome.ordinal()}
+     * @throws IOException if the file can't be read, isn't a log or ends in the middle of a game
+     */
+    public long[] replay(Path file, Listener listener) throws IOException {
+        long[] counts = new long[Outcome.values().length];
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip(); // Empty and ready to be read
+        byte[] bytes = buffer.array();
+        long number = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if (!fill(channel, buffer, HEADER_BYTES) || buffer.getInt() != MAGIC)
+                throw new IOException(file + " is not a Sumdoku replay log");
+            if (buffer.getShort() != VERSION)
+                throw new IOException(file + " has an unknown replay log version");
+
+            while (fill(channel, buffer, RECORD_HEADER_BYTES)){
+                int start = buffer.position();
+                int size = bytes[start];
+                int index = buffer.getInt(start + 1);
+                int count = bytes[start + 5] & 0xFF;
+                if (!fill(channel, buffer, RECORD_HEADER_BYTES + 2 * count))
+                    throw new IOException(file + " ends in the middle of the game " + number);
+
+                // The buffer may have been compacted, so we read the position again
+                start = buffer.position();
+                Outcome outcome = replay(size, index, bytes, start + RECORD_HEADER_BYTES, count);
+                buffer.position(start + RECORD_HEADER_BYTES + 2 * count);
+
+                counts[outcome.ordinal()]++;
+                if (listener != null)
+                    listener.replayed(number, size, index, outcome);
+                number++;
+            }
+
+            if (buffer.hasRemaining())
+                throw new IOException(file + " ends in the middle of the game " + number);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Makes sure the buffer has at least the given number of bytes to read, reading more of the file if needed.
+     *
+     * @param channel the file
+     * @param buffer the buffer, ready to be read
+     * @param needed the number of bytes needed
+     * @return {@code true} if the bytes are in the buffer, {@code false} if the file ended before
+     * @throws IOException if the file can't be read
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed)
+            return true;
+
+        buffer.compact();
+        while (buffer.position() < needed){
+            if (channel.read(buffer) < 0)
+                break;
+        }
+        buffer.flip();
+        return buffer.remaining() >= needed;
+    }
+
+    /**
+     * Retrieves a game of a puzzle with every attempt left, reusing the last game of that puzzle if it is still kept.
+     *
+     * @param size the size of the puzzle
+     * @param index the number of the puzzle in the catalog
+     * @return the game, started again
+     */
+    private SumdokuGame game(int size, int index){
+        if (this.games[size] == null){
+            this.games[size] = new SumdokuGame[GAMES_CACHED];
+            this.gameIndexes[size] = new int[GAMES_CACHED];
+        }
+
+        int slot = index & (GAMES_CACHED - 1);
+        SumdokuGame game = this.games[size][slot];
+        if (game == null || this.gameIndexes[size][slot] != index){
+            game = new SumdokuGame(this.catalog.puzzle(size, index), size * size);
+            this.games[size][slot] = game;
+            this.gameIndexes[size][slot] = index;
+        } else {
+            game.restart(size * size);
+        }
+        return game;
+    }
+
+    /**
+     * The {@code Writer} records games into a new log (check the format in the description of the class).
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        /**
+         * Creates a log file (replacing the file if it already exists) and writes its header.
+         *
+         * @param file the path of the log
+         * @requires {@code file != null}
+         * @throws IOException if the file can't be written
+         */
+        public Writer(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+            this.out.writeInt(MAGIC);
+            this.out.writeShort(VERSION);
+        }
+
+        /**
+         * Records a game.
+         *
+         * @param size the size of the puzzle
+         * @param index the number of the puzzle among the ones of its size in the catalog
+         * @param squares the square of each move (starting at 1, row by row)
+         * @param values the value of each move
+         * @param count the number of moves
+         * @requires {@code 3 <= size <= 9 && 0 <= count <= min(squares.length, values.length)}
+         * @throws IllegalArgumentException if there are more than 255 moves or a move doesn't fit in a byte
+         * @throws IOException if the file can't be written
+         */
+        public void write(int size, int index, int[] squares, int[] values, int count) throws IOException {
+            if (count > MAX_MOVES)
+                throw new IllegalArgumentException("A game can't have more than " + MAX_MOVES + " moves: " + count);
+
+            this.out.writeByte(size);
+            this.out.writeInt(index);
+            this.out.writeByte(count);
+            for (int i = 0; i < count; i++){
+                if (squares[i] < 0 || squares[i] > Byte.MAX_VALUE || values[i] < 0 || values[i] > Byte.MAX_VALUE)
+                    throw new IllegalArgumentException("The move " + i + " doesn't fit in the log");
+                this.out.writeByte(squares[i]);
+                this.out.writeByte(values[i]);
+            }
+        }
+
+        /**
+         * Writes what is left in the buffer and closes the file.
+         *
+         * @throws IOException if the file can't be written
+         */
+        public void close() throws IOException {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Plays again every game of a log and shows how many were won and lost, and how long it took.
+     *
+     * @param args the path of the catalog and the path of the log
+     * @throws IOException if the files can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2){
+            System.out.println("Usage: java SumdokuReplay catalogFile logFile");
+            return;
+        }
+
+        SumdokuReplay replay = new SumdokuReplay(SumdokuCatalog.open(Path.of(args[0])));
+        long start = System.nanoTime();
+        long[] counts = replay.replay(Path.of(args[1]), null);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = 0;
+        for (Outcome outcome : Outcome.values()){
+            System.out.println(outcome + ": " + counts[outcome.ordinal()]);
+            total += counts[outcome.ordinal()];
+        }
+        System.out.printf("%d games in %.2f s (%.0f games/s)%n", total, seconds, total / seconds);
+    }
+}
@@ -0,0 +1,392 @@
+/**
+ * The {@code SumdokuSearchState} consists in the class which keeps a partially filled Sumdoku grid
+ * together with everything a solver needs to know the candidates of each cell quickly
+ *
+ * Every set of digits is stored as a bitmask: the digit d is in the set if the bit number d is 1
+ * (so, for example, the set {1, 3} is the number 0b1010). The cells are numbered row by row, starting at 0
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+class SumdokuSearchState {
+
+    // The information about the puzzle, that never changes during the search
+    final int size; // The size of the puzzle
+    final int numOfCells; // The number of cells (size * size)
+    final int allDigits; // The set with every digit between 1 and size
+    final byte[] cellGroup; // The group of each cell (starting at 0)
+    final int[] groupTarget; // The sum that each group must have
+    final int[] groupSize; // The number of cells of each group
+    final boolean[] groupDistinct; // If each group is inside a single row or column (so its digits can't repeat)
+    final SumdokuBitboard bitboard; // The groups of the puzzle, where the arrays above come from
+
+    // The information about the grid, that changes every time we place or remove a digit
+    final byte[] values; // The value of each cell (0 if it isn't filled)
+    final int[] rowUsed; // The set of digits already used in each row
+    final int[] colUsed; // The set of digits already used in each column
+    final int[] groupSum; // The sum of the values already placed in each group
+    final int[] groupFilled; // The number of cells already filled in each group
+    int filled; // The number of cells already filled in the grid
+    long emptyLow; // The set of empty cells between 0 and 63 (check the class 'SumdokuBitboard')
+    long emptyHigh; // The set of empty cells between 64 and 80
+
+    // Auxiliary information used by the function 'chooseBranchCell'
+    int branchDigits; // The digits to try in the last chosen cell
+    private final int[] candidatesCache; // The candidates of each empty cell, found by the last choice
+    private final int[] groupMinSum; // The smallest sum the empty cells of each group can get, found by the last choice
+    private final int[] groupMaxSum; // The biggest sum the empty cells of each group can get, found by the last choice
+
+    /**
+     * Creates an empty search state for the puzzle with the given group membership matrix and group values.
+     *
+     * @param groupMembership a square two-dimensional matrix representing group memberships
+     * @param groupsValues a one-dimensional array with the target sum for each group
+     * @requires {@code groupMembership} is a square matrix with size between 3 and 9 and every value
+     *           in it is between 0 and {@code groupsValues.length - 1}
+     */
+    SumdokuSearchState(int[][] groupMembership, int[] groupsValues){
+        this(new SumdokuBitboard(groupMembership, groupsValues));
+    }
+
+    /**
+     * Creates an empty search state for the puzzle with the given bitboard (its arrays are shared, not copied).
+     *
+     * @param bitboard the groups of the puzzle
+     * @requires {@code bitboard != null}
+     */
+    SumdokuSearchState(SumdokuBitboard bitboard){
+        this.size = bitboard.size;
+        this.numOfCells = bitboard.numOfCells;
+        this.allDigits = (1 << (this.size + 1)) - 2; // Bits 1 to size (the bit 0 is never used)
+
+        // The information about the puzzle was already found by the bitboard
+        this.bitboard = bitboard;
+        this.cellGroup = bitboard.cellGroup;
+        this.groupSize = bitboard.groupSize;
+        this.groupTarget = bitboard.groupTarget;
+        this.groupDistinct = bitboard.groupDistinct;
+
+        // At the start, the grid is empty
+        int numOfGroups = this.groupTarget.length;
+        this.values = new byte[this.numOfCells];
+        this.rowUsed = new int[this.size];
+        this.colUsed = new int[this.size];
+        this.groupSum = new int[numOfGroups];
+        this.groupFilled = new int[numOfGroups];
+        this.filled = 0;
+        this.emptyLow = bitboard.allCells(0);
+        this.emptyHigh = bitboard.allCells(1);
+        this.candidatesCache = new int[this.numOfCells];
+        this.groupMinSum = new int[numOfGroups];
+        this.groupMaxSum = new int[numOfGroups];
+    }
+
+    /**
+     * Creates a copy of the given search state. The information about the puzzle is shared,
+     * but the information about the grid is copied, so both states can be changed independently.
+     *
+     * @param other the search state to be copied
+     * @requires {@code other != null}
+     */
+    SumdokuSearchState(SumdokuSearchState other){
+        this.size = other.size;
+        this.numOfCells = other.numOfCells;
+        this.allDigits = other.allDigits;
+        this.cellGroup = other.cellGroup;
+        this.groupTarget = other.groupTarget;
+        this.groupSize = other.groupSize;
+        this.groupDistinct = other.groupDistinct;
+        this.bitboard = other.bitboard;
+
+        this.values = other.values.clone();
+        this.rowUsed = other.rowUsed.clone();
+        this.colUsed = other.colUsed.clone();
+        this.groupSum = other.groupSum.clone();
+        this.groupFilled = other.groupFilled.clone();
+        this.filled = other.filled;
+        this.emptyLow = other.emptyLow;
+        this.emptyHigh = other.emptyHigh;
+        this.candidatesCache = new int[this.numOfCells];
+        this.groupMinSum = new int[this.groupTarget.length];
+        this.groupMaxSum = new int[this.groupTarget.length];
+    }
+
+    /**
+     * Retrieves the set of digits that can still be placed in the given empty cell.
+     *
+     * A digit is a candidate if it isn't used in the cell's row or column and if it can be part of
+     * a way of completing the cell's group with its target sum (check the class {@code CageSumTable})
+     *
+     * @param cell the number of the cell (row by row, starting at 0)
+     * @requires {@code 0 <= cell < numOfCells} and the cell is empty
+     * @return the bitmask with the candidates of the cell
+     */
+    int candidates(int cell){
+        int row = cell / this.size;
+        int col = cell - row * this.size;
+
+        // The digits that are not used in the row and in the column
+        int result = this.allDigits & ~(this.rowUsed[row] | this.colUsed[col]);
+
+        // The digits that keep the group's sum reachable
+        return result & groupCandidates(this.cellGroup[cell]);
+    }
+
+    /**
+     * Retrieves the set of digits that can be placed in an empty cell of the given group
+     * without making the group's target sum unreachable.
+     *
+     * @param group the number of the group (starting at 0)
+     * @requires {@code 0 <= group < groupTarget.length} and the group has at least one empty cell
+     * @return the bitmask with the digits allowed by the group's sum
+     */
+    int groupCandidates(int group){
+        int emptyCells = this.groupSize[group] - this.groupFilled[group];
+        int remainingSum = this.groupTarget[group] - this.groupSum[group];
+
+        // The empty cells must complete the remaining sum, so we look for the digits that can do it in the tables
+        if (this.groupDistinct[group])
+            return CageSumTable.distinctCandidates(this.size, emptyCells, remainingSum);
+        return CageSumTable.candidates(this.size, emptyCells, remainingSum);
+    }
+
+    /**
+     * Retrieves the set of every digit (between 1 and {@code size}) that is between the given limits.
+     *
+     * @param minDigit the smallest digit of the set (it can be smaller than 1)
+     * @param maxDigit the biggest digit of the set (it can be bigger than {@code size})
+     * @return the bitmask with every digit between {@code minDigit} and {@code maxDigit} (empty if {@code minDigit > maxDigit})
+     */
+    int digitsBetween(int minDigit, int maxDigit){
+        minDigit = Math.max(1, minDigit);
+        maxDigit = Math.min(this.size, maxDigit);
+
+        if (minDigit > maxDigit)
+            return 0; // No digit is between the limits
+
+        // We build the set with every digit between minDigit and maxDigit
+        return ((1 << (maxDigit + 1)) - 1) & ~((1 << minDigit) - 1);
+    }
+
+    /**
+     * Places a digit in an empty cell.
+     *
+     * @param cell the number of the cell (row by row, starting at 0)
+     * @param digit the digit to be placed
+     * @requires {@code 0 <= cell < numOfCells}, the cell is empty and {@code 1 <= digit <= size}
+     */
+    void place(int cell, int digit){
+        int row = cell / this.size;
+        int col = cell - row * this.size;
+        int group = this.cellGroup[cell];
+
+        this.values[cell] = (byte) digit;
+        this.rowUsed[row] |= 1 << digit;
+        this.colUsed[col] |= 1 << digit;
+        this.groupSum[group] += digit;
+        this.groupFilled[group]++;
+        this.filled++;
+        if (cell < 64)
+            this.emptyLow &= ~(1L << cell);
+        else
+            this.emptyHigh &= ~(1L << cell);
+    }
+
+    /**
+     * Removes the digit of a filled cell (undoing the function {@code place}).
+     *
+     * @param cell the number of the cell (row by row, starting at 0)
+     * @requires {@code 0 <= cell < numOfCells} and the cell was filled with {@code place}
+     */
+    void remove(int cell){
+        int row = cell / this.size;
+        int col = cell - row * this.size;
+        int group = this.cellGroup[cell];
+        int digit = this.values[cell];
+
+        this.values[cell] = 0;
+        this.rowUsed[row] &= ~(1 << digit);
+        this.colUsed[col] &= ~(1 << digit);
+        this.groupSum[group] -= digit;
+        this.groupFilled[group]--;
+        this.filled--;
+        if (cell < 64)
+            this.emptyLow |= 1L << cell;
+        else
+            this.emptyHigh |= 1L << cell;
+    }
+
+    /**
+     * Chooses the best empty cell to branch on during a search and the digits to try on it.
+     *
+     * Usually it is the empty cell with the fewest candidates (the most constrained one). But if a digit
+     * that is missing in a row or in a column can only be placed in one cell, that cell is chosen with only
+     * that digit to try, because no other digit can be there in a solution. The digits to try are kept in
+     * {@code branchDigits} and are 0 if the state can't be completed (a cell without candidates or a digit
+     * without place in a row or in a column)
+     *
+     * @return the number of the chosen cell, or -1 if the grid is already full
+     */
+    int chooseBranchCell(){
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+
+        // First, we find the candidates of every empty cell and the smallest and biggest sum each group can still get
+        for (int group = 0; group < this.groupTarget.length; group++){
+            this.groupMinSum[group] = 0;
+            this.groupMaxSum[group] = 0;
+        }
+        // We only visit the empty cells, taking them from the sets of empty cells (the lowest one first, as in the grid)
+        for (int half = 0; half < 2; half++){
+            long empty = half == 0 ? this.emptyLow : this.emptyHigh;
+            while (empty != 0){
+                int cell = (half << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1; // We remove the lowest cell
+
+                int cellCandidates = candidates(cell);
+                this.candidatesCache[cell] = cellCandidates;
+
+                // If a cell has no candidates, this state can't be completed
+                if (cellCandidates == 0){
+                    this.branchDigits = 0;
+                    return cell;
+                }
+                this.groupMinSum[this.cellGroup[cell]] += Integer.numberOfTrailingZeros(cellCandidates);
+                this.groupMaxSum[this.cellGroup[cell]] += 31 - Integer.numberOfLeadingZeros(cellCandidates);
+            }
+        }
+
+        // Then, we keep in each cell only the digits that let the other cells of its group reach the group's sum
+        // and we choose the cell with the fewest candidates
+        for (int half = 0; half < 2; half++){
+            long empty = half == 0 ? this.emptyLow : this.emptyHigh;
+            while (empty != 0){
+                int cell = (half << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+
+                int group = this.cellGroup[cell];
+                int cellCandidates = this.candidatesCache[cell];
+                int remainingSum = this.groupTarget[group] - this.groupSum[group];
+
+                // The other empty cells of the group will have a sum between otherMin and otherMax
+                int otherMin = this.groupMinSum[group] - Integer.numberOfTrailingZeros(cellCandidates);
+                int otherMax = this.groupMaxSum[group] - (31 - Integer.numberOfLeadingZeros(cellCandidates));
+                cellCandidates &= digitsBetween(remainingSum - otherMax, remainingSum - otherMin);
+
+                this.candidatesCache[cell] = cellCandidates;
+                int count = Integer.bitCount(cellCandidates);
+
+                if (count < bestCount){
+                    best = cell;
+                    bestCount = count;
+                    this.branchDigits = cellCandidates;
+
+                    // If a cell has no candidates, this state can't be completed
+                    if (count == 0)
+                        return best;
+                }
+            }
+        }
+
+        // If the grid is full or a cell has only one candidate, we don't need to look further
+        if (best < 0 || bestCount == 1)
+            return best;
+
+        // Now, we check where each missing digit of each row and column can be placed
+        for (int line = 0; line < this.size; line++){
+            int rowMissing = this.allDigits & ~this.rowUsed[line];
+            int colMissing = this.allDigits & ~this.colUsed[line];
+
+            // The cells where each digit can go (we only need to know if there are zero, one or more)
+            int rowSeenOnce = 0, rowSeenTwice = 0, colSeenOnce = 0, colSeenTwice = 0;
+            for (int other = 0; other < this.size; other++){
+                int rowCell = line * this.size + other;
+                if (this.values[rowCell] == 0){
+                    rowSeenTwice |= rowSeenOnce & this.candidatesCache[rowCell];
+                    rowSeenOnce |= this.candidatesCache[rowCell];
+                }
+                int colCell = other * this.size + line;
+                if (this.values[colCell] == 0){
+                    colSeenTwice |= colSeenOnce & this.candidatesCache[colCell];
+                    colSeenOnce |= this.candidatesCache[colCell];
+                }
+            }
+
+            // If a missing digit can't be placed anywhere in the row or column, this state can't be completed
+            if ((rowMissing & ~rowSeenOnce) != 0 || (colMissing & ~colSeenOnce) != 0){
+                this.branchDigits = 0;
+                return best;
+            }
+
+            // If a missing digit can only be placed in one cell, we choose that cell and that digit
+            int rowSingles = rowMissing & ~rowSeenTwice;
+            if (rowSingles != 0){
+                int digit = Integer.lowestOneBit(rowSingles);
+                for (int other = 0; other < this.size; other++){
+                    int rowCell = line * this.size + other;
+                    if (this.values[rowCell] == 0 && (this.candidatesCache[rowCell] & digit) != 0){
+                        this.branchDigits = digit;
+                        return rowCell;
+                    }
+                }
+            }
+            int colSingles = colMissing & ~colSeenTwice;
+            if (colSingles != 0){
+                int digit = Integer.lowestOneBit(colSingles);
+                for (int other = 0; other < this.size; other++){
+                    int colCell = other * this.size + line;
+                    if (this.values[colCell] == 0 && (this.candidatesCache[colCell] & digit) != 0){
+                        this.branchDigits = digit;
+                        return colCell;
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Places every digit that is forced by the current state (a cell with only one candidate or a digit
+     * with only one possible cell in a row or column), until no more digits are forced.
+     *
+     * The digits placed are not removed at the end, so this function should be used on a state that
+     * doesn't need to go back (for example, a copy)
+     *
+     * @return {@code false} if the state can't be completed, {@code true} otherwise (the grid may not be full)
+     */
+    boolean propagate(){
+        while (true){
+            int cell = chooseBranchCell();
+
+            if (cell < 0)
+                return true; // The grid is full
+            if (this.branchDigits == 0)
+                return false; // The state can't be completed
+            if (Integer.bitCount(this.branchDigits) > 1)
+                return true; // No digit is forced anymore
+
+            place(cell, Integer.numberOfTrailingZeros(this.branchDigits));
+        }
+    }
+
+    /**
+     * Converts the values of the grid into a two-dimension matrix.
+     *
+     * @return a size x size matrix where the position [r][c] has the value of the cell in row r + 1 and column c + 1
+     */
+    int[][] toMatrix(){
+        int[][] matrix = new int[this.size][this.size];
+
+        for (int r = 0; r < this.size; r++){
+            for (int c = 0; c < this.size; c++){
+                matrix[r][c] = this.values[r * this.size + c];
+            }
+        }
+
+        return matrix;
+    }
+}
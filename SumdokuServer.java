@@ -0,0 +1,491 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * The {@code SumdokuServer} consists in the class which lets many players play Sumdoku at the same time over TCP,
+ * with the same conversation of the game in the terminal (check the class {@code SumdokuTxt}): each word the player
+ * sends is an answer to the last question (the square, the value or if they want a new puzzle), so a line can answer
+ * many questions and an empty line answers none, as with the {@code SumdokuTokenizer} of the terminal
+ *
+ * A single thread serves every player with a {@code java.nio} selector, so a player waiting to type doesn't hold a thread.
+ * Each connection only keeps a small {@code Session}: its game (check the class {@code SumdokuGame}), its puzzles, the question
+ * being answered and a buffer with the line being received. The answers are written in a buffer shared by every session
+ * and only copied to the session when the connection can't take them at once
+ *
+ * 		Compile: javac SumdokuServer.java
+ * 		Execute: java  SumdokuServer port size
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class SumdokuServer implements Runnable {
+
+    private static final int MAX_LINE = 64; // Longer lines can't be an answer, so they are ignored
+    private static final int OUTPUT_CAPACITY = 1 << 16; // The bytes read or encoded at once (longer answers are sent in many blocks)
+
+    // The questions a session can be waiting for
+    private static final int ASK_SQUARE = 0;
+    private static final int ASK_VALUE = 1;
+    private static final int ASK_PLAY_AGAIN = 2;
+
+    /**
+     * The {@code Session} keeps the state of a connection.
+     */
+    private static final class Session {
+        private final RandomSumdokuPuzzle puzzles; // The puzzles of this player (each one is played only once)
+        private SumdokuGame game;
+        private int question = ASK_SQUARE;
+        private int square; // The square chosen, while waiting for the value
+        private final ByteBuffer line = ByteBuffer.allocate(MAX_LINE); // The bytes received after the last line break
+        private boolean discarding; // The line being received is too long, so it is ignored until its end
+        private ByteBuffer pending; // The bytes not sent yet (null if everything was sent)
+        private boolean closing; // The connection is closed after sending the pending bytes
+
+        private Session(RandomSumdokuPuzzle puzzles){
+            this.puzzles = puzzles;
+        }
+    }
+
+    private final int size;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private volatile boolean running = true;
+    private volatile int sessions; // The number of open connections (only changed by the thread of the selector)
+
+    // Shared by every session, because only the thread of the selector uses them
+    private final StringBuilder text = new StringBuilder();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_CAPACITY);
+
+    /**
+     * Opens a server in the given port (it only starts accepting players when it runs).
+     *
+     * @param port the port (0 chooses any free port, check the function {@code port})
+     * @param size the size of the puzzles
+     * @requires {@code 3 <= size <= 5} (the sizes of the puzzles of {@code RandomSumdokuPuzzle})
+     * @throws IOException if the port can't be used
+     */
+    public SumdokuServer(int port, int size) throws IOException{
+        this.size = size;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(port), 1024); // A long queue, so many players can connect at the same time
+        this.server.configureBlocking(false);
+        this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Retrieves the port of the server.
+     *
+     * @return the port where the players connect
+     * @throws IOException if the server is closed
+     */
+    public int port() throws IOException{
+        return ((InetSocketAddress) this.server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Retrieves the number of players connected.
+     *
+     * @return the number of open connections
+     */
+    public int sessions(){
+        return this.sessions;
+    }
+
+    /**
+     * Serves the players until the function {@code stop} is called, and then closes every connection.
+     */
+    public void run(){
+        try {
+            while (this.running){
+                this.selector.select();
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    try {
+                        if (!key.isValid())
+                            continue;
+                        if (key.isAcceptable())
+                            accept();
+                        else {
+                            if (key.isReadable())
+                                read(key);
+                            if (key.isValid() && key.isWritable())
+                                flush(key);
+                        }
+                    } catch (IOException e){
+                        // A player disconnected in a bad way (the others are not affected), or a connection couldn't be accepted
+                        if (key.channel() != this.server)
+                            close(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e){
+            // The selector failed, so we can't serve anyone
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stops the server (it can be called from any thread).
+     */
+    public void stop(){
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    /**
+     * Accepts every player waiting to connect and starts their first game.
+     *
+     * @throws IOException if the server can't accept them
+     */
+    private void accept() throws IOException{
+        SocketChannel channel;
+        while ((channel = this.server.accept()) != null){
+            channel.configureBlocking(false);
+            Session session = new Session(new RandomSumdokuPuzzle(this.size));
+            SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ, session);
+            this.sessions++;
+
+            this.text.setLength(0);
+            if (session.puzzles.hasNextPuzzle()){
+                startGame(session);
+            } else {
+                this.text.append("Não existem mais puzzles de tamanho ").append(this.size).append(" para jogar.\n");
+                session.closing = true;
+            }
+            try {
+                send(key);
+            } catch (IOException e){
+                close(key); // The player left before the first message
+            }
+        }
+    }
+
+    /**
+     * Starts a new game with the next puzzle of the session.
+     *
+     * @param session the session
+     * @requires {@code session.puzzles.hasNextPuzzle()}
+     */
+    private void startGame(Session session){
+        session.game = new SumdokuGame(session.puzzles.nextPuzzle(), this.size * this.size);
+        session.question = ASK_SQUARE;
+        session.game.writeIntro(this.text);
+        this.text.append(SumdokuGame.SQUARE_PROMPT);
+    }
+
+    /**
+     * Reads what the player sent and answers each complete line.
+     *
+     * @param key the key of the connection
+     * @throws IOException if the connection can't be read
+     */
+    private void read(SelectionKey key) throws IOException{
+        Session session = (Session) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+
+        // We use the output buffer to receive the bytes too, because the answers are only written after reading them
+        this.output.clear();
+        int read = channel.read(this.output);
+        if (read < 0){
+            close(key);
+            return;
+        }
+
+        this.text.setLength(0);
+        this.output.flip();
+        while (this.output.hasRemaining() && !session.closing){
+            byte b = this.output.get();
+            if (b == '\n'){
+                if (!session.discarding)
+                    answerLine(session);
+                session.line.clear();
+                session.discarding = false;
+            } else if (!session.line.hasRemaining()){
+                session.discarding = true;
+            } else {
+                session.line.put(b);
+            }
+        }
+        send(key);
+    }
+
+    /**
+     * Answers each word of a line of the player (the line is in the buffer of the session), in order, as the terminal
+     * reads the words of a line for the next questions.
+     *
+     * @param session the session
+     */
+    private void answerLine(Session session){
+        ByteBuffer line = session.line;
+        int start = 0;
+        while (!session.closing){
+            while (start < line.position() && SumdokuTokenizer.isWhiteSpace(line.get(start))){
+                start++;
+            }
+            if (start == line.position())
+                return; // No more words (an empty line answers nothing)
+
+            int end = start;
+            while (end < line.position() && !SumdokuTokenizer.isWhiteSpace(line.get(end))){
+                end++;
+            }
+            answer(session, start, end);
+            start = end;
+        }
+    }
+
+    /**
+     * Answers a word of the player, as the game in the terminal does.
+     *
+     * @param session the session
+     * @param start the position of the word in the buffer of the session
+     * @param end the position after the word
+     */
+    private void answer(Session session, int start, int end){
+        SumdokuGame game = session.game;
+
+        if (session.question == ASK_PLAY_AGAIN){
+            // As 'SumdokuTokenizer.nextBoolean', only "true" (with any case) is a yes
+            if (wordEquals(session.line, start, end, "true")){
+                if (session.puzzles.hasNextPuzzle()){
+                    startGame(session);
+                    return;
+                }
+                this.text.append(SumdokuGame.NO_MORE_PUZZLES).append('\n');
+            }
+            this.text.append(SumdokuGame.GOODBYE).append('\n');
+            session.closing = true;
+            return;
+        }
+
+        int number = parseWord(session.line, start, end);
+        if (session.question == ASK_SQUARE){
+            if (!game.isValidSquare(number)){
+                SumdokuGame.writeInvalid(this.text, 1, game.numberOfSquares());
+                return;
+            }
+            session.square = number;
+            session.question = ASK_VALUE;
+            this.text.append(SumdokuGame.VALUE_PROMPT);
+            return;
+        }
+
+        if (!game.isValidValue(number)){
+            SumdokuGame.writeInvalid(this.text, 1, game.puzzle().size());
+            return;
+        }
+        game.play(session.square, number);
+        game.grid().writeTo(this.text);
+
+        if (game.isOver()){
+            game.writeResult(this.text);
+            this.text.append(SumdokuGame.PLAY_AGAIN_PROMPT);
+            session.question = ASK_PLAY_AGAIN;
+        } else {
+            this.text.append(SumdokuGame.SQUARE_PROMPT);
+            session.question = ASK_SQUARE;
+        }
+    }
+
+    /**
+     * Reads the number of a word (with an optional sign, as {@code SumdokuTokenizer.nextInt}).
+     *
+     * @param line the bytes of the line
+     * @param start the position of the word
+     * @param end the position after the word
+     * @return the number, or -1 if the word isn't a number, is negative or is too big to be a square
+     */
+    private static int parseWord(ByteBuffer line, int start, int end){
+        int i = start;
+        boolean negative = false;
+        if (line.get(i) == '+' || line.get(i) == '-'){
+            negative = line.get(i) == '-';
+            i++;
+        }
+        if (i == end)
+            return -1; // Only a sign
+
+        int result = 0;
+        for (; i < end; i++){
+            byte b = line.get(i);
+            if (b < '0' || b > '9')
+                return -1;
+            result = result * 10 + (b - '0');
+            if (result > 1_000_000)
+                return -1; // Too big to be a square
+        }
+        return negative ? -1 : result; // A negative number is never valid (and -0 is 0, also invalid)
+    }
+
+    /**
+     * Checks if a word is the given one (ignoring the case).
+     *
+     * @param line the bytes of the line
+     * @param start the position of the word
+     * @param end the position after the word
+     * @param word the word to compare, only with lower case letters
+     * @return {@code true} if they are the same word, {@code false} otherwise
+     */
+    private static boolean wordEquals(ByteBuffer line, int start, int end, String word){
+        if (end - start != word.length())
+            return false;
+        for (int i = start; i < end; i++){
+            if (Character.toLowerCase(line.get(i)) != word.charAt(i - start))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends the text written for a session (what the connection can't take now is kept in the session).
+     *
+     * @param key the key of the connection
+     * @throws IOException if the connection can't be written
+     */
+    private void send(SelectionKey key) throws IOException{
+        Session session = (Session) key.attachment();
+
+        if (this.text.length() > 0){
+            // The text may not fit in the output buffer (a single read can have thousands of answers), so we encode it in
+            // blocks of the size of the buffer, sending or keeping each block before encoding the next one
+            CharBuffer chars = CharBuffer.wrap(this.text);
+            this.encoder.reset();
+            CoderResult result;
+            do {
+                this.output.clear();
+                result = chars.hasRemaining() ? this.encoder.encode(chars, this.output, true) : CoderResult.UNDERFLOW;
+                if (result.isUnderflow())
+                    result = this.encoder.flush(this.output);
+                this.output.flip();
+
+                if (session.pending == null){
+                    ((SocketChannel) key.channel()).write(this.output);
+                }
+
+                // The rest waits in the session until the connection can take it, and we stop reading the player meanwhile
+                if (this.output.hasRemaining()){
+                    session.pending = append(session.pending, this.output);
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+            } while (result.isOverflow());
+            this.text.setLength(0);
+        }
+
+        if (session.closing && session.pending == null)
+            close(key);
+    }
+
+    /**
+     * Sends the bytes kept in a session, when the connection can take them.
+     *
+     * @param key the key of the connection
+     * @throws IOException if the connection can't be written
+     */
+    private void flush(SelectionKey key) throws IOException{
+        Session session = (Session) key.attachment();
+        if (session.pending != null){
+            ((SocketChannel) key.channel()).write(session.pending);
+            if (session.pending.hasRemaining())
+                return;
+            session.pending = null;
+        }
+
+        key.interestOps(SelectionKey.OP_READ);
+        if (session.closing)
+            close(key);
+    }
+
+    /**
+     * Adds bytes at the end of the pending bytes of a session.
+     *
+     * @param pending the pending bytes, ready to be read (null if there aren't any)
+     * @param bytes the bytes to add
+     * @return a buffer with both, ready to be read
+     */
+    private static ByteBuffer append(ByteBuffer pending, ByteBuffer bytes){
+        int kept = pending == null ? 0 : pending.remaining();
+        if (pending != null && pending.capacity() >= kept + bytes.remaining()){
+            pending.compact();
+            pending.put(bytes);
+            return pending.flip();
+        }
+
+        // The buffer at least doubles, so adding many blocks doesn't copy the first ones many times
+        int capacity = Math.max(kept + bytes.remaining(), pending == null ? 0 : 2 * pending.capacity());
+        ByteBuffer result = ByteBuffer.allocate(capacity);
+        if (pending != null)
+            result.put(pending);
+        result.put(bytes);
+        return result.flip();
+    }
+
+    /**
+     * Closes a connection.
+     *
+     * @param key the key of the connection
+     */
+    private void close(SelectionKey key){
+        if (!key.isValid())
+            return;
+        key.cancel();
+        this.sessions--;
+        try {
+            key.channel().close();
+        } catch (IOException e){
+            // The connection is already gone
+        }
+    }
+
+    /**
+     * Closes every connection, the server and the selector.
+     */
+    private void closeAll(){
+        try {
+            for (SelectionKey key : this.selector.keys()){
+                key.channel().close();
+            }
+            this.selector.close();
+        } catch (IOException | ClosedSelectorException e){
+            // We are closing everything anyway
+        }
+        this.sessions = 0;
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param args the port and the size of the puzzles
+     * @throws IOException if the port can't be used
+     */
+    public static void main(String[] args) throws IOException{
+        if (args.length != 2){
+            System.out.println("Usage: java SumdokuServer port size");
+            return;
+        }
+
+        SumdokuServer server = new SumdokuServer(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        System.out.println("Sumdoku server in the port " + server.port());
+        server.run();
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code SumdokuSolutionCache} consists in the class which keeps the solutions of the last puzzles solved by the program,
+ * shared by every {@code SumdokuPuzzle} (check the function {@code SumdokuPuzzle.solution}), so a puzzle built again
+ * (for example, by another {@code RandomSumdokuPuzzle}) doesn't need the solver
+ *
+ * The puzzles are compared by their groups and sums (check the functions {@code SumdokuPuzzle.hashCode} and
+ * {@code SumdokuPuzzle.equals}), so the hash finds the entry and the comparison confirms it is the same puzzle.
+ * It keeps at most {@code CAPACITY} solutions: when it is full, the one used the longest time ago is removed
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public final class SumdokuSolutionCache {
+
+    public static final int CAPACITY = 4096; // A 9x9 solution has 81 bytes, so a full cache has less than 1 MB of solutions
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    // A map in access order (the last one used goes to the end) that removes its first entry when it has too many
+    private static final Map<SumdokuPuzzle, byte[]> solutions = new LinkedHashMap<SumdokuPuzzle, byte[]>(64, 0.75f, true){
+        protected boolean removeEldestEntry(Map.Entry<SumdokuPuzzle, byte[]> eldest){
+            if (size() <= CAPACITY)
+                return false;
+            evictions.incrementAndGet();
+            return true;
+        }
+    };
+
+    /**
+     * There are no objects of this class, only its functions.
+     */
+    private SumdokuSolutionCache(){
+    }
+
+    /**
+     * Retrieves the solution of a puzzle, if it is in the cache.
+     *
+     * @param puzzle the puzzle
+     * @requires {@code puzzle != null}
+     * @return the solution, row by row (it must not be changed), or null if it isn't in the cache
+     */
+    static byte[] get(SumdokuPuzzle puzzle){
+        byte[] result;
+        synchronized (solutions){
+            result = solutions.get(puzzle);
+        }
+        (result != null ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Keeps the solution of a puzzle (removing the one used the longest time ago, if the cache is full).
+     *
+     * @param puzzle the puzzle
+     * @param solution the solution, row by row (it must not be changed after this)
+     * @requires {@code puzzle != null && solution != null}
+     */
+    static void put(SumdokuPuzzle puzzle, byte[] solution){
+        synchronized (solutions){
+            solutions.put(puzzle, solution);
+        }
+    }
+
+    /**
+     * Removes every solution (the counters are kept).
+     */
+    static void clear(){
+        synchronized (solutions){
+            solutions.clear();
+        }
+    }
+
+    /**
+     * Retrieves the number of solutions in the cache.
+     *
+     * @return the number of solutions, at most {@code CAPACITY}
+     */
+    public static int size(){
+        synchronized (solutions){
+            return solutions.size();
+        }
+    }
+
+    /**
+     * Retrieves how many times a solution was found in the cache.
+     *
+     * @return the number of hits until now
+     */
+    public static long hits(){
+        return hits.get();
+    }
+
+    /**
+     * Retrieves how many times a solution wasn't in the cache (so the solver was used).
+     *
+     * @return the number of misses until now
+     */
+    public static long misses(){
+        return misses.get();
+    }
+
+    /**
+     * Retrieves how many solutions were removed because the cache was full.
+     *
+     * @return the number of evictions until now
+     */
+    public static long evictions(){
+        return evictions.get();
+    }
+}
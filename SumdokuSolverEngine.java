@@ -0,0 +1,52 @@
+/**
+ * The {@code SumdokuSolverEngine} describes the objects that can solve a Sumdoku puzzle
+ * given during their construction (i.e., a group membership matrix and the groups values)
+ *
+ * The methods follow the same contract of the {@code SumdokuSolver} class that was given with the project,
+ * so any engine can replace it in the {@code SumdokuPuzzle} class
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public interface SumdokuSolverEngine {
+
+    /**
+     * Searches for at most {@code maxSolutions} solutions of the puzzle.
+     *
+     * @param maxSolutions the maximum number of solutions to search for
+     * @requires {@code maxSolutions > 0}
+     * @return an array with the solutions found (at most {@code maxSolutions}), each one as a size x size matrix
+     *         where the position [r][c] has the value of the cell in row r + 1 and column c + 1
+     */
+    int[][][] findSolutions(int maxSolutions);
+
+    /**
+     * Searches for at most {@code maxSolutions} solutions of the puzzle and counts them.
+     *
+     * @param maxSolutions the maximum number of solutions to search for
+     * @requires {@code maxSolutions > 0}
+     * @return the number of solutions found, never bigger than {@code maxSolutions}
+     */
+    int howManySolutions(int maxSolutions);
+
+    /**
+     * Checks if the puzzle has no solution, exactly one solution or more than one.
+     *
+     * By default, it counts at most two solutions, but an engine can do it faster
+     * (for example, by stopping as soon as it proves the answer)
+     *
+     * @return the outcome of the check
+     */
+    default SumdokuUniqueness checkUniqueness(){
+        int found = howManySolutions(2);
+
+        if (found == 0)
+            return SumdokuUniqueness.NONE;
+        if (found == 1)
+            return SumdokuUniqueness.UNIQUE;
+        return SumdokuUniqueness.MULTIPLE;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * The {@code SumdokuTechnique} describes the logical steps that deduce the value of a cell,
+ * from the easiest to the hardest (each one has a weight used to rate the difficulty of a puzzle)
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public enum SumdokuTechnique {
+
+    LAST_CELL_OF_GROUP(1, "it is the last empty cell of its group, so it gets the rest of the group's sum"),
+    NAKED_SINGLE(2, "every other value is already used in its row or column"),
+    HIDDEN_SINGLE_ROW(3, "it is the only cell of its row where this value can go"),
+    HIDDEN_SINGLE_COLUMN(3, "it is the only cell of its column where this value can go"),
+    CAGE_COMBINATION(5, "it is the only value that lets its group reach the group's sum");
+
+    private final int weight;
+    private final String reason;
+
+    /**
+     * Creates a technique.
+     *
+     * @param weight how hard the technique is to find (a bigger number is harder)
+     * @param reason the explanation of the technique, shown to the player
+     */
+    SumdokuTechnique(int weight, String reason){
+        this.weight = weight;
+        this.reason = reason;
+    }
+
+    /**
+     * Retrieves how hard the technique is to find.
+     *
+     * @return the weight of the technique (a bigger number is harder)
+     */
+    public int weight(){
+        return this.weight;
+    }
+
+    /**
+     * Retrieves the explanation of the technique.
+     *
+     * @return a sentence that explains why the cell has its value
+     */
+    public String reason(){
+        return this.reason;
+    }
+}
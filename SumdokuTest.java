@@ -1,4 +1,26 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * The {@code SumdokuTest} tests the main elements of the second IP2425 project. 
@@ -18,12 +40,21 @@ public class SumdokuTest {
 		testSumdokuGrid ();
 		testSumdokuPuzzle ();
 		testRandomSumdokuPuzzle ();
+		testConstraintSumdokuSolver ();
+		testSumdokuServer ();
+		testSumdokuTxt ();
+		testSumdokuReplay ();
 	}
 
 	private static void testSumdokuGrid () {
 		System.out.println ("-----Testing SumdokuGrid class--------------------");
 		testIsFilled();
 		testValue();
+		testBulkOperations();
+		testIncrementalTracking();
+		testGridEquals();
+		testGridWriteTo();
+		testJournal();
 		System.out.println ("----------------------------------------------------");
 	}
 	
@@ -35,12 +66,56 @@ public class SumdokuTest {
 		testIsSolvedBy();
 		testIsPartiallySolvedBy();
 		testCluesToString();
+		testSolutionIsCached();
+		testSolutionCache();
+		testAreSolvedBy();
+		testHint();
+		testConflicts();
+		testCanonicalForm();
+		testPuzzleEquals();
+		testWriteClues();
+		testBitboard();
 		System.out.println ("----------------------------------------------------");
 	}
 	
 	private static void testRandomSumdokuPuzzle () {
 		System.out.println ("-----Testing RandomSumdokuPuzzle class---------------");
 		testNext();
+		testCatalog();
+		testGenerator();
+		testPuzzlePool();
+		testConcurrentDispenser();
+		System.out.println ("----------------------------------------------------");
+	}
+
+
+	private static void testConstraintSumdokuSolver () {
+		System.out.println ("-----Testing ConstraintSumdokuSolver class-----------");
+		testHowManySolutions();
+		testFindSolutions();
+		testCageSumTable();
+		testCheckUniqueness();
+		testParallelSolver();
+		testRater();
+		System.out.println ("----------------------------------------------------");
+	}
+
+	private static void testSumdokuServer () {
+		System.out.println ("-----Testing SumdokuServer class---------------------");
+		testServer();
+		System.out.println ("----------------------------------------------------");
+	}
+
+	private static void testSumdokuTxt () {
+		System.out.println ("-----Testing SumdokuTxt class------------------------");
+		testTokenizer();
+		testBatchMode();
+		System.out.println ("----------------------------------------------------");
+	}
+
+	private static void testSumdokuReplay () {
+		System.out.println ("-----Testing SumdokuReplay class---------------------");
+		testReplay();
 		System.out.println ("----------------------------------------------------");
 	}
 
@@ -143,6 +218,285 @@ public class SumdokuTest {
 	}	
 	
 
+	private static void testBulkOperations() {
+		String methodName = "SumdokuGrid bulk operations";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuGrid g = new SumdokuGrid(5);
+		error = checkEqual(0, g.filledCount(), g.toString()) || error;
+		g.fill(1, 1, 4);
+		g.fill(3, 2, 5);
+		g.fill(3, 2, 1); //the same cell again
+		error = checkEqual(2, g.filledCount(), g.toString()) || error;
+		g.fill(1, 1, 0); //empties the cell
+		error = checkEqual(1, g.filledCount(), g.toString()) || error;
+
+		g = grid5();
+		error = checkEqual(25, g.filledCount(), g.toString()) || error;
+		int[] values = g.toArray();
+		error = checkEqual(3, values[1 * 5 + 1], g.toString()) || error;
+		error = checkEqual(2, values[4 * 5 + 4], g.toString()) || error;
+
+		SumdokuGrid copy = new SumdokuGrid(5);
+		error = checkEqual(false, copy.equalsGrid(g), copy.toString(), g.toString()) || error;
+		copy.copyFrom(g);
+		error = checkEqual(true, copy.equalsGrid(g), copy.toString(), g.toString()) || error;
+		error = checkEqual(25, copy.filledCount(), copy.toString()) || error;
+		error = checkEqual(false, copy.equalsGrid(new SumdokuGrid(3)), copy.toString()) || error;
+
+		copy.clear();
+		error = checkEqual(0, copy.filledCount(), copy.toString()) || error;
+		error = checkEqual(true, copy.equalsGrid(new SumdokuGrid(5)), copy.toString()) || error;
+		error = checkEqual(true, g.isFilled(5, 5), g.toString()) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}	
+	
+
+	private static void testGridEquals() {
+		String methodName = "SumdokuGrid.equals";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuGrid grid = oneGrid3();
+		error = checkEqual(true, grid.equals(oneGrid3()), grid.toString()) || error;
+		error = checkEqual(true, grid.hashCode() == oneGrid3().hashCode(), grid.toString()) || error;
+		error = checkEqual(false, grid.equals(anotherGrid3()), grid.toString()) || error;
+		error = checkEqual(false, grid.zobristHash() == anotherGrid3().zobristHash(), grid.toString()) || error;
+		error = checkEqual(false, new SumdokuGrid(3).equals(new SumdokuGrid(4)), "empty grids of different sizes") || error;
+
+		//the hash only depends on the values, not on the order of the fills (each cell has another value first)
+		SumdokuGrid other = new SumdokuGrid(3);
+		for (int r = 3; r >= 1; r--)
+			for (int c = 3; c >= 1; c--)
+				other.fill(r, c, grid.value(r, c) % 3 + 1);
+		for (int r = 3; r >= 1; r--)
+			for (int c = 3; c >= 1; c--)
+				other.fill(r, c, grid.value(r, c));
+		error = checkEqual(true, other.zobristHash() == grid.zobristHash(), other.toString()) || error;
+		error = checkEqual(true, other.equals(grid), other.toString()) || error;
+
+		//emptying a cell, clearing and copying keep the hash right
+		other.fill(2, 2, 0);
+		error = checkEqual(false, other.equals(grid), other.toString()) || error;
+		other.fill(2, 2, grid.value(2, 2));
+		error = checkEqual(true, other.equals(grid), other.toString()) || error;
+		other.clear();
+		error = checkEqual(true, other.zobristHash() == 0, other.toString()) || error;
+		other.copyFrom(grid);
+		error = checkEqual(true, other.zobristHash() == grid.zobristHash(), other.toString()) || error;
+
+		//the grids bigger than 9x9 have keys for their bigger values too
+		SumdokuGrid big = new SumdokuGrid(10);
+		SumdokuGrid otherBig = new SumdokuGrid(10);
+		big.fill(10, 10, 10);
+		big.fill(1, 1, 10);
+		otherBig.fill(1, 1, 10);
+		error = checkEqual(false, big.equals(otherBig) || big.zobristHash() == otherBig.zobristHash(), big.toString()) || error;
+		otherBig.fill(10, 10, 9);
+		otherBig.fill(10, 10, 10);
+		error = checkEqual(true, big.equals(otherBig) && big.hashCode() == otherBig.hashCode(), big.toString()) || error;
+		big.fill(10, 10, 0);
+		big.fill(1, 1, 0);
+		error = checkEqual(true, big.zobristHash() == 0, big.toString()) || error;
+
+		//a value outside the grid's values has no key, so it is refused (instead of using the key of another cell)
+		other = new SumdokuGrid(3);
+		for (int value : new int[] {-1, 4, 10}) {
+			try {
+				other.fill(1, 1, value);
+				error = checkEqual(true, false, "value " + value) || error;
+			} catch (IllegalArgumentException e) {
+				error = checkEqual(true, other.zobristHash() == 0 && other.equals(new SumdokuGrid(3)), "value " + value) || error;
+			}
+		}
+
+		//the grids can be used in a set
+		Set<SumdokuGrid> grids = new HashSet<>(List.of(oneGrid3(), anotherGrid3(), oneGrid3()));
+		error = checkEqual(2, grids.size(), "grids in a set") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testGridWriteTo() {
+		String methodName = "SumdokuGrid.writeTo";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		//the same text of toString, added after what the buffer already has
+		SumdokuGrid grid = grid5();
+		grid.fill(2, 3, 0);
+		StringBuilder buffer = new StringBuilder("> ");
+		grid.writeTo(buffer);
+		error = checkEqual(true, buffer.toString().equals("> " + grid.toString()), buffer.toString()) || error;
+		error = checkEqual(true, new SumdokuGrid(3).toString().equals(" . . . \n . . . \n . . . \n"), "empty grid") || error;
+
+		//a Writer receives the same text, and its errors reach the caller
+		StringWriter writer = new StringWriter();
+		try {
+			grid.writeTo((Appendable) writer);
+		} catch (IOException e) {
+			error = true;
+		}
+		error = checkEqual(true, writer.toString().equals(grid.toString()), writer.toString()) || error;
+		boolean thrown = false;
+		try {
+			grid.writeTo(failingAppendable());
+		} catch (IOException e) {
+			thrown = true;
+		}
+		error = checkEqual(true, thrown, "failing Appendable") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testJournal() {
+		String methodName = "SumdokuGrid.undo/redo";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1});
+		SumdokuGrid grid = new SumdokuGrid(puzzle);
+		error = checkEqual(false, grid.undo(), "undo without a journal") || error;
+		grid.startJournal(16);
+
+		//the solution, with a wrong value in the last cell that is undone and replaced
+		SumdokuGrid solution = oneGrid3();
+		SumdokuJournal.Snapshot empty = grid.snapshot();
+		for (int r = 1; r <= 3; r++)
+			for (int c = 1; c <= 3; c++)
+				grid.fill(r, c, r == 3 && c == 3 ? 2 : solution.value(r, c));
+		SumdokuJournal.Snapshot wrong = grid.snapshot();
+		error = checkEqual(false, grid.isSolved(), "wrong last value") || error;
+		error = checkEqual(true, grid.undo(), "undo") || error;
+		error = checkEqual(0, grid.value(3, 3), "value after undo") || error;
+		error = checkEqual(8, grid.filledCount(), "filled after undo") || error;
+		error = checkEqual(true, grid.redo(), "redo") || error;
+		error = checkEqual(2, grid.value(3, 3), "value after redo") || error;
+		grid.undo();
+		grid.fill(3, 3, 1);
+		error = checkEqual(false, grid.canRedo(), "redo after a new move") || error;
+		error = checkEqual(true, grid.isSolved(), "solved after the new move") || error;
+		error = checkEqual(true, grid.equals(solution), "same values and hash as the solution") || error;
+
+		//the snapshots share the moves: the empty grid can be restored, the replaced move can't
+		SumdokuJournal.Snapshot solved = grid.snapshot();
+		error = checkEqual(false, grid.restore(wrong), "snapshot of a replaced move") || error;
+		error = checkEqual(true, grid.restore(empty), "snapshot of the empty grid") || error;
+		error = checkEqual(0, grid.filledCount(), "filled after restoring the empty grid") || error;
+		error = checkEqual(0, (int) grid.zobristHash(), "hash of the empty grid") || error;
+		error = checkEqual(true, grid.restore(solved), "snapshot of the solution") || error;
+		error = checkEqual(true, grid.isSolved(), "solved after restoring") || error;
+
+		//clearing forgets every move
+		grid.clear();
+		error = checkEqual(false, grid.canUndo(), "undo after clear") || error;
+		error = checkEqual(false, grid.restore(solved), "snapshot before clear") || error;
+
+		//only the last moves are kept
+		SumdokuGrid small = new SumdokuGrid(3);
+		small.startJournal(2);
+		small.fill(1, 1, 1);
+		SumdokuJournal.Snapshot first = small.snapshot();
+		small.fill(1, 2, 2);
+		small.fill(1, 3, 3);
+		error = checkEqual(false, small.restore(first), "forgotten snapshot") || error;
+		int undone = 0;
+		while (small.undo())
+			undone++;
+		error = checkEqual(2, undone, "moves undone") || error;
+		error = checkEqual(1, small.value(1, 1), "forgotten move") || error;
+
+		//a refused move isn't kept, so it can't be redone, and the values bigger than 15 are kept whole
+		SumdokuGrid big = new SumdokuGrid(16);
+		big.startJournal(8);
+		big.fill(16, 16, 16);
+		try {
+			big.fill(1, 1, 17);
+		} catch (IllegalArgumentException e) {
+			//expected, the value is bigger than the size
+		}
+		big.undo();
+		error = checkEqual(0, big.value(1, 1) + big.value(16, 16), "undo after a refused move") || error;
+		error = checkEqual(false, big.canUndo(), "no refused move to undo") || error;
+		big.redo();
+		error = checkEqual(16, big.value(16, 16), "redo of the value 16") || error;
+		error = checkEqual(false, big.canRedo(), "no refused move to redo") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testIncrementalTracking() {
+		String methodName = "SumdokuGrid incremental tracking";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		int[][] membership = {{0,0,2},{0,1,2},{3,3,4}};
+		int[] values = {5,2,5,5,1};
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(membership, values);
+
+		SumdokuGrid g = new SumdokuGrid(puzzle);
+		error = checkEqual(true, g.isTracking(), g.toString()) || error;
+		error = checkEqual(false, new SumdokuGrid(3).isTracking(), g.toString()) || error;
+		error = checkEqual(false, g.isSolved(), g.toString()) || error;
+
+		g.fill(1, 1, 3);
+		error = checkEqual(true, g.conflicts(1, 3, 3), g.toString()) || error; //same row
+		error = checkEqual(true, g.conflicts(3, 1, 3), g.toString()) || error; //same column
+		error = checkEqual(false, g.conflicts(2, 2, 3), g.toString()) || error;
+		error = checkEqual(false, g.conflicts(1, 1, 3), g.toString()) || error; //its own value
+		error = checkEqual(false, g.isGroupCorrect(1), g.toString()) || error;
+
+		g.fill(1, 2, 2); //the group 1 is full, but its sum is wrong
+		g.fill(2, 1, 1);
+		error = checkEqual(false, g.isGroupCorrect(1), g.toString()) || error;
+		g.fill(1, 2, 1); //now the sum is right
+		error = checkEqual(true, g.isGroupCorrect(1), g.toString()) || error;
+
+		//two copies of the same value in a column, then one of them is removed
+		g.fill(3, 1, 1);
+		error = checkEqual(true, g.conflicts(3, 1, 1), g.toString()) || error;
+		g.fill(3, 1, 0);
+		error = checkEqual(false, g.conflicts(3, 1, 2), g.toString()) || error;
+
+		g.fill(1, 3, 2);
+		g.fill(2, 2, 2);
+		g.fill(2, 3, 3);
+		g.fill(3, 1, 2);
+		g.fill(3, 2, 3);
+		error = checkEqual(false, g.isSolved(), g.toString()) || error;
+		g.fill(3, 3, 1);
+		error = checkEqual(true, g.isSolved(), g.toString()) || error;
+		error = checkEqual(true, puzzle.isSolvedBy(g), g.toString()) || error;
+
+		//the same sums with repeated values don't solve the puzzle
+		g.fill(3, 1, 3);
+		g.fill(3, 2, 2);
+		error = checkEqual(false, g.isSolved(), g.toString()) || error;
+		error = checkEqual(true, g.isGroupCorrect(4), g.toString()) || error;
+
+		//copies and clears keep the tracking right
+		g.copyFrom(oneGrid3());
+		error = checkEqual(true, g.isSolved(), g.toString()) || error;
+
+		//a value bigger than the size isn't counted in another row or column, it is refused and nothing changes
+		for (int value : new int[] {4, 12, -1}) {
+			try {
+				g.fill(1, 3, value);
+				error = checkEqual(true, false, "value " + value) || error;
+			} catch (IllegalArgumentException e) {
+				error = checkEqual(true, g.isSolved() && g.value(1, 3) == 2, "value " + value) || error;
+			}
+		}
+		g.clear();
+		error = checkEqual(false, g.isSolved(), g.toString()) || error;
+		error = checkEqual(false, g.conflicts(1, 1, 3), g.toString()) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}	
+	
+
 	private static void testDefinesPuzzle () {
 		String methodName = "SumdokuPuzzle.definesPuzzle";
 		System.out.println ("Testing "+ methodName);
@@ -411,6 +765,416 @@ public class SumdokuTest {
 	
 	
 
+	private static void testSolutionIsCached () {
+		String methodName = "SumdokuPuzzle.solution (cache)";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		int[][] membership1 = {{0,0,2},{0,1,2},{3,3,4}};
+		int[] values1 = {5,2,5,5,1};
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(membership1, values1);
+		SumdokuGrid solved = oneGrid3();
+		SumdokuGrid empty = new SumdokuGrid(3);
+
+		//other tests solved the same puzzle before, so we start without their solutions
+		SumdokuSolutionCache.clear();
+		long before = SumdokuPuzzle.solverCalls();
+		for (int i = 0; i < 10000; i++) {
+			error = checkEqual(true, puzzle.isSolvedBy(solved), "validation " + i) || error;
+			error = checkEqual(true, puzzle.isPartiallySolvedBy(empty), "partial validation " + i) || error;
+		}
+		error = !puzzle.toString().equals("3 1 2\n1 2 3\n2 3 1") || error;
+		long obtained = SumdokuPuzzle.solverCalls() - before;
+
+		error = checkEqual(1, (int) obtained, "solver calls for 10000 validations") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+	
+	
+
+	private static void testSolutionCache () {
+		String methodName = "SumdokuSolutionCache";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		//new objects of the same puzzle use the solution of the first one
+		SumdokuSolutionCache.clear();
+		long calls = SumdokuPuzzle.solverCalls();
+		long hits = SumdokuSolutionCache.hits();
+		long misses = SumdokuSolutionCache.misses();
+		SumdokuGrid wrong = new SumdokuGrid(9);
+		wrong.fill(1, 1, 9);
+		for (int i = 0; i < 100; i++) {
+			SumdokuPuzzle puzzle = new SumdokuPuzzle(membership9(), values9());
+			error = checkEqual(false, puzzle.isPartiallySolvedBy(wrong), "validation " + i) || error;
+		}
+		error = checkEqual(1, (int) (SumdokuPuzzle.solverCalls() - calls), "solver calls for 100 objects") || error;
+		error = checkEqual(99, (int) (SumdokuSolutionCache.hits() - hits), "hits") || error;
+		error = checkEqual(1, (int) (SumdokuSolutionCache.misses() - misses), "misses") || error;
+
+		//a different puzzle (the rows swapped) is solved again
+		int[][] membership = membership9();
+		int[] row = membership[0];
+		membership[0] = membership[1];
+		membership[1] = row;
+		SumdokuPuzzle swapped = new SumdokuPuzzle(membership, values9());
+		error = checkEqual(true, swapped.toString().startsWith("6 3 5 1 9 7 2 4 8\n3 2 4"), swapped.toString()) || error;
+		error = checkEqual(2, (int) (SumdokuPuzzle.solverCalls() - calls), "solver calls for another puzzle") || error;
+
+		//when it is full, the solution used the longest time ago leaves (the first puzzle was used after the second one)
+		new SumdokuPuzzle(membership9(), values9()).toString();
+		long evictions = SumdokuSolutionCache.evictions();
+		SumdokuGenerator generator = new SumdokuGenerator(5, 18);
+		for (int i = 0; i < SumdokuSolutionCache.CAPACITY - 1; i++)
+			generator.puzzle(i).toString();
+		error = checkEqual(SumdokuSolutionCache.CAPACITY, SumdokuSolutionCache.size(), "full cache") || error;
+		error = checkEqual(1, (int) (SumdokuSolutionCache.evictions() - evictions), "evictions") || error;
+		calls = SumdokuPuzzle.solverCalls();
+		new SumdokuPuzzle(membership9(), values9()).toString();
+		error = checkEqual(0, (int) (SumdokuPuzzle.solverCalls() - calls), "the last one used stays") || error;
+		new SumdokuPuzzle(membership, values9()).toString();
+		error = checkEqual(1, (int) (SumdokuPuzzle.solverCalls() - calls), "the first one used leaves") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testAreSolvedBy () {
+		String methodName = "SumdokuPuzzle.areSolvedBy";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		int[][] membership1 = {{0,0,2},{0,1,2},{3,3,4}};
+		int[] values1 = {5,2,5,5,1};
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(membership1, values1);
+
+		SumdokuGrid wrong = oneGrid3();
+		wrong.fill(3, 3, 2);
+		List<SumdokuGrid> grids = Arrays.asList(oneGrid3(), new SumdokuGrid(3), wrong, anotherGrid3(), oneGrid3());
+
+		BitSet obtained = puzzle.areSolvedBy(grids);
+		error = checkEqual(true, obtained.equals(BitSet.valueOf(new long[] {0b10001})), obtained.toString()) || error;
+		obtained = puzzle.areSolvedBy(grids.stream());
+		error = checkEqual(true, obtained.equals(BitSet.valueOf(new long[] {0b10001})), obtained.toString()) || error;
+
+		//a batch big enough to be split between threads (every third grid solves the puzzle)
+		List<SumdokuGrid> batch = new ArrayList<>();
+		for (int i = 0; i < 10000; i++)
+			batch.add(i % 3 == 0 ? oneGrid3() : wrong);
+		obtained = puzzle.areSolvedBy(batch);
+		error = checkEqual(3334, obtained.cardinality(), "batch of 10000") || error;
+		error = checkEqual(true, obtained.get(9999) && !obtained.get(9998), "batch of 10000") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+	
+	
+
+	private static void testHint() {
+		String methodName = "SumdokuPuzzle.hint";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1});
+		SumdokuGrid grid = new SumdokuGrid(3);
+
+		//the first cell that is alone in its group
+		SumdokuHint hint = puzzle.hint(grid);
+		error = checkEqual(2, hint.row(), hint.toString()) || error;
+		error = checkEqual(2, hint.column(), hint.toString()) || error;
+		error = checkEqual(2, hint.value(), hint.toString()) || error;
+		error = checkEqual(true, hint.technique() == SumdokuTechnique.LAST_CELL_OF_GROUP, hint.toString()) || error;
+
+		//a wrong value is seen as empty, so following the hints always solves the puzzle
+		grid.fill(1, 1, 1);
+		int hints = 0;
+		while ((hint = puzzle.hint(grid)) != null && hints < 20) {
+			grid.fill(hint.row(), hint.column(), hint.value());
+			hints++;
+		}
+		error = checkEqual(9, hints, grid.toString()) || error;
+		error = checkEqual(true, puzzle.isSolvedBy(grid), grid.toString()) || error;
+
+		//the same for a 9x9 puzzle (only with logical steps)
+		puzzle = new SumdokuPuzzle(membership9(), values9());
+		grid = new SumdokuGrid(9);
+		boolean logical = true;
+		while ((hint = puzzle.hint(grid)) != null) {
+			logical &= hint.technique() != null;
+			grid.fill(hint.row(), hint.column(), hint.value());
+		}
+		error = checkEqual(true, puzzle.isSolvedBy(grid), grid.toString()) || error;
+		error = checkEqual(true, logical == SumdokuRater.rate(puzzle).isLogical(), grid.toString()) || error;
+
+		//the grid keeps its right cells on each move, undo and clear, so the hints are the same ones of a new grid with its values
+		puzzle = new SumdokuPuzzle(membership9(), values9());
+		grid = new SumdokuGrid(puzzle);
+		grid.startJournal(64);
+		Random random = new Random(14);
+		boolean sameHints = true;
+		for (int move = 0; move < 300; move++) {
+			if (move == 150)
+				grid.clear();
+			else if (move % 7 == 0 && grid.canUndo())
+				grid.undo();
+			else
+				grid.fill(random.nextInt(9) + 1, random.nextInt(9) + 1, random.nextInt(10));
+			SumdokuGrid copy = new SumdokuGrid(9);
+			copy.copyFrom(grid);
+			sameHints &= String.valueOf(puzzle.hint(grid)).equals(String.valueOf(puzzle.hint(copy)));
+		}
+		error = checkEqual(true, sameHints, grid.toString()) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testConflicts() {
+		String methodName = "SumdokuPuzzle.conflicts";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		//the solution of this puzzle is 3 1 2 / 1 2 3 / 2 3 1
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1});
+		SumdokuGrid grid = new SumdokuGrid(3);
+		SumdokuConflicts conflicts = puzzle.conflicts(grid);
+		error = checkEqual(true, conflicts.isEmpty(), conflicts.toString()) || error;
+
+		//a wrong cell in a group that can still reach its sum (1 + 4 with two cells)
+		grid.fill(1, 1, 1);
+		conflicts = puzzle.conflicts(grid);
+		error = checkEqual(true, conflicts.wrongCells().equals(BitSet.valueOf(new long[] {0b1})), conflicts.toString()) || error;
+		error = checkEqual(true, conflicts.wrongGroups().isEmpty(), conflicts.toString()) || error;
+		error = checkEqual(true, conflicts.isWrong(1, 1, 3), conflicts.toString()) || error;
+
+		//the group 1 goes over its sum and the group 5 is full with the wrong sum
+		grid.fill(1, 2, 3);
+		grid.fill(2, 1, 3);
+		grid.fill(3, 3, 2);
+		conflicts = puzzle.conflicts(grid);
+		error = checkEqual(true, conflicts.wrongCells().equals(BitSet.valueOf(new long[] {0b100001011})), conflicts.toString()) || error;
+		error = checkEqual(true, conflicts.wrongGroups().equals(BitSet.valueOf(new long[] {0b100010})), conflicts.toString()) || error;
+		error = checkEqual(false, puzzle.isPartiallySolvedBy(grid), grid.toString()) || error;
+
+		//emptying and fixing cells removes them, and a cell changed back to its old value changes nothing
+		grid.fill(1, 1, 0);
+		grid.fill(3, 3, 1);
+		grid.fill(2, 1, 2);
+		grid.fill(2, 1, 3);
+		conflicts = puzzle.conflicts(grid);
+		error = checkEqual(true, conflicts.wrongCells().equals(BitSet.valueOf(new long[] {0b1010})), conflicts.toString()) || error;
+		error = checkEqual(true, conflicts.wrongGroups().equals(BitSet.valueOf(new long[] {0b10})), conflicts.toString()) || error;
+		grid.fill(1, 2, 1);
+		grid.fill(2, 1, 1);
+		conflicts = puzzle.conflicts(grid);
+		error = checkEqual(true, conflicts.isEmpty(), conflicts.toString()) || error;
+		error = checkEqual(true, puzzle.isPartiallySolvedBy(grid), grid.toString()) || error;
+
+		//the result doesn't change when it is kept and the grid changes
+		SumdokuConflicts kept = conflicts;
+		grid.fill(1, 3, 3);
+		conflicts = puzzle.conflicts(grid);
+		error = checkEqual(true, kept.isEmpty(), kept.toString()) || error;
+		error = checkEqual(true, conflicts.isWrong(1, 3, 3), conflicts.toString()) || error;
+
+		//clearing the grid or copying another one is seen by the next check
+		grid.clear();
+		error = checkEqual(true, puzzle.conflicts(grid).isEmpty(), grid.toString()) || error;
+		SumdokuGrid other = new SumdokuGrid(3);
+		other.fill(3, 1, 3);
+		grid.copyFrom(other);
+		error = checkEqual(true, puzzle.conflicts(grid).isWrong(3, 1, 3), grid.toString()) || error;
+
+		//a 9x9 grid checked against two puzzles (each time it changes puzzle, every cell is checked again)
+		SumdokuPuzzle puzzle9 = new SumdokuPuzzle(membership9(), values9());
+		SumdokuPuzzle copy9 = new SumdokuPuzzle(membership9(), values9());
+		grid = new SumdokuGrid(9);
+		int[][] solution = solution9();
+		for (int r = 1; r <= 9; r++) {
+			for (int c = 1; c <= 9; c++) {
+				grid.fill(r, c, solution[r - 1][c - 1]);
+			}
+		}
+		error = checkEqual(true, puzzle9.conflicts(grid).isEmpty(), grid.toString()) || error;
+		grid.fill(5, 5, solution[4][4] % 9 + 1);
+		conflicts = copy9.conflicts(grid);
+		error = checkEqual(1, conflicts.wrongCells().cardinality(), conflicts.toString()) || error;
+		error = checkEqual(true, conflicts.isWrong(5, 5, 9), conflicts.toString()) || error;
+		error = checkEqual(1, conflicts.wrongGroups().cardinality(), conflicts.toString()) || error;
+		error = checkEqual(true, puzzle9.conflicts(grid).wrongCells().equals(conflicts.wrongCells()), grid.toString()) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testCanonicalForm() {
+		String methodName = "SumdokuPuzzle.canonicalForm";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(membership9(), values9());
+		SumdokuPuzzle canonical = puzzle.canonicalForm();
+		error = checkEqual(true, canonical == puzzle.canonicalForm(), "computed only once") || error;
+		error = checkEqual(true, canonical == canonical.canonicalForm(), "the canonical form of the canonical form") || error;
+
+		//each change alone, and all of them together, keep the canonical form and the fingerprint
+		Random random = new Random(16);
+		int[] identity = {0,1,2,3,4,5,6,7,8};
+		SumdokuPuzzle[] variants = {
+			transformed(puzzle, shuffled(9, random), identity, false, false, random),
+			transformed(puzzle, identity, shuffled(9, random), false, false, random),
+			transformed(puzzle, identity, identity, true, false, random),
+			transformed(puzzle, identity, identity, false, true, random),
+			transformed(puzzle, shuffled(9, random), shuffled(9, random), true, true, random)
+		};
+		for (SumdokuPuzzle variant : variants) {
+			error = checkEqual(true, encoding(variant.canonicalForm()).equals(encoding(canonical)), encoding(variant)) || error;
+			error = checkEqual(true, variant.fingerprint() == puzzle.fingerprint(), encoding(variant)) || error;
+		}
+
+		//a different puzzle (two sums changed) has a different canonical form
+		int[] values = values9();
+		values[0]++;
+		values[1]--;
+		SumdokuPuzzle other = new SumdokuPuzzle(membership9(), values);
+		error = checkEqual(false, encoding(other.canonicalForm()).equals(encoding(canonical)), encoding(other)) || error;
+		error = checkEqual(false, other.fingerprint() == puzzle.fingerprint(), encoding(other)) || error;
+
+		//random changes of generated puzzles (with many groups of the same size and sum) keep the fingerprint,
+		//and different generated puzzles have different fingerprints
+		SumdokuGenerator generator = new SumdokuGenerator(6, 16);
+		Set<Long> fingerprints = new HashSet<>();
+		boolean same = true;
+		for (int i = 0; i < 100; i++) {
+			SumdokuPuzzle generated = generator.puzzle(i);
+			SumdokuPuzzle variant = transformed(generated, shuffled(6, random), shuffled(6, random), random.nextBoolean(), random.nextBoolean(), random);
+			same &= variant.fingerprint() == generated.fingerprint();
+			fingerprints.add(generated.fingerprint());
+		}
+		error = checkEqual(true, same, "fingerprints of 100 changed puzzles 6x6") || error;
+		error = checkEqual(100, fingerprints.size(), "fingerprints of 100 puzzles 6x6") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testPuzzleEquals() {
+		String methodName = "SumdokuPuzzle.equals";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(membership9(), values9());
+		SumdokuPuzzle same = new SumdokuPuzzle(membership9(), values9());
+		error = checkEqual(true, puzzle.equals(same), "same arrays") || error;
+		error = checkEqual(true, puzzle.hashCode() == same.hashCode(), "same arrays") || error;
+
+		//any different sum or group makes a different puzzle, as does an equivalent puzzle with the rows in another order
+		int[] values = values9();
+		values[33]++;
+		error = checkEqual(false, puzzle.equals(new SumdokuPuzzle(membership9(), values)), "different sum") || error;
+		int[][] membership = membership9();
+		membership[8][8] = 32;
+		error = checkEqual(false, puzzle.equals(new SumdokuPuzzle(membership, values9())), "different group") || error;
+		membership = membership9();
+		int[] row = membership[0];
+		membership[0] = membership[8];
+		membership[8] = row;
+		SumdokuPuzzle swapped = new SumdokuPuzzle(membership, values9());
+		error = checkEqual(false, puzzle.equals(swapped), "rows swapped") || error;
+		error = checkEqual(true, puzzle.canonicalForm().equals(swapped.canonicalForm()), "canonical forms") || error;
+
+		//the puzzles can be used in a set
+		Set<SumdokuPuzzle> puzzles = new HashSet<>(List.of(puzzle, same, swapped));
+		error = checkEqual(2, puzzles.size(), "puzzles in a set") || error;
+		error = checkEqual(false, puzzle.equals(null), "null") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testWriteClues() {
+		String methodName = "SumdokuPuzzle.writeClues";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(membership9(), values9());
+		String clues = puzzle.cluesToString();
+		error = checkEqual(true, clues.startsWith(" 1 2 2 3 4 5 6 7 7\n 1 1 2"), clues) || error;
+		error = checkEqual(true, clues.endsWith("G33 = 7 G34 = 5 \n"), clues) || error;
+
+		//the same text in a reused buffer and in a Writer
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < 2; i++) {
+			buffer.setLength(0);
+			puzzle.writeClues(buffer);
+		}
+		error = checkEqual(true, buffer.toString().equals(clues), buffer.toString()) || error;
+		StringWriter writer = new StringWriter();
+		boolean thrown = false;
+		try {
+			puzzle.writeClues((Appendable) writer);
+			puzzle.writeTo(writer.append('\n'));
+			puzzle.writeClues(failingAppendable());
+		} catch (IOException e) {
+			thrown = true;
+		}
+		error = checkEqual(true, writer.toString().equals(clues + "\n" + puzzle.toString()), writer.toString()) || error;
+		error = checkEqual(true, thrown, "failing Appendable") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testBitboard() {
+		String methodName = "SumdokuPuzzle.bitboard";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle[] puzzles = {new SumdokuPuzzle(membership9(), values9()),
+			new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1})};
+		for (SumdokuPuzzle puzzle : puzzles) {
+			SumdokuBitboard bitboard = puzzle.bitboard();
+			int size = puzzle.size();
+			error = checkEqual(true, bitboard == puzzle.bitboard(), "built only once") || error;
+
+			//every cell is in the group given by groupNumber, and in no other group
+			long allLow = 0, allHigh = 0;
+			int cells = 0;
+			for (int g = 0; g < puzzle.numberOfGroups(); g++) {
+				allLow |= bitboard.groupCells[2 * g];
+				allHigh |= bitboard.groupCells[2 * g + 1];
+				cells += Long.bitCount(bitboard.groupCells[2 * g]) + Long.bitCount(bitboard.groupCells[2 * g + 1]);
+				error = checkEqual(puzzle.valueGroup(g + 1), bitboard.groupTarget[g], "target of group " + g) || error;
+			}
+			error = checkEqual(size * size, cells, "cells in the groups") || error;
+			error = checkEqual(true, allLow == bitboard.allCells(0) && allHigh == bitboard.allCells(1), "every cell") || error;
+
+			int[] groupSize = new int[puzzle.numberOfGroups()];
+			int[] rows = new int[puzzle.numberOfGroups()];
+			int[] columns = new int[puzzle.numberOfGroups()];
+			for (int r = 1; r <= size; r++) {
+				for (int c = 1; c <= size; c++) {
+					int cell = (r - 1) * size + (c - 1);
+					int g = puzzle.groupNumber(c, r) - 1;
+					error = checkEqual(g, bitboard.cellGroup[cell], "group of the cell " + cell) || error;
+					error = checkEqual(true, (bitboard.groupCells[2 * g + cell / 64] & 1L << cell) != 0, "cell " + cell + " in its group") || error;
+					groupSize[g]++;
+					rows[g] |= 1 << r;
+					columns[g] |= 1 << c;
+				}
+			}
+			for (int g = 0; g < puzzle.numberOfGroups(); g++) {
+				error = checkEqual(groupSize[g], bitboard.groupSize[g], "size of group " + g) || error;
+				boolean distinct = Integer.bitCount(rows[g]) == 1 || Integer.bitCount(columns[g]) == 1;
+				error = checkEqual(distinct, bitboard.groupDistinct[g], "group " + g + " in a line") || error;
+			}
+		}
+
+		//the grids of the puzzle share its groups instead of copying them
+		SumdokuPuzzle puzzle = puzzles[1];
+		SumdokuGrid grid = new SumdokuGrid(puzzle);
+		grid.fill(1, 1, 3);
+		error = checkEqual(false, grid.isGroupCorrect(1), "group with an empty cell") || error;
+		error = checkEqual(true, puzzle.conflicts(grid).isEmpty(), "no conflicts") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
 	private static void testNext() {
 		String methodName = "RandomSumdokuPuzzle.next";
 		System.out.println ("Testing "+ methodName);
@@ -463,6 +1227,783 @@ public class SumdokuTest {
 		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));			
 	}
 	
+	private static void testCatalog() {
+		String methodName = "SumdokuCatalog";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle one = new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1});
+		SumdokuPuzzle another = new SumdokuPuzzle(new int[][] {{0,0,0},{0,0,1},{0,1,1}}, new int[] {14,4});
+		SumdokuPuzzle big = new SumdokuPuzzle(membership9(), values9());
+
+		try {
+			Path file = Files.createTempFile("sumdoku", ".catalog");
+			SumdokuCatalog.write(file, Arrays.asList(one, big, another));
+			SumdokuCatalog catalog = SumdokuCatalog.open(file);
+
+			error = checkEqual(2, catalog.count(3), "puzzles 3x3") || error;
+			error = checkEqual(1, catalog.count(9), "puzzles 9x9") || error;
+			error = checkEqual(0, catalog.count(5), "puzzles 5x5") || error;
+
+			SumdokuPuzzle read = catalog.puzzle(3, 1);
+			error = checkEqual(true, read.isSolvedBy(anotherGrid3()), read.toString()) || error;
+			error = checkEqual(true, one.cluesToString().equals(catalog.puzzle(3, 0).cluesToString()), "first puzzle 3x3") || error;
+			error = checkEqual(true, big.cluesToString().equals(catalog.puzzle(9, 0).cluesToString()), "puzzle 9x9") || error;
+
+			//every puzzle of the catalog is drawn once
+			RandomSumdokuPuzzle rsp = new RandomSumdokuPuzzle(catalog, 3);
+			int count = 0;
+			int found = 0;
+			while (rsp.hasNextPuzzle()) {
+				SumdokuPuzzle puzzle = rsp.nextPuzzle();
+				count++;
+				if (puzzle.isSolvedBy(oneGrid3()) || puzzle.isSolvedBy(anotherGrid3()))
+					found++;
+			}
+			error = checkEqual(2, count, "puzzles drawn") || error;
+			error = checkEqual(2, found, "different puzzles drawn") || error;
+
+			//a file that isn't a catalog
+			Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+			boolean rejected = false;
+			try {
+				SumdokuCatalog.open(file);
+			} catch (IOException e) {
+				rejected = true;
+			}
+			error = checkEqual(true, rejected, "invalid catalog") || error;
+
+			Files.delete(file);
+		} catch (IOException e) {
+			error = checkEqual(true, false, e.toString()) || error;
+		}
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testGenerator() {
+		String methodName = "SumdokuGenerator";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		for (int size = 3; size <= 6; size++) {
+			SumdokuGenerator generator = new SumdokuGenerator(size, 2024);
+			for (int i = 0; i < 20; i++) {
+				SumdokuPuzzle puzzle = generator.puzzle(i);
+
+				//the puzzle must be valid, so we build its arrays again
+				int[][] membership = new int[size][size];
+				for (int r = 0; r < size; r++)
+					for (int c = 0; c < size; c++)
+						membership[r][c] = puzzle.groupNumber(c + 1, r + 1) - 1;
+				int[] values = new int[puzzle.numberOfGroups()];
+				for (int g = 0; g < values.length; g++)
+					values[g] = puzzle.valueGroup(g + 1);
+
+				error = checkEqual(true, SumdokuPuzzle.definesPuzzle(membership, values), puzzle.cluesToString()) || error;
+			}
+		}
+
+		//the same seed and index give the same puzzle, even in parallel
+		SumdokuGenerator generator = new SumdokuGenerator(5, 7);
+		String first = generator.puzzle(3).cluesToString();
+		error = checkEqual(true, first.equals(new SumdokuGenerator(5, 7).puzzle(3).cluesToString()), first) || error;
+		List<SumdokuPuzzle> puzzles = new ArrayList<>();
+		generator.stream().parallel().limit(8).forEachOrdered(puzzles::add);
+		error = checkEqual(8, puzzles.size(), "puzzles in the stream") || error;
+		error = checkEqual(true, first.equals(puzzles.get(3).cluesToString()), puzzles.get(3).cluesToString()) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testPuzzlePool() {
+		String methodName = "SumdokuPuzzlePool";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		List<SumdokuPuzzle> puzzles = new SumdokuGenerator(5, 3).stream().limit(150).toList();
+		SumdokuPuzzlePool pool = new SumdokuPuzzlePool(puzzles);
+		error = checkEqual(150, pool.count(5), "puzzles 5x5") || error;
+		error = checkEqual(0, pool.count(4), "puzzles 4x4") || error;
+		int inBands = 0;
+		for (SumdokuDifficulty band : SumdokuDifficulty.values())
+			inBands += pool.count(5, band);
+		error = checkEqual(150, inBands, "puzzles in the bands") || error;
+
+		//a session draws every puzzle once and then nothing
+		SumdokuPuzzlePool.Session session = pool.newSession();
+		Set<SumdokuPuzzle> drawn = new HashSet<>();
+		while (session.hasNext(5))
+			drawn.add(session.next(5));
+		error = checkEqual(150, drawn.size(), "different puzzles drawn") || error;
+		error = checkEqual(true, session.next(5) == null, "no puzzles left") || error;
+
+		//a band only gives its own puzzles, and other sessions are not affected
+		session = pool.newSession();
+		SumdokuDifficulty easy = SumdokuDifficulty.EASY;
+		int count = 0;
+		boolean sameBand = true;
+		while (session.hasNext(5, easy)) {
+			SumdokuPuzzle puzzle = session.next(5, easy);
+			sameBand &= SumdokuDifficulty.of(SumdokuRater.rate(puzzle)) == easy;
+			count++;
+		}
+		error = checkEqual(pool.count(5, easy), count, "easy puzzles drawn") || error;
+		error = checkEqual(true, sameBand, "band of the puzzles drawn") || error;
+		error = checkEqual(true, pool.newSession().hasNext(5, easy) == (count > 0), "new session") || error;
+
+		//after a puzzle, any other one is drawn with the same chance (1 in 4), not more often the one after it in the pool
+		SumdokuDifficulty[] bands = new SumdokuDifficulty[5];
+		Arrays.fill(bands, easy);
+		SumdokuPuzzlePool small = new SumdokuPuzzlePool(puzzles.subList(0, 5), bands);
+		List<SumdokuPuzzle> order = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+			order.add(small.puzzle(5, i));
+		int followers = 0;
+		for (int i = 0; i < 4000; i++) {
+			session = small.newSession();
+			int first = order.indexOf(session.next(5));
+			followers += order.indexOf(session.next(5)) == (first + 1) % 5 ? 1 : 0;
+		}
+		error = checkEqual(true, followers > 800 && followers < 1200, "draws after the first one: " + followers) || error;
+
+		//no exception when the puzzles end or the size is not supported
+		RandomSumdokuPuzzle rsp = new RandomSumdokuPuzzle(3);
+		while (rsp.hasNextPuzzle())
+			rsp.nextPuzzle();
+		error = checkEqual(true, rsp.nextPuzzle() == null, "after the last puzzle") || error;
+		rsp = new RandomSumdokuPuzzle(8);
+		error = checkEqual(false, rsp.hasNextPuzzle(), "size not supported") || error;
+		error = checkEqual(true, rsp.nextPuzzle() == null, "size not supported") || error;
+
+		rsp = new RandomSumdokuPuzzle(pool, 5, SumdokuDifficulty.HARD);
+		count = 0;
+		while (rsp.hasNextPuzzle() && rsp.nextPuzzle() != null)
+			count++;
+		error = checkEqual(pool.count(5, SumdokuDifficulty.HARD), count, "hard puzzles drawn") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testConcurrentDispenser() {
+		String methodName = "ConcurrentPuzzleDispenser";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		List<SumdokuPuzzle> puzzles = new SumdokuGenerator(4, 5).stream().limit(2000).toList();
+		SumdokuDifficulty[] bands = new SumdokuDifficulty[puzzles.size()];
+		Arrays.fill(bands, SumdokuDifficulty.EASY); //the bands don't matter here
+		SumdokuPuzzlePool pool = new SumdokuPuzzlePool(puzzles, bands);
+		ConcurrentPuzzleDispenser dispenser = new ConcurrentPuzzleDispenser(pool, 8);
+		error = checkEqual(2000, dispenser.remaining(4), "before the threads") || error;
+
+		//64 threads draw until there are no puzzles left
+		final int numOfThreads = 64;
+		List<List<SumdokuPuzzle>> drawn = new ArrayList<>();
+		Thread[] threads = new Thread[numOfThreads];
+		CountDownLatch startSignal = new CountDownLatch(1);
+		for (int t = 0; t < numOfThreads; t++) {
+			List<SumdokuPuzzle> mine = new ArrayList<>();
+			drawn.add(mine);
+			threads[t] = new Thread(() -> {
+				try {
+					startSignal.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				SumdokuPuzzle puzzle;
+				while ((puzzle = dispenser.next(4)) != null)
+					mine.add(puzzle);
+			});
+			threads[t].start();
+		}
+		startSignal.countDown();
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				error = true;
+			}
+		}
+
+		//no puzzle is lost and none is handed out twice
+		Set<SumdokuPuzzle> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+		int total = 0;
+		for (List<SumdokuPuzzle> mine : drawn) {
+			total += mine.size();
+			unique.addAll(mine);
+		}
+		error = checkEqual(2000, total, "puzzles handed out") || error;
+		error = checkEqual(2000, unique.size(), "different puzzles handed out") || error;
+		error = checkEqual(0, dispenser.remaining(4), "after the threads") || error;
+		error = checkEqual(true, dispenser.next(4) == null && dispenser.next(3) == null, "empty dispenser") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testHowManySolutions() {
+		String methodName = "ConstraintSumdokuSolver.howManySolutions";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+		SumdokuSolverEngine solver;
+
+		//a good puzzle
+		int[][] membership1 = {{0,0,2},{0,1,2},{3,3,4}};
+		int[] values1 = {5,2,5,5,1};
+		solver = new ConstraintSumdokuSolver(membership1, values1);
+		error = checkEqual(1, solver.howManySolutions(2), toString(membership1), Arrays.toString(values1)) || error;
+
+		//every 3x3 latin square is a solution
+		int[][] membership2 = {{0,0,0},{0,0,0},{0,0,0}};
+		int[] values2 = {18};
+		solver = new ConstraintSumdokuSolver(membership2, values2);
+		error = checkEqual(12, solver.howManySolutions(100), toString(membership2), Arrays.toString(values2)) || error;
+		error = checkEqual(2, solver.howManySolutions(2), toString(membership2), Arrays.toString(values2)) || error;
+
+		//no solution (the first row can't have a sum of 7)
+		int[][] membership3 = {{0,0,0},{1,1,1},{1,1,1}};
+		int[] values3 = {7,11};
+		solver = new ConstraintSumdokuSolver(membership3, values3);
+		error = checkEqual(0, solver.howManySolutions(2), toString(membership3), Arrays.toString(values3)) || error;
+
+		//a 9x9 puzzle
+		solver = new ConstraintSumdokuSolver(membership9(), values9());
+		error = checkEqual(1, solver.howManySolutions(2), toString(membership9()), Arrays.toString(values9())) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+
+	private static void testFindSolutions() {
+		String methodName = "ConstraintSumdokuSolver.findSolutions";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+		int[][][] obtained;
+
+		int[][] membership1 = {{0,0,2},{0,1,2},{3,3,4}};
+		int[] values1 = {5,2,5,5,1};
+		obtained = new ConstraintSumdokuSolver(membership1, values1).findSolutions(2);
+		error = checkEqual(1, obtained.length, toString(membership1), Arrays.toString(values1)) || error;
+		error = checkEqual(true, Arrays.deepEquals(obtained[0], new int[][] {{3,1,2},{1,2,3},{2,3,1}}),
+				toString(membership1), Arrays.toString(values1)) || error;
+
+		int[][] membership2 = {{0,0,0},{0,0,0},{0,0,0}};
+		int[] values2 = {18};
+		obtained = new ConstraintSumdokuSolver(membership2, values2).findSolutions(5);
+		error = checkEqual(5, obtained.length, toString(membership2), Arrays.toString(values2)) || error;
+
+		obtained = new ConstraintSumdokuSolver(membership9(), values9()).findSolutions(1);
+		error = checkEqual(1, obtained.length, toString(membership9()), Arrays.toString(values9())) || error;
+		error = checkEqual(true, Arrays.deepEquals(obtained[0], solution9()),
+				toString(membership9()), Arrays.toString(values9())) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+
+	private static void testCageSumTable() {
+		String methodName = "CageSumTable.candidates";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		//digits are bits: {1,2} = 0b110
+		error = checkEqual(0b110, CageSumTable.distinctCandidates(9, 2, 3), "9", "2", "3") || error;
+		error = checkEqual(0b11000, CageSumTable.distinctCandidates(4, 2, 7), "4", "2", "7") || error;
+		error = checkEqual(0, CageSumTable.distinctCandidates(3, 2, 2), "3", "2", "2") || error;
+
+		//four cells with a sum of 4 would need the digit 1 four times in a 3x3 puzzle
+		error = checkEqual(0, CageSumTable.candidates(3, 4, 4), "3", "4", "4") || error;
+		error = checkEqual(0b110, CageSumTable.candidates(3, 4, 5), "3", "4", "5") || error;
+		error = checkEqual(0b1110, CageSumTable.candidates(3, 9, 18), "3", "9", "18") || error;
+		error = checkEqual(0, CageSumTable.candidates(9, 1, 10), "9", "1", "10") || error;
+		error = checkEqual(0b1000000000, CageSumTable.candidates(9, 2, 18), "9", "2", "18") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+
+	private static void testCheckUniqueness() {
+		String methodName = "ConstraintSumdokuSolver.checkUniqueness";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		int[][] membership1 = {{0,0,2},{0,1,2},{3,3,4}};
+		int[] values1 = {5,2,5,5,1};
+		error = checkEqual(true, new ConstraintSumdokuSolver(membership1, values1).checkUniqueness() == SumdokuUniqueness.UNIQUE,
+				toString(membership1), Arrays.toString(values1)) || error;
+
+		int[][] membership2 = {{0,0,0},{0,0,0},{0,0,0}};
+		int[] values2 = {18};
+		error = checkEqual(true, new ConstraintSumdokuSolver(membership2, values2).checkUniqueness() == SumdokuUniqueness.MULTIPLE,
+				toString(membership2), Arrays.toString(values2)) || error;
+
+		int[][] membership3 = {{0,0,0},{1,1,1},{1,1,1}};
+		int[] values3 = {7,11};
+		error = checkEqual(true, new ConstraintSumdokuSolver(membership3, values3).checkUniqueness() == SumdokuUniqueness.NONE,
+				toString(membership3), Arrays.toString(values3)) || error;
+
+		error = checkEqual(true, new ConstraintSumdokuSolver(membership9(), values9()).checkUniqueness() == SumdokuUniqueness.UNIQUE,
+				toString(membership9()), Arrays.toString(values9())) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+
+	private static void testParallelSolver() {
+		String methodName = "ParallelSumdokuSolver";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		int[][][] memberships = {{{0,0,2},{0,1,2},{3,3,4}}, {{0,0,0},{0,0,0},{0,0,0}}, {{0,0,0},{1,1,1},{1,1,1}}, membership9()};
+		int[][] values = {{5,2,5,5,1}, {18}, {7,11}, values9()};
+
+		for (int parallelism = 1; parallelism <= 4; parallelism *= 2) {
+			for (int i = 0; i < memberships.length; i++) {
+				SumdokuSolverEngine sequential = new ConstraintSumdokuSolver(memberships[i], values[i]);
+				SumdokuSolverEngine parallel = new ParallelSumdokuSolver(memberships[i], values[i], parallelism);
+				String p = "parallelism " + parallelism;
+
+				error = checkEqual(sequential.howManySolutions(20), parallel.howManySolutions(20), p, toString(memberships[i])) || error;
+				error = checkEqual(sequential.howManySolutions(2), parallel.howManySolutions(2), p, toString(memberships[i])) || error;
+				error = checkEqual(true, sequential.checkUniqueness() == parallel.checkUniqueness(), p, toString(memberships[i])) || error;
+				error = checkEqual(Math.min(3, sequential.howManySolutions(3)), parallel.findSolutions(3).length, p, toString(memberships[i])) || error;
+			}
+			error = checkEqual(true, Arrays.deepEquals(solution9(), new ParallelSumdokuSolver(membership9(), values9(), parallelism).findSolutions(1)[0]),
+					"parallelism " + parallelism, toString(membership9())) || error;
+		}
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));	
+	}
+
+	private static void testRater() {
+		String methodName = "SumdokuRater";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		//the two groups with one cell give their values, the rest follows from rows, columns and sums
+		SumdokuPuzzle puzzle = new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1});
+		SumdokuRating rating = SumdokuRater.rate(puzzle);
+		int steps = 0;
+		for (SumdokuTechnique technique : SumdokuTechnique.values())
+			steps += rating.count(technique);
+		error = checkEqual(9, steps, rating.toString()) || error;
+		error = checkEqual(true, rating.isLogical(), rating.toString()) || error;
+		error = checkEqual(true, rating.count(SumdokuTechnique.LAST_CELL_OF_GROUP) >= 2, rating.toString()) || error;
+		error = checkEqual(true, rating.score() >= 9, rating.toString()) || error;
+
+		//every cell is either deduced or found by the search
+		List<SumdokuPuzzle> puzzles = new SumdokuGenerator(7, 11).stream().limit(100).toList();
+		SumdokuRating[] ratings = SumdokuRater.rateAll(puzzles, SumdokuRater.NO_BUDGET);
+		boolean consistent = true;
+		for (SumdokuRating r : ratings) {
+			steps = 0;
+			for (SumdokuTechnique technique : SumdokuTechnique.values())
+				steps += r.count(technique);
+			consistent &= r.isFinished() && (steps == 49 || r.searchNodes() > 0) && r.isLogical() == (steps == 49);
+		}
+		error = checkEqual(true, consistent, "ratings of 100 puzzles 7x7") || error;
+
+		//with a budget of search nodes, the rating stops at the same point as the full one, and gives the same band
+		SumdokuRating[] withinNodes = SumdokuRater.rateAllWithinNodes(puzzles, SumdokuDifficulty.HARD_SEARCH_NODES);
+		boolean sameBands = true;
+		for (int i = 0; i < ratings.length; i++) {
+			boolean inBudget = ratings[i].searchNodes() <= SumdokuDifficulty.HARD_SEARCH_NODES;
+			sameBands &= SumdokuDifficulty.of(withinNodes[i]) == SumdokuDifficulty.of(ratings[i]);
+			sameBands &= withinNodes[i].isFinished() == inBudget;
+			sameBands &= withinNodes[i].searchNodes() == (inBudget ? ratings[i].searchNodes() : SumdokuDifficulty.HARD_SEARCH_NODES + 1);
+		}
+		error = checkEqual(true, sameBands, "bands with a budget of search nodes") || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	//changes a puzzle into an equivalent one: the row r goes to rows[r] and the column c to columns[c], then the
+	//grid may be transposed and the digits relabeled (d -> size + 1 - d), and the groups are renumbered at random
+
+	private static SumdokuPuzzle transformed(SumdokuPuzzle puzzle, int[] rows, int[] columns, boolean transpose, boolean relabel, Random random) {
+		int size = puzzle.size();
+		int[] groups = shuffled(puzzle.numberOfGroups(), random);
+		int[][] membership = new int[size][size];
+		int[] values = new int[puzzle.numberOfGroups()];
+		int[] cells = new int[puzzle.numberOfGroups()];
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				int group = puzzle.groupNumber(c + 1, r + 1) - 1;
+				cells[group]++;
+				if (transpose)
+					membership[columns[c]][rows[r]] = groups[group];
+				else
+					membership[rows[r]][columns[c]] = groups[group];
+			}
+		}
+		for (int group = 0; group < values.length; group++) {
+			int value = puzzle.valueGroup(group + 1);
+			values[groups[group]] = relabel ? cells[group] * (size + 1) - value : value;
+		}
+		return new SumdokuPuzzle(membership, values);
+	}
+
+	private static String encoding(SumdokuPuzzle puzzle) {
+		StringBuilder result = new StringBuilder();
+		for (int r = 1; r <= puzzle.size(); r++)
+			for (int c = 1; c <= puzzle.size(); c++)
+				result.append(puzzle.groupNumber(c, r)).append(" ");
+		for (int group = 1; group <= puzzle.numberOfGroups(); group++)
+			result.append(puzzle.valueGroup(group)).append(" ");
+		return result.toString();
+	}
+
+	private static int[] shuffled(int length, Random random) {
+		List<Integer> list = new ArrayList<>();
+		for (int i = 0; i < length; i++)
+			list.add(i);
+		Collections.shuffle(list, random);
+		int[] result = new int[length];
+		for (int i = 0; i < length; i++)
+			result[i] = list.get(i);
+		return result;
+	}
+
+	private static void testServer() {
+		String methodName = "SumdokuServer";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		try {
+			SumdokuServer server = new SumdokuServer(0, 3);
+			Thread thread = new Thread(server);
+			thread.setDaemon(true); //if a check fails with an exception, the server doesn't keep the tests running
+			thread.start();
+			InetSocketAddress address = new InetSocketAddress("localhost", server.port());
+
+			//many players at the same time, each one playing a whole game
+			error = checkEqual(300, SumdokuLoadClient.run(address, 300, 3), "games of 300 players") || error;
+
+			//a player who reads the clues, solves the puzzle (after two invalid answers) and leaves
+			try (Socket socket = new Socket("localhost", server.port())) {
+				InputStream in = socket.getInputStream();
+				String intro = readUntil(in, SumdokuGame.SQUARE_PROMPT);
+				error = checkEqual(true, intro.startsWith("Bem vindo ao jogo Sumdoku!\nAs pistas do puzzle:\n"), intro) || error;
+				error = checkEqual(true, intro.contains("Tens 9 tentativas para o resolver. Boa sorte!\n"), intro) || error;
+
+				String[] lines = intro.split("\n");
+				int[][] membership = new int[3][3];
+				for (int r = 0; r < 3; r++) {
+					String[] groups = lines[2 + r].trim().split(" ");
+					for (int c = 0; c < 3; c++)
+						membership[r][c] = Integer.parseInt(groups[c]) - 1;
+				}
+				String[] clues = lines[5].trim().split(" ");
+				int[] values = new int[clues.length / 3];
+				for (int g = 0; g < values.length; g++)
+					values[g] = Integer.parseInt(clues[3 * g + 2]);
+				String[] solution = new SumdokuPuzzle(membership, values).toString().split("\\s+");
+
+				StringBuilder moves = new StringBuilder("0\n");
+				for (int square = 1; square <= 9; square++) {
+					moves.append(square).append("\n");
+					if (square == 5)
+						moves.append("abc\n");
+					moves.append(solution[square - 1]).append("\n");
+				}
+				moves.append("false\n");
+				socket.getOutputStream().write(moves.toString().getBytes(StandardCharsets.UTF_8));
+
+				String game = readUntil(in, null);
+				error = checkEqual(true, game.startsWith("Valor inválido. Tem que estar entre 1 e 9.\n"), game) || error;
+				error = checkEqual(true, game.contains("Valor a colocar? Valor inválido. Tem que estar entre 1 e 3.\n"), game) || error;
+				error = checkEqual(true, game.endsWith("Ganhaste!!!!!\n" + SumdokuGame.PLAY_AGAIN_PROMPT + SumdokuGame.GOODBYE + "\n"), game) || error;
+			}
+
+			//a player who sends many answers at once, with replies much bigger than a single read of the server
+			try (Socket socket = new Socket("localhost", server.port())) {
+				socket.setSoTimeout(10000); //the replies that are lost would be waited forever
+				InputStream in = new BufferedInputStream(socket.getInputStream());
+				readUntil(in, SumdokuGame.SQUARE_PROMPT);
+
+				StringBuilder answers = new StringBuilder();
+				for (int i = 0; i < 20000; i++)
+					answers.append("99\n");
+				answers.append("1\n");
+				byte[] bytes = answers.toString().getBytes(StandardCharsets.UTF_8);
+				Thread writer = new Thread(() -> {
+					try {
+						socket.getOutputStream().write(bytes);
+					} catch (IOException e) {
+						//the test fails below, because the replies don't arrive
+					}
+				});
+				writer.start();
+
+				String replies = readUntil(in, SumdokuGame.VALUE_PROMPT);
+				writer.join();
+				String invalid = "Valor inválido. Tem que estar entre 1 e 9.\n";
+				error = checkEqual(20000, (replies.length() - replies.replace(invalid, "").length()) / invalid.length(), "replies to 20000 answers") || error;
+				error = checkEqual(true, replies.endsWith(invalid + SumdokuGame.VALUE_PROMPT), "reply to the last answer") || error;
+			}
+
+			//as in the terminal, empty lines are ignored and a line with two words answers the square and the value
+			try (Socket socket = new Socket("localhost", server.port())) {
+				socket.setSoTimeout(10000);
+				InputStream in = socket.getInputStream();
+				readUntil(in, SumdokuGame.SQUARE_PROMPT);
+				socket.getOutputStream().write("\n\r\n \n1 2\n".getBytes(StandardCharsets.UTF_8));
+				String reply = readUntil(in, SumdokuGame.SQUARE_PROMPT);
+				error = checkEqual(true, reply.startsWith(SumdokuGame.VALUE_PROMPT) && !reply.contains("inválido"), reply) || error;
+				error = checkEqual(true, reply.contains(" 2 . . \n"), reply) || error;
+			}
+
+			//the last player closed the connection, which the server only sees in its next select
+			for (int waited = 0; server.sessions() > 0 && waited < 5000; waited += 10)
+				Thread.sleep(10);
+			error = checkEqual(0, server.sessions(), "sessions left") || error;
+			server.stop();
+			thread.join();
+		} catch (IOException | InterruptedException e) {
+			System.out.println ("Unexpected " + e);
+			error = true;
+		}
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testTokenizer() {
+		String methodName = "SumdokuTokenizer";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuTokenizer tokenizer = tokenizer(" 12\n-7\t+3 TRUE false\r\nabc");
+		error = checkEqual(12, tokenizer.nextInt(), "number") || error;
+		error = checkEqual(-7, tokenizer.nextInt(), "negative number") || error;
+		error = checkEqual(3, tokenizer.nextInt(), "number with sign") || error;
+		error = checkEqual(true, tokenizer.nextBoolean(), "TRUE") || error;
+		error = checkEqual(false, tokenizer.nextBoolean(), "false") || error;
+
+		//as a Scanner, a wrong token throws an exception and isn't skipped
+		error = checkEqual(true, throwsMismatch(tokenizer, true), "abc as a number") || error;
+		error = checkEqual(true, throwsMismatch(tokenizer, false), "abc as a boolean") || error;
+		error = checkEqual(true, tokenizer.hasNext(), "abc is still there") || error;
+		tokenizer = tokenizer("2147483647 -2147483648 2147483648 7");
+		error = checkEqual(Integer.MAX_VALUE, tokenizer.nextInt(), "biggest integer") || error;
+		error = checkEqual(Integer.MIN_VALUE, tokenizer.nextInt(), "smallest integer") || error;
+		error = checkEqual(true, throwsMismatch(tokenizer, true), "too big for an integer") || error;
+
+		//the tokens are read across many blocks of the stream
+		StringBuilder many = new StringBuilder();
+		for (int i = 0; i < 5000; i++)
+			many.append(i).append(i % 2 == 0 ? " " : "\n");
+		tokenizer = tokenizer(many.toString());
+		int sum = 0;
+		while (tokenizer.hasNext())
+			sum += tokenizer.nextInt();
+		error = checkEqual(5000 * 4999 / 2, sum, "sum of many numbers") || error;
+		try {
+			tokenizer.nextInt();
+			error = checkEqual(true, false, "no more tokens") || error;
+		} catch (NoSuchElementException e) {
+			//expected, as in a Scanner
+		}
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testBatchMode() {
+		String methodName = "SumdokuTxt.playBatch";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		//a game with only 1s (never a solution), with invalid answers that are asked again, and then a new game
+		StringBuilder moves = new StringBuilder("0 10\n");
+		for (int square = 1; square <= 9; square++)
+			moves.append(square).append(square == 4 ? " -1 4 1\n" : " 1\n");
+		moves.append("true\n");
+		for (int square = 1; square <= 9; square++)
+			moves.append(square).append(" 1\n");
+		moves.append("false\n");
+
+		StringBuilder out = new StringBuilder();
+		int won = SumdokuTxt.playBatch(new RandomSumdokuPuzzle(3), tokenizer(moves.toString()), out);
+		error = checkEqual(0, won, "games won") || error;
+		error = checkEqual(true, out.toString().equals(SumdokuGame.LOST + "\n" + SumdokuGame.LOST + "\n"), out.toString()) || error;
+
+		//a file that ends in the middle of a game
+		out.setLength(0);
+		won = SumdokuTxt.playBatch(new RandomSumdokuPuzzle(3), tokenizer("1 1\n2 2\n"), out);
+		error = checkEqual(0, won, "games won") || error;
+		error = checkEqual(true, out.toString().equals("O ficheiro de jogadas acabou a meio de um jogo.\n"), out.toString()) || error;
+
+		//a file with an answer that isn't a number (or a boolean) is wrong, not cut
+		out.setLength(0);
+		won = SumdokuTxt.playBatch(new RandomSumdokuPuzzle(3), tokenizer("1 abc 2 2\n"), out);
+		error = checkEqual(0, won, "games won") || error;
+		error = checkEqual(true, out.toString().equals(SumdokuTxt.BAD_ANSWER), out.toString()) || error;
+		out.setLength(0);
+		moves.setLength(0);
+		for (int square = 1; square <= 9; square++)
+			moves.append(square).append(" 1\n");
+		SumdokuTxt.playBatch(new RandomSumdokuPuzzle(3), tokenizer(moves + "maybe\n"), out);
+		error = checkEqual(true, out.toString().equals(SumdokuGame.LOST + "\n" + SumdokuTxt.BAD_ANSWER), out.toString()) || error;
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	private static void testReplay() {
+		String methodName = "SumdokuReplay";
+		System.out.println ("Testing "+ methodName);
+		boolean error = false;
+
+		SumdokuPuzzle one = new SumdokuPuzzle(new int[][] {{0,0,2},{0,1,2},{3,3,4}}, new int[] {5,2,5,5,1});
+		SumdokuPuzzle another = new SumdokuPuzzle(new int[][] {{0,0,0},{0,0,1},{0,1,1}}, new int[] {14,4});
+		int[] squares = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+		int[] reversed = {9, 8, 7, 6, 5, 4, 3, 2, 1};
+
+		try {
+			Path catalogFile = Files.createTempFile("sumdoku", ".catalog");
+			Path logFile = Files.createTempFile("sumdoku", ".replay");
+			SumdokuCatalog.write(catalogFile, Arrays.asList(one, another));
+			SumdokuReplay replay = new SumdokuReplay(SumdokuCatalog.open(catalogFile));
+
+			try (SumdokuReplay.Writer writer = new SumdokuReplay.Writer(logFile)) {
+				writer.write(3, 1, squares, moveValues(anotherGrid3(), squares), 9);
+				writer.write(3, 0, squares, moveValues(anotherGrid3(), squares), 9);
+				writer.write(3, 0, squares, moveValues(oneGrid3(), squares), 3);
+				writer.write(3, 7, squares, moveValues(oneGrid3(), squares), 9);
+				writer.write(3, 0, new int[] {10}, new int[] {1}, 1);
+				writer.write(3, 0, reversed, moveValues(oneGrid3(), reversed), 9);
+			}
+
+			List<SumdokuReplay.Outcome> outcomes = new ArrayList<>();
+			long[] counts = replay.replay(logFile, (number, size, index, outcome) -> outcomes.add(outcome));
+			error = checkEqual(true, outcomes.equals(Arrays.asList(SumdokuReplay.Outcome.WON, SumdokuReplay.Outcome.LOST,
+				SumdokuReplay.Outcome.UNFINISHED, SumdokuReplay.Outcome.INVALID, SumdokuReplay.Outcome.INVALID,
+				SumdokuReplay.Outcome.WON)), outcomes.toString()) || error;
+			error = checkEqual(2, (int) counts[SumdokuReplay.Outcome.WON.ordinal()], "games won") || error;
+			error = checkEqual(2, (int) counts[SumdokuReplay.Outcome.INVALID.ordinal()], "invalid games") || error;
+
+			//a single game, as in a report of a player (the first move is replaced by the last one)
+			byte[] moves = {1, 3, 2, 1, 3, 2, 4, 1, 5, 2, 6, 3, 7, 2, 8, 3, 1, 2, 9, 1};
+			error = checkEqual(true, replay.replay(3, 0, moves, 0, 9) == SumdokuReplay.Outcome.LOST, "replaced move") || error;
+			error = checkEqual(true, replay.replay(3, 0, moves, 0, 10) == SumdokuReplay.Outcome.INVALID, "too many moves") || error;
+
+			//a log that ends in the middle of a game
+			byte[] bytes = Files.readAllBytes(logFile);
+			Files.write(logFile, Arrays.copyOf(bytes, bytes.length - 1));
+			boolean rejected = false;
+			try {
+				replay.replay(logFile, null);
+			} catch (IOException e) {
+				rejected = true;
+			}
+			error = checkEqual(true, rejected, "incomplete log") || error;
+
+			Files.delete(catalogFile);
+			Files.delete(logFile);
+		} catch (IOException e) {
+			System.out.println ("Unexpected " + e);
+			error = true;
+		}
+
+		System.out.println (methodName + ": " + (error ? "FAIL" : "PASS"));
+	}
+
+	//the values of a 3x3 grid in the given squares
+
+	private static int[] moveValues(SumdokuGrid grid, int[] squares) {
+		int[] values = new int[squares.length];
+		for (int i = 0; i < squares.length; i++)
+			values[i] = grid.value((squares[i] - 1) / 3 + 1, (squares[i] - 1) % 3 + 1);
+		return values;
+	}
+
+	//a tokenizer of a text
+
+	private static SumdokuTokenizer tokenizer(String text) {
+		return new SumdokuTokenizer(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	//checks if the next token can't be read as a number (or as a boolean)
+
+	private static boolean throwsMismatch(SumdokuTokenizer tokenizer, boolean number) {
+		try {
+			if (number)
+				tokenizer.nextInt();
+			else
+				tokenizer.nextBoolean();
+			return false;
+		} catch (InputMismatchException e) {
+			return true;
+		}
+	}
+
+	//reads the text sent by the server until it ends with the given text (or, if it is null, until the connection is closed)
+
+	private static String readUntil(InputStream in, String end) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] last = end == null ? null : end.getBytes(StandardCharsets.UTF_8);
+		byte[] tail = new byte[last == null ? 0 : last.length];
+		long count = 0;
+		int b;
+		while ((b = in.read()) >= 0) {
+			bytes.write(b);
+			if (last != null) {
+				//the last bytes read are kept in a ring, so long replies aren't decoded after each byte
+				tail[(int) (count++ % tail.length)] = (byte) b;
+				boolean ends = count >= tail.length;
+				for (int i = 0; ends && i < tail.length; i++)
+					ends = tail[(int) ((count - tail.length + i) % tail.length)] == last[i];
+				if (ends)
+					break;
+			}
+		}
+		return bytes.toString(StandardCharsets.UTF_8);
+	}
+
+	//an Appendable that can't be written (as a closed connection)
+
+	private static Appendable failingAppendable() {
+		return new Appendable() {
+			public Appendable append(CharSequence csq) throws IOException {
+				throw new IOException("closed");
+			}
+			public Appendable append(CharSequence csq, int start, int end) throws IOException {
+				throw new IOException("closed");
+			}
+			public Appendable append(char c) throws IOException {
+				throw new IOException("closed");
+			}
+		};
+	}
+
+	//a 9x9 puzzle and its solution, used to test the solvers
+
+	private static int[][] membership9() {
+		return new int[][] {
+			{0,1,1,2,3,4,5,6,6},
+			{0,0,1,2,3,3,5,5,7},
+			{8,9,10,11,12,3,13,5,7},
+			{8,8,10,11,11,14,13,13,7},
+			{15,8,16,16,11,14,14,13,17},
+			{15,18,19,16,20,20,21,22,22},
+			{15,23,19,19,24,24,21,25,25},
+			{26,27,27,19,28,28,28,29,25},
+			{30,31,31,32,33,33,28,29,25}
+		};
+	}
+
+	private static int[] values9() {
+		return new int[] {12,11,6,29,9,18,8,11,20,9,9,15,4,25,17,22,14,5,7,24,6,10,6,4,8,25,2,7,22,13,1,14,7,5};
+	}
+
+	private static int[][] solution9() {
+		return new int[][] {
+			{3,2,4,5,8,9,6,1,7},
+			{6,3,5,1,9,7,2,4,8},
+			{7,9,2,3,4,5,8,6,1},
+			{4,1,7,8,3,6,5,9,2},
+			{9,8,6,2,1,4,7,3,5},
+			{8,7,3,6,5,1,9,2,4},
+			{5,4,8,9,6,2,1,7,3},
+			{2,6,1,4,7,8,3,5,9},
+			{1,5,9,7,2,3,4,8,6}
+		};
+	}
+
 	//grids that are the solutions of 3 diferent puzzles used in these tests
 	
 	private static SumdokuGrid  oneGrid3() {
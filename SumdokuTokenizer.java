@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@code SumdokuTokenizer} consists in the class which reads the answers of the player (integers and booleans separated
+ * by white space) from an {@code InputStream}, instead of a {@code Scanner}
+ *
+ * It reads the bytes in blocks into its own buffer and reads the numbers and the words straight from the bytes,
+ * so it doesn't create any object per answer (a {@code Scanner} matches each token with regular expressions).
+ * As the {@code Scanner}, it throws an {@code InputMismatchException} when the next token isn't of the asked type
+ * (without skipping it) and a {@code NoSuchElementException} when there are no more tokens
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public class SumdokuTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final int MAX_TOKEN = 64; // Longer tokens are never numbers nor booleans (they are only skipped)
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position; // The next byte to read in the buffer
+    private int limit; // The number of bytes in the buffer
+
+    /**
+     * Creates a tokenizer of a stream.
+     *
+     * @param in the stream with the answers
+     * @requires {@code in != null}
+     */
+    public SumdokuTokenizer(InputStream in){
+        this.in = in;
+    }
+
+    /**
+     * Checks if there is another token (it waits for more bytes if needed).
+     *
+     * @return {@code true} if there is another token, {@code false} if the stream ended
+     */
+    public boolean hasNext(){
+        return skipWhiteSpace();
+    }
+
+    /**
+     * Reads the next token as an integer (with an optional sign, as {@code Scanner.nextInt}).
+     *
+     * @return the integer
+     * @throws InputMismatchException if the next token isn't an integer (it isn't skipped)
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public int nextInt(){
+        if (!skipWhiteSpace())
+            throw new NoSuchElementException();
+        int length = tokenLength();
+
+        int i = this.position;
+        int end = i + length;
+        boolean negative = this.buffer[i] == '-';
+        if (this.buffer[i] == '-' || this.buffer[i] == '+')
+            i++;
+        if (i == end)
+            throw new InputMismatchException();
+
+        // We add the digits as a negative number, so the smallest integer doesn't overflow
+        long result = 0;
+        for (; i < end; i++){
+            int digit = this.buffer[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new InputMismatchException();
+            result = result * 10 - digit;
+            if (result < Integer.MIN_VALUE)
+                throw new InputMismatchException(); // Too big for an integer
+        }
+        if (!negative && result == Integer.MIN_VALUE)
+            throw new InputMismatchException();
+
+        this.position = end;
+        return (int) (negative ? result : -result);
+    }
+
+    /**
+     * Reads the next token as a boolean ("true" or "false" with any case, as {@code Scanner.nextBoolean}).
+     *
+     * @return the boolean
+     * @throws InputMismatchException if the next token isn't a boolean (it isn't skipped)
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public boolean nextBoolean(){
+        if (!skipWhiteSpace())
+            throw new NoSuchElementException();
+        int length = tokenLength();
+
+        boolean result;
+        if (matches("true", length))
+            result = true;
+        else if (matches("false", length))
+            result = false;
+        else
+            throw new InputMismatchException();
+
+        this.position += length;
+        return result;
+    }
+
+    /**
+     * Skips the white space before the next token.
+     *
+     * @return {@code true} if there is a token after it, {@code false} if the stream ended
+     */
+    private boolean skipWhiteSpace(){
+        while (true){
+            while (this.position < this.limit){
+                if (!isWhiteSpace(this.buffer[this.position]))
+                    return true;
+                this.position++;
+            }
+            if (!fill())
+                return false;
+        }
+    }
+
+    /**
+     * Finds the length of the token in the position, reading more bytes while it doesn't end.
+     *
+     * @return the number of bytes of the token (they are all in the buffer, from the position on)
+     */
+    private int tokenLength(){
+        int length = 0;
+        while (true){
+            while (this.position + length < this.limit){
+                if (isWhiteSpace(this.buffer[this.position + length]))
+                    return length;
+                length++;
+            }
+
+            // A token this long is never an answer, so we don't need to read the rest of it
+            if (length >= MAX_TOKEN || !fill())
+                return length;
+        }
+    }
+
+    /**
+     * Reads more bytes into the buffer, keeping the ones not read yet at its start.
+     *
+     * @return {@code true} if some bytes were read, {@code false} if the stream ended
+     */
+    private boolean fill(){
+        int kept = this.limit - this.position;
+        System.arraycopy(this.buffer, this.position, this.buffer, 0, kept);
+        this.position = 0;
+        this.limit = kept;
+
+        try {
+            int read = this.in.read(this.buffer, kept, this.buffer.length - kept);
+            if (read <= 0)
+                return false;
+            this.limit += read;
+            return true;
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks if the token in the position is a word (ignoring the case).
+     *
+     * @param word the word, only with lower case letters
+     * @param length the length of the token
+     * @return {@code true} if the token is the word, {@code false} otherwise
+     */
+    private boolean matches(String word, int length){
+        if (length != word.length())
+            return false;
+        for (int i = 0; i < length; i++){
+            if ((this.buffer[this.position + i] | 0x20) != word.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a byte is white space (a space, a tab or a line break).
+     *
+     * @param b the byte
+     * @return {@code true} if it separates tokens, {@code false} otherwise
+     */
+    static boolean isWhiteSpace(byte b){
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
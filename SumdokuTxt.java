@@ -1,4 +1,8 @@
-import java.util.Scanner;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 
 /**
  * The {@code SumdokuTxt} consists in the class which contains the main section of the project
@@ -11,21 +15,39 @@ import java.util.Scanner;
  */  
 public class SumdokuTxt {
 
+    // The message of the batch mode when the file of moves has an answer that can't be read
+    static final String BAD_ANSWER = "O ficheiro de jogadas tem uma resposta inválida.\n";
+
     /**
      * Entry point for the Sumdoku puzzle program
      * 
      * If a puzzle size is provided as a command-line argument, the program generates a sequence of puzzles of the specified size.
      * The user can play through each puzzle and decide whether to proceed to the next one
+     * 
+     * If a file of moves is also provided, the answers are read from it instead of the keyboard and only the
+     * result of each game is shown (check the function 'playBatch')
      *
      * @param args an optional array of command-line arguments. If provided, the first argument should be 
-     *             an integer specifying the size of the Sumdoku puzzle grid.
+     *             an integer specifying the size of the Sumdoku puzzle grid, and the second one the file of moves.
+     * @throws IOException if the file of moves can't be read
      */
-    public static void main(String[] args) {
-        // Create a scanner object for user input
-        Scanner scanner = new Scanner(System.in);
+    public static void main(String[] args) throws IOException {
+        // The answers come from the file of moves, if there is one, or from the keyboard
+        InputStream input = args.length > 1 ? new FileInputStream(args[1]) : System.in;
+        SumdokuTokenizer scanner = new SumdokuTokenizer(input);
         
         // Check if a command-line argument is provided
-        if (args.length > 0) {
+        if (args.length > 1) {
+            // We play every game of the file without showing the prompts and the grids
+            RandomSumdokuPuzzle puzzleArgs = new RandomSumdokuPuzzle(Integer.parseInt(args[0]));
+            if (puzzleArgs.size() != 0) {
+                StringBuilder results = new StringBuilder();
+                playBatch(puzzleArgs, scanner, results);
+                System.out.append(results);
+            } else {
+                System.out.println("Não existem mais puzzles de tamanho " + args[0] + " para jogar.");
+            }
+        } else if (args.length > 0) {
             // Parse the first argument to get the puzzle size
             int defArgSize = Integer.parseInt(args[0]);
 
@@ -56,7 +78,7 @@ public class SumdokuTxt {
                 } while (validToContinue);  // Continue if the user chooses to play again
                 
                 // Print a message when the user finishes playing
-                System.out.println("Espero que tenhas gostado. Volta sempre!");
+                System.out.println(SumdokuGame.GOODBYE);
             } else {
                 System.out.println("Não existem mais puzzles de tamanho " + defArgSize + " para jogar."); // If we don't have the puzzle for that size...
             }
@@ -64,19 +86,19 @@ public class SumdokuTxt {
             // If no arguments are passed, prompt the user for a puzzle size
             System.out.println("Zero Argumentos Passados (Por favor passe um argumento)");
         }
-        scanner.close();
+        input.close();
     }
     
     /**
      * Asks the player if they want to play again.
      *
      * @param puzzleArgs The puzzle manager containing the current and next puzzles.
-     * @param reader The Scanner to read user input.
+     * @param reader The tokenizer to read user input.
      * @return true if the player wants to play again and there is another puzzle; false otherwise.
      */
-    private static boolean askPlayAgain(RandomSumdokuPuzzle puzzleArgs,Scanner reader){     
+    private static boolean askPlayAgain(RandomSumdokuPuzzle puzzleArgs,SumdokuTokenizer reader){     
         // Prompt the user if they want to play again
-        System.out.print("Queres tentar resolver um novo puzzle (true/false)? ");
+        System.out.print(SumdokuGame.PLAY_AGAIN_PROMPT);
         
         // Read the user's response (true/false)
         boolean usrOption = reader.nextBoolean();   
@@ -88,59 +110,34 @@ public class SumdokuTxt {
                 return true;  // Indicate that the game should continue
             } else {
                 // Inform the user there are no more puzzles
-                System.out.println("Não há mais puzzles para jogar");
+                System.out.println(SumdokuGame.NO_MORE_PUZZLES);
             }
         }
         // Return false if the user doesn't want to play again or no puzzles are available
         return false;
     }
 
-    /**
-     * Calculates the row index for a given square number in the grid.
-     *
-     * @param square   The square number (1-based index).
-     * @param gridSize The size of the grid.
-     * @return The row index of the square.
-     * @requires square must be between 1 and gridSize^2; gridSize must be > 0.
-     */
-    private static int rowOfSquare(int square, int gridSize) { 
-        // Calculate the row number based on the square's position in a grid
-        int row = (square - 1) / gridSize + 1;
-        // Return the calculated row number
-        return row;
-    }
-
-    /**
-     * Calculates the column index for a given square number in the grid.
-     *
-     * @param square   The square number (1-based index).
-     * @param gridSize The size of the grid.
-     * @return The column index of the square.
-     * @requires square must be between 1 and gridSize^2; gridSize must be > 0.
-     */
-    private static int columnOfSquare(int square, int gridSize) {
-        // Calculate the column number based on the square's position in a grid
-        int column = (square - 1) % gridSize + 1;
-        // Return the calculated column number
-        return column;
-    }
-
     /**
      * Reads an integer from the user, ensuring it is within a specified range.
      *
      * @param min    The minimum allowed value.
      * @param max    The maximum allowed value.
-     * @param reader The Scanner to read user input.
+     * @param reader The tokenizer to read user input.
+     * @param verbose  If the error message of an invalid value is shown (it isn't in the batch mode).
      * @return An integer within the range [min, max].
      */
-    private static int readIntInInterval (int min, int max, Scanner reader) { 
+    private static int readIntInInterval (int min, int max, SumdokuTokenizer reader, boolean verbose) { 
         // Read the initial input from the user
         int input = reader.nextInt();
         
         // Keep asking for input if the value is outside the valid range
         while (input > max || input < min) {
             // Print error message when input is invalid
-            System.out.println("Valor inválido. Tem que estar entre " + min + " e " + max + ".");
+            if (verbose) {
+                StringBuilder message = new StringBuilder();
+                SumdokuGame.writeInvalid(message, min, max);
+                System.out.append(message);
+            }
             // Read the next input from the user
             input = reader.nextInt();
         }
@@ -153,13 +150,13 @@ public class SumdokuTxt {
      * Asks the user for the position of the square they want to fill.
      *
      * @param totalSize The total number of squares in the grid.
-     * @param reader    The Scanner to read user input.
+     * @param reader    The tokenizer to read user input.
      * @return The square number chosen by the player.
      */
-    private static int askSquarePosition(int totalSize,Scanner reader){
+    private static int askSquarePosition(int totalSize,SumdokuTokenizer reader){
         // Pede o numero da casa a preencher
-        System.out.print("Casa a preencher? ");
-        int casa=readIntInInterval(1, totalSize, reader);
+        System.out.print(SumdokuGame.SQUARE_PROMPT);
+        int casa=readIntInInterval(1, totalSize, reader, true);
         return casa;
     }
     
@@ -167,13 +164,13 @@ public class SumdokuTxt {
      * Asks the user for the value they want to fill in a square.
      *
      * @param size   The maximum allowed value.
-     * @param reader The Scanner to read user input.
+     * @param reader The tokenizer to read user input.
      * @return The value chosen by the player.
      */
-    private static int askValue(int size, Scanner reader){
+    private static int askValue(int size, SumdokuTokenizer reader){
         //Pede o valor que se quer preencher na casa escolhida
-        System.out.print("Valor a colocar? ");
-        int valor=readIntInInterval(1,size, reader);
+        System.out.print(SumdokuGame.VALUE_PROMPT);
+        int valor=readIntInInterval(1,size, reader, true);
         return valor;
     }
 
@@ -182,44 +179,89 @@ public class SumdokuTxt {
      *
      * @param puzzle      The current puzzle to solve.
      * @param maxAttempts The maximum number of attempts the player has.
-     * @param reader      The Scanner to read user input.
+     * @param reader      The tokenizer to read user input.
      */
-    static void play(SumdokuPuzzle puzzle, int maxAttempts,Scanner reader){
-        int size = puzzle.size();
-        final int LASTATTEMPT = 1;
-        int totalSize=size*size;
-        SumdokuGrid playedGrid = new SumdokuGrid(size);
-
-        // Welcome message
-        System.out.println("Bem vindo ao jogo Sumdoku!");
-
-        // Print puzzle's clues
-        System.out.println("As pistas do puzzle:");
-        System.out.print(puzzle.cluesToString()); // We don't use a line break at the end to follow the project instructions and tests
-        
-        // Print the attempts to resolve the puzzle
-        System.out.println("Tens " + maxAttempts + " tentativas para o resolver. Boa sorte!");
+    static void play(SumdokuPuzzle puzzle, int maxAttempts,SumdokuTokenizer reader){
+        // The state of the game (the grid and the attempts left) and its rules are kept by a 'SumdokuGame'
+        SumdokuGame game = new SumdokuGame(puzzle, maxAttempts);
+
+        // The clues and the grid are written in the same buffer every time, instead of creating new strings for each move
+        StringBuilder screen = new StringBuilder();
+
+        // Welcome message, puzzle's clues and the attempts to resolve the puzzle
+        game.writeIntro(screen);
+        System.out.append(screen);
 
         //Iterates through the number of attempts the user has
-        for (int i = maxAttempts; i >= LASTATTEMPT; i--) {
+        while (!game.isOver()) {
             //Ask the user for a square position and value.
-            int casa = askSquarePosition(totalSize, reader);
-            int value = askValue(size, reader);
-            //Define the row and column of the chosen square
-            int linha = rowOfSquare(casa, size);
-            int coluna = columnOfSquare(casa, size);
+            int casa = askSquarePosition(game.numberOfSquares(), reader);
+            int value = askValue(puzzle.size(), reader);
             //Fill in the user's grid
-            playedGrid.fill(linha, coluna, value);
+            game.play(casa, value);
             //Print the current state of the player's grid
-            System.out.print(playedGrid.toString());
+            screen.setLength(0);
+            game.grid().writeTo(screen);
+            System.out.append(screen);
         }
         
         //Check if the completed puzzle matches the original
-        if (puzzle.isSolvedBy(playedGrid)) {
-            System.out.println("Ganhaste!!!!!");
-        }else{
-            System.out.println("Opps, tentativas esgotadas!");
+        screen.setLength(0);
+        game.writeResult(screen);
+        System.out.append(screen);
+    }
+
+    /**
+     * Plays every game of a file of moves, with the same answers the player would give in the terminal
+     * (the squares and the values, with the invalid ones asked again, and "true" or "false" after each game).
+     * Only the result of each game is written, so recorded games can be replayed quickly.
+     * If the file ends in the middle of a game, or has an answer that isn't a number (or "true" or "false"), a message
+     * says which of them happened and no more games are played.
+     *
+     * @param puzzleArgs The puzzle manager with the puzzles to play.
+     * @param reader     The tokenizer of the moves.
+     * @param out        Where the results are written.
+     * @return The number of games won.
+     * @requires {@code puzzleArgs.size() != 0}
+     */
+    static int playBatch(RandomSumdokuPuzzle puzzleArgs, SumdokuTokenizer reader, StringBuilder out){
+        int won = 0;
+        boolean validToContinue = true;
+
+        while (validToContinue) {
+            SumdokuGame game = new SumdokuGame(puzzleArgs.nextPuzzle(), puzzleArgs.size() * puzzleArgs.size());
+            try {
+                while (!game.isOver()) {
+                    int casa = readIntInInterval(1, game.numberOfSquares(), reader, false);
+                    int value = readIntInInterval(1, puzzleArgs.size(), reader, false);
+                    game.play(casa, value);
+                }
+            } catch (InputMismatchException e) {
+                // An answer isn't a number, so the file is wrong (it must be caught before its superclass 'NoSuchElementException')
+                out.append(BAD_ANSWER);
+                return won;
+            } catch (NoSuchElementException e) {
+                // The file ended before the game, so it has no result
+                out.append("O ficheiro de jogadas acabou a meio de um jogo.\n");
+                return won;
+            }
+            game.writeResult(out);
+            won += game.isWon() ? 1 : 0;
+
+            // As in the terminal, a new game starts only if the answer is "true" and there are more puzzles
+            try {
+                validToContinue = reader.hasNext() && reader.nextBoolean();
+            } catch (InputMismatchException e) {
+                // The answer isn't "true" nor "false"
+                out.append(BAD_ANSWER);
+                return won;
+            }
+            if (validToContinue && !puzzleArgs.hasNextPuzzle()) {
+                out.append(SumdokuGame.NO_MORE_PUZZLES).append('\n');
+                validToContinue = false;
+            }
         }
+        return won;
     }
 
 /*-------------------NOTE 2------------------------
@@ -0,0 +1,48 @@
+import java.util.function.ToIntFunction;
+
+/**
+ * The {@code SumdokuUniqueness} consists in the possible outcomes of checking how many solutions a Sumdoku puzzle has
+ *
+ * The check itself is shared by the solvers (check the function {@code check}), which only differ in how they search
+ *
+ * This is the second project of 2024 in IP (Introdução à Programação) on FCUL (Faculdade de Ciências - Universidade de Lisboa)
+ *
+ * @author Pedro Reinaldo Mendes - nº63729
+ * @author Miguel Cabeça - nº63762
+ * @version 1.0
+ */
+public enum SumdokuUniqueness {
+    NONE, // The puzzle has no solution
+    UNIQUE, // The puzzle has exactly one solution
+    MULTIPLE; // The puzzle has two or more solutions
+
+    /**
+     * Checks if a puzzle has no solution, exactly one solution or more than one.
+     *
+     * We first place every forced digit, which often fills the whole grid (and so proves that the solution
+     * is unique without any search) or finds a contradiction (so there is no solution). Only if that isn't
+     * enough, we search the rest of the grid, stopping as soon as a second solution is found
+     *
+     * @param state the empty grid of the puzzle (it is changed)
+     * @param searchForTwo the search of the solver: it counts at most two ways of completing a state
+     * @requires {@code state != null && searchForTwo != null}
+     * @return the outcome of the check
+     */
+    static SumdokuUniqueness check(SumdokuSearchState state, ToIntFunction<SumdokuSearchState> searchForTwo){
+
+        // We try to find the answer using only the forced digits
+        if (!state.propagate())
+            return NONE;
+        if (state.filled == state.numOfCells)
+            return UNIQUE;
+
+        // If it wasn't enough, we search for at most two solutions
+        int found = searchForTwo.applyAsInt(state);
+
+        if (found == 0)
+            return NONE;
+        if (found == 1)
+            return UNIQUE;
+        return MULTIPLE;
+    }
+}